@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# Builds fitness-backend:crac: starts the app cold, warms it up with read-only traffic so the
+# JIT has compiled the hot paths, takes a checkpoint and commits the stopped container.
+# The checkpoint holds the whole heap, resolved configuration included: treat the image
+# like a secret and rebuild it whenever the configuration changes.
+#
+# Usage: docker compose up -d db && WARMUP_EMAIL=... WARMUP_PASSWORD=... scripts/crac-checkpoint.sh
+set -euo pipefail
+
+ENV_FILE=${ENV_FILE:-.env}
+NETWORK=${NETWORK:-$(basename "$PWD")_default}
+PORT=${PORT:-18082}
+ROUNDS=${WARMUP_ROUNDS:-2000}
+NAME=fitness-crac-warmup
+BASE=http://localhost:$PORT
+CAPS=(--cap-add CHECKPOINT_RESTORE --cap-add SYS_PTRACE)
+
+wait_healthy() {
+  local deadline=$((SECONDS + 120))
+  until curl -fs -o /dev/null "$BASE/actuator/health"; do
+    if ((SECONDS > deadline)); then
+      docker logs "$1" >&2 || true
+      echo "$1 did not become healthy within 120s" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+}
+
+docker build -q -f Dockerfile.crac -t fitness-backend:crac-base . >/dev/null
+docker rm -f "$NAME" >/dev/null 2>&1 || true
+docker run -d --name "$NAME" "${CAPS[@]}" --network "$NETWORK" --env-file "$ENV_FILE" \
+  -e SPRING_DATASOURCE_URL=jdbc:postgresql://db:5432/fitness_db \
+  -e SPRING_PROFILES_ACTIVE=prod \
+  -p "$PORT:8080" fitness-backend:crac-base >/dev/null
+wait_healthy "$NAME"
+
+token=""
+if [[ -n ${WARMUP_EMAIL:-} ]]; then
+  token=$(curl -fs -X POST "$BASE/auth/login" \
+      --data-urlencode "email=$WARMUP_EMAIL" --data-urlencode "password=$WARMUP_PASSWORD" \
+    | sed -n 's/.*"accessToken":"\([^"]*\)".*/\1/p')
+fi
+start=$(date +%F)
+end=$(date -d '+14 days' +%F)
+for _ in $(seq "$ROUNDS"); do
+  curl -s -o /dev/null "$BASE/actuator/health"
+  curl -s -o /dev/null "$BASE/v3/api-docs"
+  if [[ -n $token ]]; then
+    curl -s -o /dev/null -H "Authorization: Bearer $token" "$BASE/api/studios"
+    curl -s -o /dev/null -H "Authorization: Bearer $token" \
+      "$BASE/api/timeslots/available?studioIds=1&start=$start&end=$end"
+    curl -s -o /dev/null -H "Authorization: Bearer $token" "$BASE/api/users/me/sessions"
+  fi
+done
+
+docker exec "$NAME" jcmd /app/app.jar JDK.checkpoint >/dev/null
+docker wait "$NAME" >/dev/null
+docker commit "$NAME" fitness-backend:crac >/dev/null
+docker rm "$NAME" >/dev/null
+
+# one restore to report the time to the first healthy response
+begin=$(date +%s%N)
+docker run -d --rm --name "$NAME" "${CAPS[@]}" --network "$NETWORK" -p "$PORT:8080" fitness-backend:crac >/dev/null
+wait_healthy "$NAME"
+echo "restored and healthy after $((($(date +%s%N) - begin) / 1000000)) ms"
+docker stop "$NAME" >/dev/null
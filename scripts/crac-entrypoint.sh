@@ -0,0 +1,7 @@
+#!/bin/sh
+# Restores from the checkpoint baked into the image, or starts cold with checkpointing enabled
+# when there is none yet (the warm-up container of scripts/crac-checkpoint.sh).
+if [ -n "$(ls -A /app/checkpoint 2>/dev/null)" ]; then
+  exec java -XX:CRaCRestoreFrom=/app/checkpoint
+fi
+exec java -XX:CRaCCheckpointTo=/app/checkpoint -jar /app/app.jar
@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Startup of the plain fat jar vs the fast-start layout (AOT + unpacked classpath + CDS),
+# without Docker or a database. Each variant is launched RUNS times with
+# -Dspring.context.exit=onRefresh, the same database-free settings as the CDS training run
+# in Dockerfile.fast-start; the script reports the median wall time from JVM launch to exit,
+# i.e. JVM start, class loading and the full context refresh. Needs JDK 21 on JAVA_HOME.
+#
+# Usage: scripts/measure-refresh.sh [runs]
+set -euo pipefail
+
+RUNS=${1:-5}
+MVN=${MVN:-./mvnw}
+WORK=${WORK:-${TMPDIR:-/tmp}/fitness-startup}
+JAVA=${JAVA_HOME:?JAVA_HOME must point to a JDK 21}/bin/java
+JAR=${JAVA_HOME}/bin/jar
+
+export JWT_SECRET=training JWT_EXPIRATION=0 JWT_REFRESH_EXPIRATION=0 JWT_RESET_EXPIRATION=0 \
+  POSTGRES_USER=training POSTGRES_PASSWORD=training SENDGRID_API_KEY=training MAIL_FROM=training \
+  SPRING_PROFILES_ACTIVE=prod
+APP_ARGS=(--spring.jpa.hibernate.ddl-auto=none --spring.sql.init.mode=never
+  --spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false)
+
+rm -rf "$WORK" && mkdir -p "$WORK/fast"
+$MVN -q -DskipTests clean package
+cp target/*.jar "$WORK/plain.jar"
+$MVN -q -Pfast-start -DskipTests clean package
+cp target/*.jar "$WORK/fast.jar"
+
+# same unpacking and training run as Dockerfile.fast-start
+(
+  cd "$WORK/fast"
+  "$JAR" xf ../fast.jar BOOT-INF
+  mkdir lib && mv BOOT-INF/lib/*.jar lib/
+  "$JAR" cf application.jar -C BOOT-INF/classes .
+  echo "-cp application.jar:$(sed -n 's/^- "BOOT-INF\/\(.*\)"$/\1/p' BOOT-INF/classpath.idx | paste -sd:)" \
+    > classpath.args
+  "$JAVA" -XX:ArchiveClassesAtExit=app.jsa -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+    @classpath.args com.fitness.FTWbackendApplication "${APP_ARGS[@]}" >training.log 2>&1
+)
+
+time_once() {
+  local start end
+  start=$(date +%s%N)
+  "$@" "${APP_ARGS[@]}" >/dev/null 2>&1
+  end=$(date +%s%N)
+  echo $(((end - start) / 1000000))
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+plain=$(for _ in $(seq "$RUNS"); do
+  time_once "$JAVA" -Dspring.context.exit=onRefresh -jar "$WORK/plain.jar"
+done | median)
+fast=$(cd "$WORK/fast" && for _ in $(seq "$RUNS"); do
+  time_once "$JAVA" -XX:SharedArchiveFile=app.jsa -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+    @classpath.args com.fitness.FTWbackendApplication
+done | median)
+
+printf '%-34s %20s\n' variant "launch to refresh, ms"
+printf '%-34s %20s\n' "fat jar" "$plain"
+printf '%-34s %20s\n' "fast-start (AOT + CDS)" "$fast"
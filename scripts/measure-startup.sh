@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Time-to-first-request of the plain jar image (Dockerfile) vs the fast-start image
+# (Dockerfile.fast-start). Each image is started RUNS times against the compose database;
+# the script reports the median wall time from `docker run` to the first 200 on
+# /actuator/health, and the median "Started ... in N seconds" reported by Spring.
+#
+# Usage: docker compose up -d db && scripts/measure-startup.sh [runs]
+set -euo pipefail
+
+RUNS=${1:-5}
+ENV_FILE=${ENV_FILE:-.env}
+NETWORK=${NETWORK:-$(basename "$PWD")_default}
+PORT=${PORT:-18080}
+NAME=fitness-startup-probe
+
+docker build -q -t fitness-backend:jar . >/dev/null
+docker build -q -f Dockerfile.fast-start -t fitness-backend:fast-start . >/dev/null
+
+run_once() {
+  local image=$1 start end deadline
+  start=$(date +%s%N)
+  docker run -d --rm --name "$NAME" --network "$NETWORK" --env-file "$ENV_FILE" \
+    -e SPRING_DATASOURCE_URL=jdbc:postgresql://db:5432/fitness_db \
+    -e SPRING_PROFILES_ACTIVE=prod \
+    -p "$PORT:8080" "$image" >/dev/null
+  deadline=$((SECONDS + 120))
+  until curl -fs -o /dev/null "http://localhost:$PORT/actuator/health"; do
+    if ((SECONDS > deadline)); then
+      docker logs "$NAME" >&2 || true
+      docker stop "$NAME" >/dev/null || true
+      echo "$image did not become healthy within 120s" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  end=$(date +%s%N)
+  echo "$(((end - start) / 1000000)) $(docker logs "$NAME" 2>&1 \
+    | sed -n 's/.*Started FTWbackendApplication in \([0-9.]*\) seconds.*/\1/p')"
+  docker stop "$NAME" >/dev/null
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+printf '%-28s %22s %20s\n' image "first request, ms" "spring started, s"
+for image in fitness-backend:jar fitness-backend:fast-start; do
+  results=$(for _ in $(seq "$RUNS"); do run_once "$image"; done)
+  printf '%-28s %22s %20s\n' "$image" \
+    "$(cut -d' ' -f1 <<<"$results" | median)" \
+    "$(cut -d' ' -f2 <<<"$results" | median)"
+done
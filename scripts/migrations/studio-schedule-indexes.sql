@@ -0,0 +1,19 @@
+-- One-off migration for studio schedules and booking exports, which read a studio's slots by
+-- date and then the bookings of each slot; run it once per database with psql, outside a
+-- transaction:
+--
+--   psql -v ON_ERROR_STOP=1 -d fitness_db -f scripts/migrations/studio-schedule-indexes.sql
+--
+-- The indexes are built CONCURRENTLY, so time_slot and booking stay writable while they
+-- build. A build that fails leaves an INVALID index behind; the first statement drops such
+-- leftovers, so the script can simply be run again.
+
+SELECT format('DROP INDEX CONCURRENTLY IF EXISTS %I', c.relname)
+FROM pg_index i
+JOIN pg_class c ON c.oid = i.indexrelid
+WHERE NOT i.indisvalid
+  AND c.relname IN ('ix_time_slot_studio_date', 'ix_booking_time_slot')
+\gexec
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_time_slot_studio_date ON time_slot (studio_id, date);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_booking_time_slot ON booking (time_slot_id);
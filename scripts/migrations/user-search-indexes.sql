@@ -0,0 +1,33 @@
+-- One-off migration for the admin user search (GET /api/users/search); run it once per
+-- database with psql, outside a transaction:
+--
+--   psql -v ON_ERROR_STOP=1 -d fitness_db -f scripts/migrations/user-search-indexes.sql
+--
+-- Prerequisite: the pg_trgm extension. It ships with PostgreSQL's contrib package (included
+-- in the official postgres images); creating it needs a superuser or, from PostgreSQL 13 on,
+-- the database owner, since pg_trgm is a trusted extension. Without it the search fails
+-- with "operator does not exist: text <% text".
+--
+-- The indexes are built CONCURRENTLY, so app_user stays writable while they build. A build
+-- that fails leaves an INVALID index behind; the first statement drops such leftovers, so the
+-- script can simply be run again.
+--
+-- Trigram indexes serve both the fuzzy (<%) and the LIKE 'prefix%' matches; the
+-- text_pattern_ops indexes keep one- and two-character prefixes fast.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+SELECT format('DROP INDEX CONCURRENTLY IF EXISTS %I', c.relname)
+FROM pg_index i
+JOIN pg_class c ON c.oid = i.indexrelid
+WHERE NOT i.indisvalid
+  AND c.relname IN ('ix_app_user_name_trgm', 'ix_app_user_email_trgm', 'ix_app_user_name_prefix',
+                    'ix_app_user_email_prefix', 'ix_app_user_phone_digits')
+\gexec
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_app_user_name_trgm ON app_user USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_app_user_email_trgm ON app_user USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_app_user_name_prefix ON app_user (lower(name) text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_app_user_email_prefix ON app_user (lower(email) text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_app_user_phone_digits
+  ON app_user (regexp_replace(phone_number, '[^0-9]', '', 'g') text_pattern_ops);
@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# Starts the native executable against a throwaway Postgres and checks that it boots and
+# serves the paths that depend on native hints: Hibernate queries, JWT issue/parse,
+# MapStruct mapping and Jackson. Prints the time to the first healthy response and the RSS.
+#
+# Usage: ./mvnw -Pnative native:compile -DskipTests && scripts/native-smoke-test.sh
+set -euo pipefail
+
+BINARY=${BINARY:-target/FTWbackend}
+DB_PORT=${DB_PORT:-55432}
+APP_PORT=${APP_PORT:-18081}
+DB_CONTAINER=fitness-native-smoke-db
+BASE=http://localhost:$APP_PORT
+
+cleanup() {
+  [[ -n ${APP_PID:-} ]] && kill "$APP_PID" 2>/dev/null || true
+  docker rm -f "$DB_CONTAINER" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+[[ -x $BINARY ]] || { echo "$BINARY not found, build it with -Pnative native:compile" >&2; exit 1; }
+
+docker run -d --rm --name "$DB_CONTAINER" -p "$DB_PORT:5432" \
+  -e POSTGRES_USER=smoke -e POSTGRES_PASSWORD=smoke -e POSTGRES_DB=fitness_db postgres:16 >/dev/null
+until docker exec "$DB_CONTAINER" pg_isready -U smoke -d fitness_db >/dev/null 2>&1; do sleep 0.5; done
+
+start=$(date +%s%N)
+SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:$DB_PORT/fitness_db \
+POSTGRES_USER=smoke POSTGRES_PASSWORD=smoke \
+JWT_SECRET=$(head -c 32 /dev/urandom | base64) \
+JWT_EXPIRATION=900000 JWT_REFRESH_EXPIRATION=86400000 JWT_RESET_EXPIRATION=900000 \
+SENDGRID_API_KEY=smoke MAIL_FROM=smoke@example.com \
+SERVER_PORT=$APP_PORT SPRING_PROFILES_ACTIVE=prod \
+  "$BINARY" > target/native-smoke.log 2>&1 &
+APP_PID=$!
+
+deadline=$((SECONDS + 30))
+until curl -fs -o /dev/null "$BASE/actuator/health"; do
+  if ((SECONDS > deadline)) || ! kill -0 "$APP_PID" 2>/dev/null; then
+    cat target/native-smoke.log >&2
+    echo "FAIL: native binary did not become healthy" >&2
+    exit 1
+  fi
+  sleep 0.02
+done
+echo "first healthy response after $((($(date +%s%N) - start) / 1000000)) ms"
+
+# the binary is built for prod, so no users are seeded: register one and confirm it in the
+# database (the confirmation mail goes nowhere with the dummy SendGrid key)
+email=smoke-$RANDOM@example.com
+password=Smoke$((RANDOM + 10000))x1
+curl -fs -o /dev/null -X POST "$BASE/auth/register" -H 'Content-Type: application/json' \
+  -d "{\"name\":\"Smoke Test\",\"email\":\"$email\",\"password\":\"$password\",\"phoneNumber\":\"5550000000\"}" \
+  || { cat target/native-smoke.log >&2; echo "FAIL: register" >&2; exit 1; }
+docker exec "$DB_CONTAINER" psql -q -U smoke -d fitness_db \
+  -c "UPDATE app_user SET enabled = true WHERE email = '$email'" >/dev/null
+
+token=$(curl -fs -X POST "$BASE/auth/login?email=$email&password=$password" \
+  | sed -n 's/.*"accessToken":"\([^"]*\)".*/\1/p')
+[[ -n $token ]] || { cat target/native-smoke.log >&2; echo "FAIL: login" >&2; exit 1; }
+
+for path in /api/studios /api/users/me/sessions /api/bookings/me/upcoming /api/bookings/waitlist/me; do
+  status=$(curl -s -o /dev/null -w '%{http_code}' -H "Authorization: Bearer $token" "$BASE$path")
+  [[ $status == 200 ]] || { cat target/native-smoke.log >&2; echo "FAIL: GET $path -> $status" >&2; exit 1; }
+done
+
+echo "resident memory: $(ps -o rss= -p "$APP_PID" | awk '{ printf "%.0f MB", $1 / 1024 }')"
+echo "OK"
@@ -0,0 +1,74 @@
+package com.fitness.config;
+
+import com.fitness.scheduling.SchedulerLeases;
+import com.fitness.services.interfaces.AvailabilityIndex;
+import com.fitness.services.interfaces.ResourceVersionService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Restore-only housekeeping for the CRaC startup mode. Connections are handled by lifecycle
+ * beans (Hikari, the replica and bulkhead pools, Tomcat, the SendGrid client), which Spring
+ * stops before the checkpoint and starts again after restore. What remains is state that would
+ * be wrong in a restored copy: data cached at checkpoint time, and the ids that must differ
+ * between replicas.
+ * <p>
+ * The work runs in {@link #start()} when it follows a {@link #stop()}, i.e. on restore; the
+ * first start is plain startup and does nothing. {@link #PHASE} puts it after the connection
+ * pools (phase 0) and before Tomcat, so the index is rebuilt over open pools and no request
+ * sees checkpoint-time data.
+ */
+@Slf4j
+@Component
+public class CheckpointRestoreHooks implements SmartLifecycle {
+    /** After the pools, before the web server starts accepting requests. */
+    public static final int PHASE = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AvailabilityIndex availabilityIndex;
+    private final ResourceVersionService resourceVersionService;
+    private final SchedulerLeases schedulerLeases;
+    private volatile boolean running;
+    private volatile boolean stopped;
+
+    public CheckpointRestoreHooks(EntityManagerFactory entityManagerFactory,
+                                  AvailabilityIndex availabilityIndex,
+                                  ResourceVersionService resourceVersionService,
+                                  SchedulerLeases schedulerLeases) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.availabilityIndex = availabilityIndex;
+        this.resourceVersionService = resourceVersionService;
+        this.schedulerLeases = schedulerLeases;
+    }
+
+    @Override
+    public void start() {
+        if (stopped) {
+            resourceVersionService.resetEpoch();
+            schedulerLeases.resetOwner();
+            entityManagerFactory.getCache().evictAll();
+            availabilityIndex.rebuild();
+            log.info("Restarted after stop, caches reloaded");
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        stopped = true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
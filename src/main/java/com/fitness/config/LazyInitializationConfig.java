@@ -0,0 +1,26 @@
+package com.fitness.config;
+
+import com.fitness.config.security.JwtService;
+import com.fitness.events.DomainEventExecutors;
+import com.fitness.scheduling.SchedulerLeases;
+import com.fitness.services.interfaces.AvailabilityIndex;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With {@code spring.main.lazy-initialization=true} everything else is created on first use;
+ * these beans stay eager because the first request (or the first booking) would otherwise
+ * pay for building them. Beans with {@code @Scheduled} methods are kept eager by Spring Boot.
+ */
+@Configuration
+public class LazyInitializationConfig {
+    @Bean
+    static LazyInitializationExcludeFilter eagerHotPathBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                AvailabilityIndex.class,
+                DomainEventExecutors.class,
+                SchedulerLeases.class,
+                JwtService.class);
+    }
+}
@@ -0,0 +1,60 @@
+package com.fitness.config;
+
+import com.fitness.dto.BookedInterval;
+import com.fitness.dto.BookingDTO;
+import com.fitness.dto.CalendarEntry;
+import com.fitness.dto.SessionDTO;
+import com.fitness.dto.SlotAvailabilityDelta;
+import com.fitness.dto.StudioBookingExportRow;
+import com.fitness.dto.StudioDTO;
+import com.fitness.dto.TimeSlotDTO;
+import com.fitness.dto.UserDTO;
+import com.fitness.dto.WaitlistEntryDTO;
+import com.sendgrid.helpers.mail.Mail;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Reflection and resource hints for the native image that Spring AOT cannot infer.
+ * Entities, repositories and the MapStruct mappers (Spring beans) are covered by AOT itself;
+ * Hibernate proxies are replaced by build-time enhancement in the {@code native} profile.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+    /** Loaded by jjwt through {@code Classes.newInstance} and {@code ServiceLoader}. */
+    private static final List<String> JJWT_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    /** Built by Hibernate from JPQL {@code SELECT new ...} expressions. */
+    private static final List<Class<?>> QUERY_PROJECTIONS = List.of(
+            BookedInterval.class, BookingDTO.class, CalendarEntry.class, SessionDTO.class,
+            StudioBookingExportRow.class, StudioDTO.class, TimeSlotDTO.class, UserDTO.class, WaitlistEntryDTO.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        JJWT_TYPES.forEach(type -> hints.reflection().registerType(TypeReference.of(type),
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS));
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.*");
+
+        QUERY_PROJECTIONS.forEach(type -> hints.reflection().registerType(type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+
+        // SendGrid request bodies and SSE deltas are written by Jackson outside any controller signature
+        BindingReflectionHintsRegistrar binding = new BindingReflectionHintsRegistrar();
+        binding.registerReflectionHints(hints.reflection(), Mail.class, SlotAvailabilityDelta.class);
+
+        hints.reflection().registerType(TypeReference.of("org.ehcache.jsr107.EhcacheCachingProvider"),
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerPattern("ehcache.xml");
+    }
+}
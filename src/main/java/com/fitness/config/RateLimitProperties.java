@@ -0,0 +1,26 @@
+package com.fitness.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private String backend = "memory";
+    private long maxKeys = 100_000;
+    private Duration idleTimeout = Duration.ofMinutes(30);
+    private Map<String, Policy> policies = new HashMap<>();
+
+    @Data
+    public static class Policy {
+        private int capacity;
+        private Duration refillPeriod;
+    }
+}
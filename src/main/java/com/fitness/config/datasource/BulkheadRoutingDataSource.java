@@ -0,0 +1,40 @@
+package com.fitness.config.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections from the pool bound to the current bulkhead thread, so reporting work
+ * can never take connections from the pool that bookings use. Other threads get the delegate.
+ */
+public class BulkheadRoutingDataSource extends DelegatingDataSource {
+    private static final ThreadLocal<DataSource> BOUND = new ThreadLocal<>();
+
+    public BulkheadRoutingDataSource(DataSource delegate) {
+        super(delegate);
+    }
+
+    public static <T> T callOn(DataSource pool, Supplier<T> work) {
+        DataSource previous = BOUND.get();
+        BOUND.set(pool);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                BOUND.set(previous);
+            } else {
+                BOUND.remove();
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource bound = BOUND.get();
+        return bound != null ? bound.getConnection() : super.getConnection();
+    }
+}
@@ -0,0 +1,46 @@
+package com.fitness.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Wraps Spring Boot's primary pool, which stays as it is (metrics, health and checkpoint
+ * support all unwrap the proxies):
+ * <ul>
+ *   <li>threads of a {@code Bulkhead} get connections from that bulkhead's own pool;</li>
+ *   <li>with {@code app.datasource.replicas} configured, read-only transactions go to the
+ *   replicas. A {@link LazyConnectionDataSourceProxy} fetches the connection at the first
+ *   statement, once the transaction's read-only flag is known.</li>
+ * </ul>
+ */
+@Configuration
+public class DataSourceRoutingConfig {
+    @Bean
+    static BeanPostProcessor dataSourceRouting(ObjectProvider<ReplicaPool> replicaPool,
+                                               ObjectProvider<ReadYourWrites> readYourWrites,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource primary) || !"dataSource".equals(beanName)) {
+                    return bean;
+                }
+                ReplicaPool replicas = replicaPool.getObject();
+                if (replicas.isEmpty()) {
+                    return new BulkheadRoutingDataSource(primary);
+                }
+                ReadYourWrites tracker = readYourWrites.getObject();
+                LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(
+                        new BulkheadRoutingDataSource(tracker.tracking(primary)));
+                routing.setReadOnlyDataSource(new BulkheadRoutingDataSource(
+                        new ReplicaRoutingDataSource(primary, replicas, tracker, meterRegistry.getObject())));
+                return routing;
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.fitness.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Extra read-only pools next to Spring Boot's primary one. They connect lazily, so a
+ * misconfigured replica or reporting pool never blocks startup, and they can be suspended
+ * so their connections are closed for a checkpoint.
+ */
+public final class HikariPools {
+    private HikariPools() {
+    }
+
+    public static HikariDataSource readOnly(String name, String url, String username, String password,
+                                            int size, MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setMaximumPoolSize(size);
+        pool.setReadOnly(true);
+        pool.setInitializationFailTimeout(-1);
+        pool.setAllowPoolSuspension(true);
+        pool.setMetricRegistry(meterRegistry);
+        return pool;
+    }
+
+    public static void suspend(HikariDataSource pool) {
+        HikariPoolMXBean mx = pool.getHikariPoolMXBean();
+        if (mx != null) {
+            mx.suspendPool();
+            mx.softEvictConnections();
+        }
+    }
+
+    public static void resume(HikariDataSource pool) {
+        HikariPoolMXBean mx = pool.getHikariPoolMXBean();
+        if (mx != null) {
+            mx.resumePool();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.fitness.config.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps the read-only transactions started inside {@link #call} on the primary. For reads whose
+ * result is compared with state the primary has already committed, such as snapshots that
+ * replace an in-memory read model, where a lagging replica would roll the model back.
+ */
+public final class PrimaryReads {
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> work) {
+        Boolean previous = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PINNED.remove();
+            }
+        }
+    }
+
+    static boolean active() {
+        return PINNED.get() != null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.fitness.config.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReadReplicaProperties {
+    private List<Replica> replicas = new ArrayList<>();
+    private Duration maxLag = Duration.ofSeconds(2);
+    private Duration probeInterval = Duration.ofSeconds(1);
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    private int poolSize = 10;
+
+    @Data
+    public static class Replica {
+        private String url;
+        /** Defaults to {@code spring.datasource.username} / {@code password}. */
+        private String username;
+        private String password;
+    }
+}
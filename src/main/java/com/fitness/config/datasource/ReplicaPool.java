@@ -0,0 +1,178 @@
+package com.fitness.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection pools for the configured read replicas and their replication lag, probed every
+ * {@code app.datasource.probe-interval}. A replica is eligible while its last probe succeeded,
+ * its WAL receiver is streaming from the primary and its lag is within
+ * {@code app.datasource.max-lag}. A streaming replica that has replayed everything it received
+ * has no lag, so an idle primary does not make replicas look stale; a replica that lost its
+ * upstream connection is stale however far it got. Reading the receiver status needs
+ * {@code pg_read_all_stats}; without it the replica is never used.
+ * Stopping the pool (shutdown or checkpoint) suspends it and closes its idle connections.
+ */
+@Slf4j
+@Component
+public class ReplicaPool implements SmartLifecycle {
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END
+            """;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Duration maxLag;
+    private volatile boolean running;
+
+    public ReplicaPool(ReadReplicaProperties properties,
+                       DataSourceProperties primary,
+                       MeterRegistry meterRegistry) {
+        this.maxLag = properties.getMaxLag();
+        List<ReadReplicaProperties.Replica> configured = properties.getReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            ReadReplicaProperties.Replica config = configured.get(i);
+            HikariDataSource pool = HikariPools.readOnly("replica-" + i, config.getUrl(),
+                    config.getUsername() != null ? config.getUsername() : primary.determineUsername(),
+                    config.getPassword() != null ? config.getPassword() : primary.determinePassword(),
+                    properties.getPoolSize(), meterRegistry);
+
+            Replica replica = new Replica(pool.getPoolName(), pool);
+            replicas.add(replica);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMillis)
+                    .tag("replica", replica.name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean isEmpty() {
+        return replicas.isEmpty();
+    }
+
+    /** Eligible replicas, rotated so load spreads evenly; empty when every replica is lagging or down. */
+    public List<Replica> candidates() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        List<Replica> eligible = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy && replica.streaming && replica.lagMillis <= maxLag.toMillis()) {
+                eligible.add(replica);
+            }
+        }
+        return eligible;
+    }
+
+    public void markDown(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            log.warn("Replica {} is unavailable, reading from the primary until it recovers: {}",
+                    replica.name, cause.getMessage());
+        }
+        replica.healthy = false;
+    }
+
+    // bound through ReadReplicaProperties so the interval accepts the same formats as max-lag
+    @Scheduled(fixedDelayString = "#{@readReplicaProperties.probeInterval.toMillis()}")
+    public void probe() {
+        if (!running) {
+            return;
+        }
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                long lag = rs.getLong(1);
+                record(replica, rs.wasNull() ? null : lag);
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    /** Applies a successful probe; {@code lagMillis} is null when the replica is not streaming. */
+    void record(Replica replica, Long lagMillis) {
+        boolean streaming = lagMillis != null;
+        if (streaming) {
+            replica.lagMillis = lagMillis;
+        }
+        if (!streaming && (replica.streaming || !replica.healthy)) {
+            log.warn("Replica {} is not streaming from the primary, reading from the primary until it is",
+                    replica.name);
+        } else if (streaming && (!replica.streaming || !replica.healthy)) {
+            log.info("Replica {} is back, lag {} ms", replica.name, replica.lagMillis);
+        }
+        replica.streaming = streaming;
+        replica.healthy = true;
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public void start() {
+        replicas.forEach(replica -> HikariPools.resume(replica.dataSource));
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Replica replica : replicas) {
+            HikariPools.suspend(replica.dataSource);
+            replica.healthy = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Started with the primary pool, before the restore hooks and the web server; stopped after them. */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @PreDestroy
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    public static final class Replica {
+        final String name;
+        final HikariDataSource dataSource;
+        volatile boolean healthy;
+        volatile boolean streaming;
+        volatile long lagMillis;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.fitness.config.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Target for connections of read-only transactions. Picks the next eligible replica, skipping
+ * replicas that fail to hand out a connection, and falls back to the primary when none is left,
+ * when the current user has to read their own recent writes, or inside {@link PrimaryReads}.
+ * Connections for explicit credentials always come from the primary, since the replica pools
+ * are bound to their configured users.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private final DataSource primary;
+    private final ReplicaPool replicas;
+    private final ReadYourWrites readYourWrites;
+    private final Counter toReplica;
+    private final Counter pinned;
+    private final Counter primaryOnly;
+    private final Counter fallback;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicas, ReadYourWrites readYourWrites,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.readYourWrites = readYourWrites;
+        this.toReplica = routed(meterRegistry, "replica");
+        this.pinned = routed(meterRegistry, "primary-read-your-writes");
+        this.primaryOnly = routed(meterRegistry, "primary-pinned");
+        this.fallback = routed(meterRegistry, "primary-fallback");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PrimaryReads.active()) {
+            primaryOnly.increment();
+            return primary.getConnection();
+        }
+        if (readYourWrites.pinnedToPrimary()) {
+            pinned.increment();
+            return primary.getConnection();
+        }
+        for (ReplicaPool.Replica replica : replicas.candidates()) {
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                toReplica.increment();
+                return connection;
+            } catch (SQLException e) {
+                replicas.markDown(replica, e);
+            }
+        }
+        fallback.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryOnly.increment();
+        return primary.getConnection(username, password);
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.read.routing")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
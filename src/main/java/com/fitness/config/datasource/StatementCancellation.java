@@ -0,0 +1,88 @@
+package com.fitness.config.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets another thread abort the JDBC work of a running task. While {@link #run} is active,
+ * connections from a {@link #tracking} data source remember every statement they create;
+ * {@link #cancel} sends a cancel request for each of them (the driver does this over a separate
+ * socket, so it is safe from any thread) and makes further statements fail at once.
+ */
+public final class StatementCancellation {
+    private static final ThreadLocal<StatementCancellation> CURRENT = new ThreadLocal<>();
+
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    public static DataSource tracking(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                StatementCancellation scope = CURRENT.get();
+                return scope != null ? scope.track(connection) : connection;
+            }
+        };
+    }
+
+    public <T> T run(Supplier<T> work) {
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            CURRENT.remove();
+            statements.clear();
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException ignored) {
+                // already finished or closed
+            }
+        }
+    }
+
+    private Connection track(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    boolean createsStatement = Statement.class.isAssignableFrom(method.getReturnType());
+                    if (createsStatement && cancelled) {
+                        throw new SQLException("Statement cancelled", "57014");
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (createsStatement) {
+                        statements.add((Statement) result);
+                        if (cancelled) {
+                            ((Statement) result).cancel();
+                        }
+                    }
+                    return result;
+                });
+    }
+}
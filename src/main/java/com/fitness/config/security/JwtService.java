@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Value;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 @Service
 public class JwtService {
@@ -35,6 +36,7 @@ public class JwtService {
         Date now = new Date();
         Date exp = new Date(now.getTime() + ttlMillis);
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(email)
                 .setIssuedAt(now)
                 .setExpiration(exp)
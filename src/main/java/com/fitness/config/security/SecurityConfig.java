@@ -2,6 +2,7 @@ package com.fitness.config.security;
 
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
 import org.springframework.context.annotation.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -60,6 +61,11 @@ public class SecurityConfig {
                                 "/v3/api-docs.yaml",
                                 "/v3/api-docs.json"
                         ).permitAll()
+                        // calendar subscriptions carry a feed token in the path instead of a JWT
+                        .requestMatchers(HttpMethod.GET, "/api/bookings/calendar/*", "/api/studios/*/calendar/*")
+                        .permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasAnyRole("ADMIN", "DEV")
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().denyAll()
                 )
@@ -7,9 +7,10 @@ import com.fitness.dto.UserDTO;
 import com.fitness.services.interfaces.AuthenticationService;
 import com.fitness.services.interfaces.ConfirmationService;
 import com.fitness.services.interfaces.PasswordResetService;
+import com.fitness.services.interfaces.RateLimitService;
 import com.fitness.services.interfaces.UserService;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import jakarta.annotation.security.PermitAll;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -29,20 +30,27 @@ public class AuthController {
     private final PasswordResetService passwordResetService;
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final RateLimitService rateLimitService;
 
 
     @PostMapping("/register")
-    public ResponseEntity<UserDTO> registerUser(@Valid @RequestBody RegisterUserRequest registerUserRequest) {
+    public ResponseEntity<UserDTO> registerUser(@Valid @RequestBody RegisterUserRequest registerUserRequest,
+                                                HttpServletRequest request) {
+        rateLimitService.consume("register-ip", request.getRemoteAddr());
+        rateLimitService.consume("register-email", registerUserRequest.getEmail());
         UserDTO userDTO = userService.registerUser(registerUserRequest);
         return ResponseEntity.ok(userDTO);
     }
-    @RateLimiter(name = "loginRateLimiter")
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(
            @RequestParam String email,
-          @RequestParam String password
+          @RequestParam String password,
+          @RequestParam(required = false) String deviceId,
+          HttpServletRequest request
    ) {
-              return ResponseEntity.ok(authenticationService.login(email, password));
+              rateLimitService.consume("login-ip", request.getRemoteAddr());
+              rateLimitService.consume("login-email", email);
+              return ResponseEntity.ok(authenticationService.login(email, password, deviceId));
            }
 
     @PostMapping("/refresh")
@@ -58,13 +66,17 @@ public class AuthController {
     }
 
     @PostMapping("/resend")
-    public ResponseEntity<Void> resendConfirmation(@RequestParam String email) {
+    public ResponseEntity<Void> resendConfirmation(@RequestParam String email, HttpServletRequest request) {
+        rateLimitService.consume("resend-ip", request.getRemoteAddr());
+        rateLimitService.consume("resend-email", email);
         confirmationService.resendConfirmationEmail(email);
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/reset/request")
-   public ResponseEntity<Void> requestReset(@RequestParam String email) {
+   public ResponseEntity<Void> requestReset(@RequestParam String email, HttpServletRequest request) {
+               rateLimitService.consume("reset-ip", request.getRemoteAddr());
+               rateLimitService.consume("reset-email", email);
                passwordResetService.requestReset(email);
                return ResponseEntity.noContent().build();
            }
@@ -1,18 +1,36 @@
 package com.fitness.controllers;
 
+import com.fitness.dto.BatchBookingResult;
 import com.fitness.dto.BookingDTO;
+import com.fitness.dto.CalendarFeedLinkDTO;
+import com.fitness.dto.CreateBatchBookingRequest;
 import com.fitness.dto.CreateBookingRequest;
 import com.fitness.dto.CreateOwnBookingRequest;
 import com.fitness.dto.UpdateBookingRequest;
+import com.fitness.dto.WaitlistEntryDTO;
 import com.fitness.enums.BookingStatus;
+import com.fitness.enums.Role;
 import com.fitness.services.interfaces.BookingService;
+import com.fitness.services.interfaces.CalendarFeedService;
+import com.fitness.services.interfaces.CurrentUserService;
+import com.fitness.services.interfaces.IdempotencyService;
+import com.fitness.services.interfaces.ResourceVersionService;
+import com.fitness.services.interfaces.WaitlistService;
+import com.fitness.web.Bulkheads;
+import com.fitness.web.ETags;
+import com.fitness.web.JsonStreamer;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -24,18 +42,40 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final JsonStreamer jsonStreamer;
+    private final Bulkheads bulkheads;
+    private final CurrentUserService currentUserService;
+    private final ResourceVersionService resourceVersionService;
+    private final IdempotencyService idempotencyService;
+    private final WaitlistService waitlistService;
+    private final CalendarFeedService calendarFeedService;
     @PostMapping("/me")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<BookingDTO> createOwnBooking(
-            @Valid @RequestBody CreateOwnBookingRequest req) {
-        BookingDTO dto = bookingService.createBookingForCurrentUser(req.getTimeSlotId());
+            @Valid @RequestBody CreateOwnBookingRequest req,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        BookingDTO dto = idempotencyService.execute("bookings.me", idempotencyKey, req, BookingDTO.class,
+                () -> bookingService.createBookingForCurrentUser(req.getTimeSlotId()));
         return ResponseEntity.ok(dto);
     }
+    @PostMapping("/me/batch")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<BatchBookingResult> createOwnBookings(
+            @Valid @RequestBody CreateBatchBookingRequest req,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        BatchBookingResult result = idempotencyService.execute("bookings.me.batch", idempotencyKey, req,
+                BatchBookingResult.class,
+                () -> bookingService.createBookingsForCurrentUser(req.getTimeSlotIds(), req.getMode()));
+        HttpStatus status = result.getBooked().isEmpty() ? HttpStatus.CONFLICT : HttpStatus.OK;
+        return ResponseEntity.status(status).body(result);
+    }
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN','DEV')")
     public ResponseEntity<BookingDTO> createBookingForUser(
-            @Valid @RequestBody CreateBookingRequest req) {
-        BookingDTO dto = bookingService.createBooking(req);
+            @Valid @RequestBody CreateBookingRequest req,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        BookingDTO dto = idempotencyService.execute("bookings", idempotencyKey, req, BookingDTO.class,
+                () -> bookingService.createBooking(req));
         return ResponseEntity.ok(dto);
     }
 
@@ -47,8 +87,9 @@ public class BookingController {
     }
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','DEV')")
-    public ResponseEntity<List<BookingDTO>> getAllBookings() {
-        return ResponseEntity.ok(bookingService.getAllBookings());
+    public ResponseEntity<StreamingResponseBody> getAllBookings(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return jsonStreamer.stream(accept, bulkheads.exports(bookingService::streamAllBookings));
     }
     @PutMapping("/{id}/cancel")
     @PreAuthorize("hasAnyRole('ADMIN', 'DEV')")
@@ -79,15 +120,82 @@ public class BookingController {
 
 @GetMapping("/me/upcoming")
 @PreAuthorize("hasRole('USER')")
-public ResponseEntity<List<BookingDTO>> getMyUpcoming() {
-    return ResponseEntity.ok(bookingService.getMyUpcoming());
+public ResponseEntity<List<BookingDTO>> getMyUpcoming(WebRequest request) {
+    Long me = currentUserService.getCurrentUserId();
+    // a user sees only their own bookings, other roles a wider set; slot edits bump the booked users
+    long bookings = currentUserService.getCurrentUserRole() == Role.USER
+            ? resourceVersionService.bookingsVersion(me)
+            : resourceVersionService.bookingsVersion();
+    String etag = ETags.of(resourceVersionService.epoch(), me, bookings, LocalDate.now());
+    if (request.checkNotModified(etag)) {
+        return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(bookingService.getMyUpcoming());
 }
 
+    @GetMapping("/me/calendar.ics")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<byte[]> getMyCalendar(WebRequest request) {
+        String etag = calendarFeedService.myBookingsETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.parseMediaType(CalendarFeedService.MEDIA_TYPE))
+                .body(calendarFeedService.myBookingsFeed());
+    }
+
+    @PostMapping("/me/calendar-token")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CalendarFeedLinkDTO> rotateCalendarToken() {
+        return ResponseEntity.ok(calendarFeedService.rotateFeedToken());
+    }
+
+    @DeleteMapping("/me/calendar-token")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Void> revokeCalendarToken() {
+        calendarFeedService.revokeFeedToken();
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Subscription URL for calendar apps, authenticated by the feed token instead of a JWT. */
+    @GetMapping("/calendar/{token}.ics")
+    public ResponseEntity<byte[]> getCalendarByToken(@PathVariable String token, WebRequest request) {
+        String etag = calendarFeedService.bookingsETag(token);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.parseMediaType(CalendarFeedService.MEDIA_TYPE))
+                .body(calendarFeedService.bookingsFeed(token));
+    }
+
     @GetMapping("/me/history")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<List<BookingDTO>> getMyHistory() {
         return ResponseEntity.ok(bookingService.getMyHistory());
     }
 
+    @PostMapping("/waitlist/{timeSlotId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<WaitlistEntryDTO> joinWaitlist(@PathVariable Long timeSlotId) {
+        return ResponseEntity.ok(waitlistService.join(timeSlotId));
+    }
+
+    @DeleteMapping("/waitlist/{timeSlotId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Long timeSlotId) {
+        waitlistService.leave(timeSlotId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/waitlist/me")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<WaitlistEntryDTO>> getMyWaitlist() {
+        return ResponseEntity.ok(waitlistService.getMyWaitlist());
+    }
+
 }
 
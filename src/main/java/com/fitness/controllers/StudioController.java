@@ -3,14 +3,24 @@ package com.fitness.controllers;
 import com.fitness.dto.StudioCreateUpdateDTO;
 import com.fitness.dto.StudioDTO;
 import com.fitness.dto.UserDTO;
+import com.fitness.services.interfaces.CalendarFeedService;
+import com.fitness.services.interfaces.ResourceVersionService;
 import com.fitness.services.interfaces.StudioService;
+import com.fitness.web.Bulkheads;
+import com.fitness.web.CsvStreamer;
+import com.fitness.web.ETags;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -19,8 +29,15 @@ import java.util.Map;
 @RequestMapping("/api/studios")
 @RequiredArgsConstructor
 public class StudioController {
+  private static final List<String> BOOKING_EXPORT_HEADER = List.of(
+          "booking_id", "date", "start_time", "end_time", "status", "created_at",
+          "user_id", "user_name", "user_email");
 
   private final StudioService studioService;
+  private final ResourceVersionService resourceVersionService;
+  private final Bulkheads bulkheads;
+  private final CalendarFeedService calendarFeedService;
+  private final CsvStreamer csvStreamer;
 
 
     @PostMapping
@@ -39,8 +56,12 @@ public class StudioController {
     }
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'USER_PRO', 'ADMIN', 'DEV')")
-    public ResponseEntity<List<StudioDTO>> getAllStudios() {
-        return ResponseEntity.ok(studioService.getAllStudios());
+    public ResponseEntity<List<StudioDTO>> getAllStudios(WebRequest request) {
+        String etag = ETags.of(resourceVersionService.epoch(), resourceVersionService.studiosVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(studioService.getAllStudios());
     }
 
 
@@ -62,24 +83,63 @@ public class StudioController {
 
     @GetMapping("/{studioId}/unique-clients")
     @PreAuthorize("hasAnyRole('ADMIN', 'DEV')")
-    public ResponseEntity<Long> getUniqueClients(@PathVariable Long studioId,
-                                                 @RequestParam @Schema(type = "string", example = "2025-07-01") LocalDate start,
-                                                 @RequestParam @Schema(type = "string", example = "2025-07-31") LocalDate end) {
-        return ResponseEntity.ok(studioService.countUniqueClients(studioId, start, end));
+    public DeferredResult<ResponseEntity<Long>> getUniqueClients(@PathVariable Long studioId,
+                                                                 @RequestParam @Schema(type = "string", example = "2025-07-01") LocalDate start,
+                                                                 @RequestParam @Schema(type = "string", example = "2025-07-31") LocalDate end) {
+        return bulkheads.analytics(() -> ResponseEntity.ok(studioService.countUniqueClients(studioId, start, end)));
     }
 
     @GetMapping("/{studioId}/occupancy")
     @PreAuthorize("hasAnyRole('USER_PRO', 'ADMIN', 'DEV')")
-    public ResponseEntity<Map<LocalDate, Integer>> getOccupancy(@PathVariable Long studioId,
-                                                                @RequestParam @Schema(type = "string", example = "2025-07-01") LocalDate start,
-                                                                @RequestParam @Schema(type = "string", example = "2025-07-31") LocalDate end) {
-        return ResponseEntity.ok(studioService.getOccupancy(studioId, start, end));
+    public DeferredResult<ResponseEntity<Map<LocalDate, Integer>>> getOccupancy(@PathVariable Long studioId,
+                                                                                @RequestParam @Schema(type = "string", example = "2025-07-01") LocalDate start,
+                                                                                @RequestParam @Schema(type = "string", example = "2025-07-31") LocalDate end) {
+        return bulkheads.analytics(() -> ResponseEntity.ok(studioService.getOccupancy(studioId, start, end)));
     }
 
     @GetMapping("/{studioId}/clients")
     @PreAuthorize("hasAnyRole('USER_PRO', 'ADMIN', 'DEV')")
-    public ResponseEntity<List<UserDTO>> getUniqueClientsByStudio(@PathVariable Long studioId) {
-        return ResponseEntity.ok(studioService.getUniqueClientsByStudio(studioId));
+    public DeferredResult<ResponseEntity<List<UserDTO>>> getUniqueClientsByStudio(@PathVariable Long studioId) {
+        return bulkheads.analytics(() -> ResponseEntity.ok(studioService.getUniqueClientsByStudio(studioId)));
+    }
+
+    @GetMapping("/{studioId}/bookings/export.csv")
+    @PreAuthorize("hasAnyRole('USER_PRO', 'ADMIN', 'DEV')")
+    public ResponseEntity<StreamingResponseBody> exportBookings(@PathVariable Long studioId,
+                                                                @RequestParam @Schema(type = "string", example = "2025-07-01") LocalDate from,
+                                                                @RequestParam @Schema(type = "string", example = "2025-07-31") LocalDate to,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return csvStreamer.stream(acceptEncoding, "studio-" + studioId + "-bookings.csv", BOOKING_EXPORT_HEADER,
+                row -> new Object[]{row.getBookingId(), row.getDate(), row.getStartTime(), row.getEndTime(),
+                        row.getStatus(), row.getCreatedAt(), row.getUserId(), row.getUserName(), row.getUserEmail()},
+                bulkheads.exports(studioService.exportBookings(studioId, from, to)));
+    }
+
+    @GetMapping("/{studioId}/calendar.ics")
+    @PreAuthorize("hasAnyRole('USER_PRO', 'ADMIN', 'DEV')")
+    public ResponseEntity<byte[]> getStudioCalendar(@PathVariable Long studioId, WebRequest request) {
+        String etag = calendarFeedService.studioScheduleETag(studioId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.parseMediaType(CalendarFeedService.MEDIA_TYPE))
+                .body(calendarFeedService.studioScheduleFeed(studioId));
+    }
+    /** Subscription URL for calendar apps, authenticated by the owner's feed token. */
+    @GetMapping("/{studioId}/calendar/{token}.ics")
+    public ResponseEntity<byte[]> getStudioCalendarByToken(@PathVariable Long studioId,
+                                                           @PathVariable String token,
+                                                           WebRequest request) {
+        String etag = calendarFeedService.studioScheduleETag(studioId, token);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.parseMediaType(CalendarFeedService.MEDIA_TYPE))
+                .body(calendarFeedService.studioScheduleFeed(studioId, token));
     }
     @PutMapping("/{studioId}/admin/{userId}")
     @PreAuthorize("hasAnyRole('ADMIN','DEV')")
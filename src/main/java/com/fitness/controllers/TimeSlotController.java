@@ -4,13 +4,21 @@ import com.fitness.dto.TimeSlotCreateDTO;
 import com.fitness.dto.TimeSlotDTO;
 import com.fitness.dto.TimeSlotUpdateDTO;
 import com.fitness.services.interfaces.TimeSlotService;
+import com.fitness.web.Bulkheads;
+import com.fitness.web.JsonStreamer;
+import com.fitness.web.SlotAvailabilityStreamHub;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
 import java.util.List;
 @Tag(name = "TimeSlot", description = "TimeSlot Management")
@@ -19,6 +27,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TimeSlotController {
     private final TimeSlotService timeSlotService;
+    private final JsonStreamer jsonStreamer;
+    private final Bulkheads bulkheads;
+    private final SlotAvailabilityStreamHub slotAvailabilityStreamHub;
 
 
     @PostMapping
@@ -38,8 +49,9 @@ public class TimeSlotController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'DEV')")
-    public ResponseEntity<List<TimeSlotDTO>> getAllTimeSlots() {
-        return ResponseEntity.ok(timeSlotService.getAllTimeSlots());
+    public ResponseEntity<StreamingResponseBody> getAllTimeSlots(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return jsonStreamer.stream(accept, bulkheads.exports(timeSlotService::streamAllTimeSlots));
     }
 
 
@@ -69,8 +81,27 @@ public class TimeSlotController {
     @PreAuthorize("hasAnyRole('USER', 'USER_PRO', 'ADMIN', 'DEV')")
     public ResponseEntity<List<TimeSlotDTO>> getAvailableSlots(@PathVariable Long studioId,
                                                                @RequestParam @Schema(type = "string", example = "2025-07-01") LocalDate start,
-                                                               @RequestParam @Schema(type = "string", example = "2025-07-31") LocalDate end) {
-        return ResponseEntity.ok(timeSlotService.getAvailableSlotsByStudio(studioId, start, end));
+                                                               @RequestParam @Schema(type = "string", example = "2025-07-31") LocalDate end,
+                                                               WebRequest request) {
+        String etag = timeSlotService.availableSlotsETag(studioId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(timeSlotService.getAvailableSlotsByStudio(studioId, start, end));
+    }
+
+    @GetMapping(value = "/studio/{studioId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'USER_PRO', 'ADMIN', 'DEV')")
+    public SseEmitter streamAvailability(@PathVariable Long studioId) {
+        return slotAvailabilityStreamHub.subscribe(studioId);
+    }
+
+    @GetMapping("/available")
+    @PreAuthorize("hasAnyRole('USER', 'USER_PRO', 'ADMIN', 'DEV')")
+    public ResponseEntity<List<TimeSlotDTO>> getAvailableSlotsAcrossStudios(@RequestParam List<Long> studioIds,
+                                                                            @RequestParam @Schema(type = "string", example = "2025-07-01") LocalDate start,
+                                                                            @RequestParam @Schema(type = "string", example = "2025-07-31") LocalDate end) {
+        return ResponseEntity.ok(timeSlotService.getAvailableSlots(studioIds, start, end));
     }
 
     @GetMapping("/studio/{studioId}/dates")
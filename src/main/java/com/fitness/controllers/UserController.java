@@ -1,16 +1,25 @@
 package com.fitness.controllers;
 
 import com.fitness.dto.ChangePasswordRequest;
+import com.fitness.dto.SessionDTO;
 import com.fitness.dto.UpdateUserRequest;
 import com.fitness.dto.UserDTO;
+import com.fitness.dto.UserSearchPage;
+import com.fitness.enums.Role;
+import com.fitness.services.interfaces.AuthenticationService;
 import com.fitness.services.interfaces.CurrentUserService;
 import com.fitness.services.interfaces.UserService;
+import com.fitness.web.Bulkheads;
+import com.fitness.web.JsonStreamer;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -21,6 +30,9 @@ import java.util.List;
 public class UserController {
     private final UserService userService;
     private final CurrentUserService currentUserService;
+    private final JsonStreamer jsonStreamer;
+    private final Bulkheads bulkheads;
+    private final AuthenticationService authenticationService;
 
 
 
@@ -32,8 +44,19 @@ public class UserController {
     }
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'DEV')")
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<StreamingResponseBody> getAllUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return jsonStreamer.stream(accept, bulkheads.exports(userService::streamAllUsers));
+    }
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DEV')")
+    public ResponseEntity<UserSearchPage> searchUsers(
+            @RequestParam(required = false) @Parameter(description = "Prefix or fuzzy match on name, e-mail or phone") String q,
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) @Parameter(description = "nextAfter of the previous page") Long after,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(userService.searchUsers(q, role, enabled, after, limit));
     }
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'DEV')")
@@ -61,6 +84,26 @@ public class UserController {
         userService.changePassword(id, req);
         return ResponseEntity.noContent().build();
     }
+    @GetMapping("/me/sessions")
+    @PreAuthorize("hasAnyRole('USER','USER_PRO','ADMIN','DEV')")
+    public ResponseEntity<List<SessionDTO>> getMySessions() {
+        String me = currentUserService.getCurrentUser().getEmail();
+        return ResponseEntity.ok(authenticationService.getSessions(me));
+    }
+    @DeleteMapping("/me/sessions/{sessionId}")
+    @PreAuthorize("hasAnyRole('USER','USER_PRO','ADMIN','DEV')")
+    public ResponseEntity<Void> revokeMySession(@PathVariable String sessionId) {
+        String me = currentUserService.getCurrentUser().getEmail();
+        authenticationService.revokeSession(me, sessionId);
+        return ResponseEntity.noContent().build();
+    }
+    @DeleteMapping("/me/sessions")
+    @PreAuthorize("hasAnyRole('USER','USER_PRO','ADMIN','DEV')")
+    public ResponseEntity<Void> revokeAllMySessions() {
+        String me = currentUserService.getCurrentUser().getEmail();
+        authenticationService.revokeAllSessions(me);
+        return ResponseEntity.noContent().build();
+    }
     @PutMapping("/me/password")
     @PreAuthorize("hasAnyRole('USER','USER_PRO')")
     public ResponseEntity<Void> changeMyPassword(@Valid @RequestBody ChangePasswordRequest req) {
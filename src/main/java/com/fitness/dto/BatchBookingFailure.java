@@ -0,0 +1,13 @@
+package com.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBookingFailure {
+    private Long timeSlotId;
+    private String message;
+}
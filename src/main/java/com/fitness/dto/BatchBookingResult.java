@@ -0,0 +1,15 @@
+package com.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBookingResult {
+    private List<BookingDTO> booked;
+    private List<BatchBookingFailure> failed;
+}
@@ -0,0 +1,18 @@
+package com.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookedInterval {
+    private Long studioId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+}
@@ -1,10 +1,14 @@
 package com.fitness.dto;
 
 import com.fitness.enums.BookingStatus;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class BookingDTO {
     private Long id;
     private Long userId;
@@ -0,0 +1,23 @@
+package com.fitness.dto;
+
+import com.fitness.enums.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/** One event of an iCalendar feed: a booking, or a slot with its active booking's status. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarEntry {
+    private Long id;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private String studioName;
+    private String studioAddress;
+    private BookingStatus status;
+}
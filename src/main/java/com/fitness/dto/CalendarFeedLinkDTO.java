@@ -0,0 +1,14 @@
+package com.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarFeedLinkDTO {
+    /** Secret part of the feed URLs; studio schedules use {@code /api/studios/{id}/calendar/{token}.ics}. */
+    private String token;
+    private String bookingsUrl;
+}
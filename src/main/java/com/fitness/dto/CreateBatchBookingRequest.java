@@ -0,0 +1,18 @@
+package com.fitness.dto;
+
+import com.fitness.enums.BatchBookingMode;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CreateBatchBookingRequest {
+    @NotEmpty
+    @Size(max = 50)
+    private List<@NotNull Long> timeSlotIds;
+
+    private BatchBookingMode mode = BatchBookingMode.ALL_OR_NOTHING;
+}
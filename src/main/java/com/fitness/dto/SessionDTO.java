@@ -0,0 +1,18 @@
+package com.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionDTO {
+    private String sessionId;
+    private String deviceId;
+    private LocalDateTime startedAt;
+    private LocalDateTime lastRefreshedAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,14 @@
+package com.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotAvailabilityDelta {
+    private Long slotId;
+    private boolean available;
+    private long version;
+}
@@ -0,0 +1,25 @@
+package com.fitness.dto;
+
+import com.fitness.enums.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudioBookingExportRow {
+    private Long bookingId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private BookingStatus status;
+    private LocalDateTime createdAt;
+    private Long userId;
+    private String userName;
+    private String userEmail;
+}
@@ -0,0 +1,16 @@
+package com.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** One page of a user search; pass {@code nextAfter} as {@code after} to get the next page. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchPage {
+    private List<UserDTO> users;
+    private Long nextAfter;
+}
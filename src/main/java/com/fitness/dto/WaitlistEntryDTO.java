@@ -0,0 +1,22 @@
+package com.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryDTO {
+    private Long timeSlotId;
+    private Long studioId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private long position;
+    private LocalDateTime joinedAt;
+}
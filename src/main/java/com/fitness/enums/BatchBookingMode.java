@@ -0,0 +1,9 @@
+package com.fitness.enums;
+
+/**
+ * How a batch booking treats slots that fail validation. A slot taken concurrently between
+ * validation and insert fails the whole batch with 409 in both modes.
+ */
+public enum BatchBookingMode {
+    ALL_OR_NOTHING, BEST_EFFORT
+}
@@ -0,0 +1,12 @@
+package com.fitness.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BookingCancelledEvent {
+    private final Long bookingId;
+    private final Long userId;
+    private final Long timeSlotId;
+}
@@ -0,0 +1,10 @@
+package com.fitness.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BookingConfirmedEvent {
+    private final Long bookingId;
+}
@@ -0,0 +1,13 @@
+package com.fitness.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BookingRescheduledEvent {
+    private final Long bookingId;
+    private final Long userId;
+    private final Long fromTimeSlotId;
+    private final Long toTimeSlotId;
+}
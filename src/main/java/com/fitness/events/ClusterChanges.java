@@ -0,0 +1,197 @@
+package com.fitness.events;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Tells the other nodes about committed changes to in-memory state (ETag versions, the
+ * availability index) over Postgres {@code LISTEN/NOTIFY}. {@link #publish} runs
+ * {@code pg_notify} in the caller's transaction, so the message is delivered only if and when
+ * that transaction commits; each node listens on its own connection to the primary and hands
+ * messages from other nodes to the handler of their topic, on the listener thread, in commit
+ * order. A node's own messages are skipped, since the writer has already applied them.
+ * <p>
+ * Notifications sent while a node is not listening are lost, so when the connection drops,
+ * and again once it is re-established, every subscriber's resync action runs. The node id is
+ * drawn again on every start, since processes restored from one checkpoint would share it.
+ */
+@Slf4j
+@Component
+public class ClusterChanges implements SmartLifecycle {
+    static final String CHANNEL = "fitness_changes";
+    private static final ResultSetExtractor<Void> IGNORE = rs -> null;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSource;
+    private final Duration pollInterval;
+    private final Duration retryInterval;
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> resyncs = new CopyOnWriteArrayList<>();
+    private volatile String node = newNode();
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread listener;
+
+    public ClusterChanges(JdbcTemplate jdbcTemplate,
+                          DataSourceProperties dataSource,
+                          @Value("${app.cluster.poll-interval:PT0.5S}") Duration pollInterval,
+                          @Value("${app.cluster.retry-interval:PT5S}") Duration retryInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.pollInterval = pollInterval;
+        this.retryInterval = retryInterval;
+    }
+
+    /** Registers the handler for messages on {@code topic} from other nodes. */
+    public void subscribe(String topic, Consumer<String> handler) {
+        handlers.put(topic, handler);
+    }
+
+    /** Registers an action that rebuilds local state when messages may have been missed. */
+    public void onResync(Runnable resync) {
+        resyncs.add(resync);
+    }
+
+    /** Sends {@code payload} to the other nodes once the current transaction commits. */
+    public void publish(String topic, String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", IGNORE, CHANNEL, node + ":" + topic + ":" + payload);
+    }
+
+    @Override
+    public synchronized void start() {
+        node = newNode();
+        running = true;
+        listener = new Thread(this::listen, "cluster-changes");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        closeConnection();
+        if (listener != null) {
+            listener.interrupt();
+            try {
+                listener.join(pollInterval.plus(retryInterval).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listener = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Started with the connection pools, so nodes listen before the index is built. */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    void dispatch(String message) {
+        String[] parts = message.split(":", 3);
+        if (parts.length < 3 || parts[0].equals(node)) {
+            return;
+        }
+        Consumer<String> handler = handlers.get(parts[1]);
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.accept(parts[2]);
+        } catch (RuntimeException e) {
+            log.warn("Could not apply {} change {} from another node: {}", parts[1], parts[2], e.getMessage());
+        }
+    }
+
+    void resync() {
+        for (Runnable resync : resyncs) {
+            try {
+                resync.run();
+            } catch (RuntimeException e) {
+                log.warn("Resync after missed cluster changes failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void listen() {
+        boolean missed = false;
+        while (running) {
+            try (Connection c = DriverManager.getConnection(dataSource.determineUrl(),
+                    dataSource.determineUsername(), dataSource.determinePassword())) {
+                connection = c;
+                try (Statement statement = c.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (missed) {
+                    log.info("Listening for cluster changes again");
+                    resync();
+                    missed = false;
+                }
+                PGConnection pg = c.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) pollInterval.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster change listener lost its connection: {}", e.getMessage());
+                if (!missed) {
+                    resync();
+                    missed = true;
+                }
+                try {
+                    Thread.sleep(retryInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    private void closeConnection() {
+        Connection c = connection;
+        if (c != null) {
+            try {
+                c.close();
+            } catch (SQLException ignored) {
+                // the listener is stopping anyway
+            }
+        }
+    }
+
+    private static String newNode() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+}
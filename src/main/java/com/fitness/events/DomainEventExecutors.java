@@ -0,0 +1,76 @@
+package com.fitness.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for after-commit domain event listeners. Notifications (slow, external I/O)
+ * and booking follow-ups (database work) get separate fixed pools with bounded queues, so
+ * a stalled mail provider never delays waitlist promotion. When a queue is full the task
+ * runs on the publishing thread, which slows the producer down instead of dropping the
+ * side effect; each such overflow increments {@code events.executor.overflow}. That thread
+ * is still inside the committed transaction's after-commit callback, so tasks that write must
+ * start their own transaction ({@code REQUIRES_NEW}) rather than join it. Queue depth,
+ * active threads and task timings are exported as the standard {@code executor.*} metrics.
+ */
+@Component
+public class DomainEventExecutors {
+    private final ExecutorService notifications;
+    private final ExecutorService bookings;
+
+    public DomainEventExecutors(MeterRegistry meterRegistry,
+                                @Value("${app.events.notifications.threads:2}") int notificationThreads,
+                                @Value("${app.events.notifications.queue-capacity:500}") int notificationQueue,
+                                @Value("${app.events.bookings.threads:2}") int bookingThreads,
+                                @Value("${app.events.bookings.queue-capacity:500}") int bookingQueue) {
+        this.notifications = pool("events-notifications", notificationThreads, notificationQueue, meterRegistry);
+        this.bookings = pool("events-bookings", bookingThreads, bookingQueue, meterRegistry);
+    }
+
+    public ExecutorService notifications() {
+        return notifications;
+    }
+
+    public ExecutorService bookings() {
+        return bookings;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        notifications.shutdown();
+        bookings.shutdown();
+        notifications.awaitTermination(10, TimeUnit.SECONDS);
+        bookings.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static ExecutorService pool(String name, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        AtomicInteger counter = new AtomicInteger();
+        Counter overflow = Counter.builder("events.executor.overflow")
+                .tag("executor", name)
+                .register(meterRegistry);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> {
+                    overflow.increment();
+                    if (!pool.isShutdown()) {
+                        task.run();
+                    }
+                });
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, name);
+    }
+}
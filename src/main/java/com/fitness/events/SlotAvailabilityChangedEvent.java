@@ -0,0 +1,15 @@
+package com.fitness.events;
+
+import com.fitness.dto.SlotAvailabilityDelta;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class SlotAvailabilityChangedEvent {
+    private final Long studioId;
+    private final long version;
+    private final List<SlotAvailabilityDelta> deltas;
+}
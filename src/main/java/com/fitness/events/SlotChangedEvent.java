@@ -0,0 +1,12 @@
+package com.fitness.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SlotChangedEvent {
+    private final Long timeSlotId;
+    private final Long studioId;
+    private final boolean booked;
+}
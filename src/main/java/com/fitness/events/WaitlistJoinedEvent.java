@@ -0,0 +1,11 @@
+package com.fitness.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class WaitlistJoinedEvent {
+    private final Long timeSlotId;
+    private final Long userId;
+}
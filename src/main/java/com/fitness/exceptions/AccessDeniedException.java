@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class AccessDeniedException extends RuntimeException{
+public class AccessDeniedException extends DomainException {
     public AccessDeniedException(String message) {
-        super(message);
+        super(ErrorCode.FORBIDDEN, message);
     }
 }
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class AlreadyConfirmedException extends RuntimeException{
+public class AlreadyConfirmedException extends DomainException {
     public AlreadyConfirmedException(String message){
-        super(message);
+        super(ErrorCode.BUSINESS_ERROR, message);
     }
 }
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class BookingAlreadyCancelledException extends RuntimeException{
+public class BookingAlreadyCancelledException extends DomainException {
     public BookingAlreadyCancelledException(String message){
-        super(message);
+        super(ErrorCode.BUSINESS_ERROR, message);
     }
 }
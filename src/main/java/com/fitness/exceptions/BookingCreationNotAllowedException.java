@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class BookingCreationNotAllowedException extends RuntimeException{
+public class BookingCreationNotAllowedException extends DomainException {
     public BookingCreationNotAllowedException(String message) {
-        super(message);
+        super(ErrorCode.FORBIDDEN, message);
     }
 }
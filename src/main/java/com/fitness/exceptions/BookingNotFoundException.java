@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class BookingNotFoundException extends RuntimeException{
+public class BookingNotFoundException extends DomainException {
     public BookingNotFoundException(String message) {
-        super(message);
+        super(ErrorCode.NOT_FOUND, message);
     }
 }
@@ -0,0 +1,7 @@
+package com.fitness.exceptions;
+
+public class BulkheadRejectedException extends DomainException {
+    public BulkheadRejectedException(String message) {
+        super(ErrorCode.SERVICE_BUSY, message);
+    }
+}
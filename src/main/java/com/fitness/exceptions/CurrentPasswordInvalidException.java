@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class CurrentPasswordInvalidException extends RuntimeException{
+public class CurrentPasswordInvalidException extends DomainException {
     public CurrentPasswordInvalidException(String message) {
-        super(message);
+        super(ErrorCode.INVALID_CURRENT_PASSWORD, message);
     }
 }
@@ -0,0 +1,17 @@
+package com.fitness.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Base class for expected business rejections. They are ordinary control flow on hot paths
+ * such as booking, so they carry an {@link ErrorCode} instead of a stack trace.
+ */
+@Getter
+public abstract class DomainException extends RuntimeException {
+    private final ErrorCode errorCode;
+
+    protected DomainException(ErrorCode errorCode, String message) {
+        super(message, null, false, false);
+        this.errorCode = errorCode;
+    }
+}
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class EmailNotConfirmedException extends RuntimeException{
+public class EmailNotConfirmedException extends DomainException {
     public EmailNotConfirmedException(String message) {
-        super(message);
+        super(ErrorCode.EMAIL_NOT_CONFIRMED, message);
     }
 }
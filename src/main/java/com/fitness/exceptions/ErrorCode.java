@@ -0,0 +1,31 @@
+package com.fitness.exceptions;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Catalog of the {@code error} values returned by the API. The constant name is the
+ * value written to clients, so renaming one is a breaking change.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ErrorCode {
+    INVALID_CREDENTIALS(HttpStatus.UNAUTHORIZED),
+    INVALID_TOKEN(HttpStatus.UNAUTHORIZED),
+    INVALID_REFRESH_TOKEN(HttpStatus.UNAUTHORIZED),
+    INVALID_CURRENT_PASSWORD(HttpStatus.UNAUTHORIZED),
+    EMAIL_NOT_CONFIRMED(HttpStatus.UNAUTHORIZED),
+    USER_NOT_AUTHENTICATED(HttpStatus.UNAUTHORIZED),
+    FORBIDDEN(HttpStatus.FORBIDDEN),
+    NOT_FOUND(HttpStatus.NOT_FOUND),
+    CONFLICT(HttpStatus.CONFLICT),
+    USER_HAS_ACTIVE_BOOKINGS(HttpStatus.CONFLICT),
+    BUSINESS_ERROR(HttpStatus.BAD_REQUEST),
+    EMAIL_ALREADY_EXISTS(HttpStatus.BAD_REQUEST),
+    RATE_LIMIT(HttpStatus.TOO_MANY_REQUESTS),
+    SERVICE_BUSY(HttpStatus.SERVICE_UNAVAILABLE),
+    INTERNAL_SERVER_ERROR(HttpStatus.INTERNAL_SERVER_ERROR);
+
+    private final HttpStatus status;
+}
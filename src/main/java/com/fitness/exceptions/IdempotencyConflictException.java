@@ -0,0 +1,7 @@
+package com.fitness.exceptions;
+
+public class IdempotencyConflictException extends DomainException {
+    public IdempotencyConflictException(String message) {
+        super(ErrorCode.CONFLICT, message);
+    }
+}
@@ -0,0 +1,5 @@
+package com.fitness.exceptions;
+
+public class InvalidDateRangeException extends DomainException {
+    public InvalidDateRangeException(String msg) { super(ErrorCode.BUSINESS_ERROR, msg); }
+}
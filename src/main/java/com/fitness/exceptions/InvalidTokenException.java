@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class InvalidTokenException extends RuntimeException{
+public class InvalidTokenException extends DomainException {
     public InvalidTokenException(String message){
-        super(message);
+        super(ErrorCode.INVALID_TOKEN, message);
     }
 }
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class PasswordsDoNotMatchException extends RuntimeException{
+public class PasswordsDoNotMatchException extends DomainException {
     public PasswordsDoNotMatchException(String message){
-        super(message);
+        super(ErrorCode.BUSINESS_ERROR, message);
     }
 }
@@ -0,0 +1,13 @@
+package com.fitness.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class RateLimitExceededException extends DomainException {
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(ErrorCode.RATE_LIMIT, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class RefreshTokenException extends RuntimeException{
+public class RefreshTokenException extends DomainException {
     public RefreshTokenException(String message){
-        super(message);
+        super(ErrorCode.INVALID_REFRESH_TOKEN, message);
     }
 }
@@ -0,0 +1,7 @@
+package com.fitness.exceptions;
+
+public class SessionNotFoundException extends DomainException {
+    public SessionNotFoundException(String message) {
+        super(ErrorCode.NOT_FOUND, message);
+    }
+}
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class StudioAlreadyExistsException extends RuntimeException{
+public class StudioAlreadyExistsException extends DomainException {
     public StudioAlreadyExistsException(String message){
-        super(message);
+        super(ErrorCode.CONFLICT, message);
     }
 }
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class StudioNotFoundException extends RuntimeException{
+public class StudioNotFoundException extends DomainException {
     public StudioNotFoundException(String message) {
-        super(message);
+        super(ErrorCode.NOT_FOUND, message);
     }
 }
@@ -0,0 +1,7 @@
+package com.fitness.exceptions;
+
+public class TimeSlotAlreadyBookedException extends DomainException {
+    public TimeSlotAlreadyBookedException(String message) {
+        super(ErrorCode.CONFLICT, message);
+    }
+}
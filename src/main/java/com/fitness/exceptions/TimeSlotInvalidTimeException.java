@@ -1,5 +1,5 @@
 package com.fitness.exceptions;
 
-public class TimeSlotInvalidTimeException extends RuntimeException{
-    public TimeSlotInvalidTimeException(String msg) { super(msg); }
+public class TimeSlotInvalidTimeException extends DomainException {
+    public TimeSlotInvalidTimeException(String msg) { super(ErrorCode.BUSINESS_ERROR, msg); }
 }
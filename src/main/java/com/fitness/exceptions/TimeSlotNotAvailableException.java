@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class TimeSlotNotAvailableException extends RuntimeException{
+public class TimeSlotNotAvailableException extends DomainException {
     public TimeSlotNotAvailableException(String message){
-        super(message);
+        super(ErrorCode.BUSINESS_ERROR, message);
     }
 }
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class TimeSlotNotFoundException extends RuntimeException{
+public class TimeSlotNotFoundException extends DomainException {
     public TimeSlotNotFoundException(String message){
-        super(message);
+        super(ErrorCode.NOT_FOUND, message);
     }
 }
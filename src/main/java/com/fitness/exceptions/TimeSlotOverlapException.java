@@ -1,5 +1,5 @@
 package com.fitness.exceptions;
 
-public class TimeSlotOverlapException extends RuntimeException{
-    public TimeSlotOverlapException(String msg) { super(msg); }
+public class TimeSlotOverlapException extends DomainException {
+    public TimeSlotOverlapException(String msg) { super(ErrorCode.CONFLICT, msg); }
 }
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class TrainerNotAvailableException extends RuntimeException{
+public class TrainerNotAvailableException extends DomainException {
     public TrainerNotAvailableException(String message){
-        super(message);
+        super(ErrorCode.BUSINESS_ERROR, message);
     }
 }
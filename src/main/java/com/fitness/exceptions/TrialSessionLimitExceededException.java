@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class TrialSessionLimitExceededException extends RuntimeException{
+public class TrialSessionLimitExceededException extends DomainException {
     public TrialSessionLimitExceededException(String message){
-        super(message);
+        super(ErrorCode.BUSINESS_ERROR, message);
     }
 }
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class UserHasActiveBookings extends RuntimeException{
+public class UserHasActiveBookings extends DomainException {
     public UserHasActiveBookings(String message) {
-        super(message);
+        super(ErrorCode.USER_HAS_ACTIVE_BOOKINGS, message);
     }
 }
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class UserNotAuthenticatedException extends RuntimeException{
+public class UserNotAuthenticatedException extends DomainException {
     public UserNotAuthenticatedException(String message) {
-        super(message);
+        super(ErrorCode.USER_NOT_AUTHENTICATED, message);
     }
 }
@@ -1,7 +1,7 @@
 package com.fitness.exceptions;
 
-public class UserNotFoundException extends RuntimeException{
+public class UserNotFoundException extends DomainException {
     public UserNotFoundException(String message) {
-        super(message);
+        super(ErrorCode.NOT_FOUND, message);
     }
 }
@@ -0,0 +1,7 @@
+package com.fitness.exceptions;
+
+public class WaitlistNotAllowedException extends DomainException {
+    public WaitlistNotAllowedException(String message) {
+        super(ErrorCode.CONFLICT, message);
+    }
+}
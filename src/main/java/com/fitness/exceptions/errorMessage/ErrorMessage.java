@@ -23,7 +23,17 @@ public class ErrorMessage {
     public static final String ACCESS_DENIED_NOT_YOUR_STUDIO = "Access denied: not your studio";
     public static final String TIME_SLOT_OVERLAP = "A slot has already been created for the specified time in this gym";
     public static final String INVALID_TIME_RANGE = "The end time must be later than the start time.";
+    public static final String INVALID_DATE_RANGE = "The end date must not be earlier than the start date.";
     public static final String TRAINER_NOT_AVAILABLE_STUDIO_SWITCH = "Trainer is not available for this time slot considering studio switch";
     public static final String EMAIL_NOT_CONFIRMED = "Email not confirmed";
+    public static final String IDEMPOTENCY_KEY_REUSED = "Idempotency-Key was already used with a different request";
+    public static final String IDEMPOTENCY_KEY_IN_PROGRESS = "A request with this Idempotency-Key is still in progress";
+    public static final String TOO_MANY_REQUESTS = "Too many requests";
+    public static final String SESSION_NOT_FOUND = "Session not found";
+    public static final String WAITLIST_SLOT_IN_PAST = "Cannot join the waitlist of a past time slot";
+    public static final String WAITLIST_ALREADY_BOOKED = "You have already booked this time slot";
+    public static final String WAITLIST_SLOT_AVAILABLE = "Time slot is available, book it directly";
+    public static final String BULKHEAD_FULL = "Too many reports are running, try again later";
+    public static final String BULKHEAD_TIMEOUT = "The report took too long and was cancelled";
     public static final String USER_HAS_ACTIVE_BOOKINGS = "USER_HAS_ACTIVE_BOOKINGS";
 }
@@ -0,0 +1,62 @@
+package com.fitness.exceptions.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.exceptions.ErrorCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serialised {@code {"error","message"}} responses, built once per code and message and
+ * then reused as-is. Messages come from {@code ErrorMessage} constants, so the cache
+ * stays small; past {@link #MAX_MESSAGES_PER_CODE} distinct messages for a code the
+ * response is built per call instead.
+ */
+final class ErrorResponses {
+    static final int MAX_MESSAGES_PER_CODE = 256;
+
+    private final ObjectMapper objectMapper;
+    private final Map<ErrorCode, ConcurrentMap<String, ResponseEntity<byte[]>>> cache = new EnumMap<>(ErrorCode.class);
+
+    ErrorResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (ErrorCode code : ErrorCode.values()) {
+            cache.put(code, new ConcurrentHashMap<>());
+        }
+    }
+
+    ResponseEntity<byte[]> of(ErrorCode code, String message) {
+        String text = Objects.requireNonNullElse(message, "");
+        ConcurrentMap<String, ResponseEntity<byte[]>> byMessage = cache.get(code);
+        ResponseEntity<byte[]> cached = byMessage.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        ResponseEntity<byte[]> built = ResponseEntity
+                .status(code.getStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(serialise(code, text));
+        if (byMessage.size() < MAX_MESSAGES_PER_CODE) {
+            byMessage.putIfAbsent(text, built);
+        }
+        return built;
+    }
+
+    private byte[] serialise(ErrorCode code, String message) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("error", code.name());
+        body.put("message", message);
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
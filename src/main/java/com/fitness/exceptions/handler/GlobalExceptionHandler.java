@@ -1,10 +1,11 @@
 package com.fitness.exceptions.handler;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fitness.exceptions.*;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
-import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
@@ -20,104 +21,45 @@ import java.util.Map;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private final ErrorResponses errorResponses;
 
-    private ResponseEntity<Map<String, String>> buildResponse(String errorCode, String message, HttpStatus status) {
-        return ResponseEntity
-                .status(status)
-                .body(Map.of("error", errorCode, "message", message));
-    }
-
-    // 429
-    @ExceptionHandler(RequestNotPermitted.class)
-    public ResponseEntity<?> rateLimit(RequestNotPermitted ex) {
-        return buildResponse("RATE_LIMIT", "Too many requests", HttpStatus.TOO_MANY_REQUESTS);
-    }
-
-
-    // 401
-    @ExceptionHandler(BadCredentialsException.class)
-    public ResponseEntity<Map<String, String>> handleBadCredentials(BadCredentialsException ex) {
-        return buildResponse("INVALID_CREDENTIALS", "Invalid email or password", HttpStatus.UNAUTHORIZED);
+    public GlobalExceptionHandler(ObjectMapper objectMapper) {
+        this.errorResponses = new ErrorResponses(objectMapper);
     }
 
-    // 401
-    @ExceptionHandler(InvalidTokenException.class)
-    public ResponseEntity<Map<String, String>> handleInvalidToken(InvalidTokenException ex) {
-        return buildResponse("INVALID_TOKEN", ex.getMessage(), HttpStatus.UNAUTHORIZED);
+    // status and body come from the exception's ErrorCode
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<byte[]> handleDomain(DomainException ex) {
+        return errorResponses.of(ex.getErrorCode(), ex.getMessage());
     }
 
-    @ExceptionHandler(RefreshTokenException.class)
-    public ResponseEntity<Map<String, String>> handleRefreshError(RefreshTokenException ex) {
-        return buildResponse("INVALID_REFRESH_TOKEN", ex.getMessage(), HttpStatus.UNAUTHORIZED);
+    // 429
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<byte[]> rateLimit(RateLimitExceededException ex) {
+        ResponseEntity<byte[]> template = errorResponses.of(ex.getErrorCode(), ex.getMessage());
+        return ResponseEntity
+                .status(template.getStatusCode())
+                .headers(template.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(template.getBody());
     }
 
     // 401
-    @ExceptionHandler(CurrentPasswordInvalidException.class)
-    public ResponseEntity<Map<String, String>> handleInvalidCurrentPassword(CurrentPasswordInvalidException ex) {
-        return buildResponse("INVALID_CURRENT_PASSWORD", ex.getMessage(), HttpStatus.UNAUTHORIZED);
+    @ExceptionHandler(BadCredentialsException.class)
+    public ResponseEntity<byte[]> handleBadCredentials(BadCredentialsException ex) {
+        return errorResponses.of(ErrorCode.INVALID_CREDENTIALS, "Invalid email or password");
     }
 
     // 401
-    @ExceptionHandler(EmailNotConfirmedException.class)
-    public ResponseEntity<Map<String,String>> handleEmailNotConfirmed(EmailNotConfirmedException ex) {
-        return buildResponse(
-                "EMAIL_NOT_CONFIRMED",
-                ex.getMessage(),
-                HttpStatus.UNAUTHORIZED
-        );
-    }
     @ExceptionHandler(DisabledException.class)
-    public ResponseEntity<Map<String,String>> handleDisabled(DisabledException ex) {
-        return buildResponse(
-                "EMAIL_NOT_CONFIRMED",
-                ErrorMessage.EMAIL_NOT_CONFIRMED,
-                HttpStatus.UNAUTHORIZED
-        );
-    }
-    // 403
-    @ExceptionHandler({AccessDeniedException.class, BookingCreationNotAllowedException.class})
-    public ResponseEntity<Map<String, String>> handleForbidden(RuntimeException ex) {
-        return buildResponse("FORBIDDEN", ex.getMessage(), HttpStatus.FORBIDDEN);
+    public ResponseEntity<byte[]> handleDisabled(DisabledException ex) {
+        return errorResponses.of(ErrorCode.EMAIL_NOT_CONFIRMED, ErrorMessage.EMAIL_NOT_CONFIRMED);
     }
 
-
-    // 404
-    @ExceptionHandler({
-            UserNotFoundException.class,
-            StudioNotFoundException.class,
-            BookingNotFoundException.class,
-            TimeSlotNotFoundException.class
-    })
-    public ResponseEntity<Map<String, String>> handleNotFound(RuntimeException ex) {
-        return buildResponse("NOT_FOUND", ex.getMessage(), HttpStatus.NOT_FOUND);
-    }
-
-    // 409
-    @ExceptionHandler({
-            StudioAlreadyExistsException.class,
-            TimeSlotOverlapException.class
-    })
-    public ResponseEntity<Map<String, String>> handleConflict(RuntimeException ex) {
-        return buildResponse("CONFLICT", ex.getMessage(), HttpStatus.CONFLICT);
-    }
-    @ExceptionHandler(UserHasActiveBookings.class)
-    public ResponseEntity<Map<String, String>> handleActiveBookings(UserHasActiveBookings ex) {
-        return buildResponse("USER_HAS_ACTIVE_BOOKINGS",
-                ex.getMessage(),
-                HttpStatus.CONFLICT);
-    }
-    // 400
-    @ExceptionHandler({
-            AlreadyConfirmedException.class,
-            PasswordsDoNotMatchException.class,
-            BookingAlreadyCancelledException.class,
-            TrialSessionLimitExceededException.class,
-            TimeSlotInvalidTimeException.class,
-            TimeSlotNotAvailableException.class,
-            TrainerNotAvailableException.class
-    })
-    public ResponseEntity<Map<String, String>> handleBusinessErrors(RuntimeException ex) {
-        return buildResponse("BUSINESS_ERROR", ex.getMessage(), HttpStatus.BAD_REQUEST);
+    // 403
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<byte[]> handleForbidden(AccessDeniedException ex) {
+        return errorResponses.of(ErrorCode.FORBIDDEN, ex.getMessage());
     }
 
     // 400
@@ -133,16 +75,19 @@ public class GlobalExceptionHandler {
 
     // 400
     @ExceptionHandler(DataIntegrityViolationException.class)
-    public ResponseEntity<Map<String, String>> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
-        return buildResponse("EMAIL_ALREADY_EXISTS", ErrorMessage.USER_EMAIL_ALREADY_EXISTS, HttpStatus.BAD_REQUEST);
+    public ResponseEntity<byte[]> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        return errorResponses.of(ErrorCode.EMAIL_ALREADY_EXISTS, ErrorMessage.USER_EMAIL_ALREADY_EXISTS);
     }
 
-    // 500
+    // 500; once a streamed body is committed an error body would only corrupt it, so the
+    // exception goes on to the container, which closes the connection
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, String>> handleAllUncaughtException(Exception ex) {
+    public ResponseEntity<byte[]> handleAllUncaughtException(Exception ex, HttpServletResponse response) throws Exception {
+        if (response.isCommitted()) {
+            throw ex;
+        }
         ex.printStackTrace();
-        return buildResponse("INTERNAL_SERVER_ERROR",
-                "An unexpected error occurred. Please try again later.",
-                HttpStatus.INTERNAL_SERVER_ERROR);
+        return errorResponses.of(ErrorCode.INTERNAL_SERVER_ERROR,
+                "An unexpected error occurred. Please try again later.");
     }
 }
@@ -0,0 +1,58 @@
+package com.fitness.listeners;
+
+import com.fitness.config.datasource.PrimaryReads;
+import com.fitness.events.BookingCancelledEvent;
+import com.fitness.events.BookingConfirmedEvent;
+import com.fitness.events.BookingCreatedEvent;
+import com.fitness.events.DomainEventExecutors;
+import com.fitness.models.Booking;
+import com.fitness.models.User;
+import com.fitness.repositories.BookingRepository;
+import com.fitness.services.interfaces.EmailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Sends booking emails once the booking change has committed. The booking is re-read on
+ * the notification pool, so the email reflects committed state and the request thread
+ * never waits for the mail provider. The re-read goes to the primary: it follows the commit
+ * by microseconds, and a replica may not have the booking, or its new status, yet.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingNotificationListener {
+    private final BookingRepository bookingRepository;
+    private final EmailService emailService;
+    private final DomainEventExecutors executors;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingCreated(BookingCreatedEvent event) {
+        notify(event.getBookingId(), emailService::sendBookingConfirmationEmail);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingConfirmed(BookingConfirmedEvent event) {
+        notify(event.getBookingId(), emailService::sendBookingConfirmationEmail);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingCancelled(BookingCancelledEvent event) {
+        notify(event.getBookingId(), emailService::sendBookingCancellationEmail);
+    }
+
+    private void notify(Long bookingId, BiConsumer<User, Booking> send) {
+        executors.notifications().execute(() -> {
+            try {
+                PrimaryReads.call(() -> bookingRepository.findWithDetailsById(bookingId))
+                        .ifPresent(booking -> send.accept(booking.getUser(), booking));
+            } catch (RuntimeException e) {
+                log.warn("Could not send notification for booking {}: {}", bookingId, e.getMessage());
+            }
+        });
+    }
+}
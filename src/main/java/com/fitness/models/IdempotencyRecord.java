@@ -0,0 +1,34 @@
+package com.fitness.models;
+
+import com.fitness.config.security.TokenHashes;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_record", indexes = {
+        @Index(name = "ix_idempotency_record_expires_at", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "key_hash", length = TokenHashes.LENGTH)
+    private String keyHash;
+
+    @Column(name = "request_hash", nullable = false, length = TokenHashes.LENGTH)
+    private String requestHash;
+
+    /** Null while the request that claimed the key is still running. */
+    @Column(name = "response_body", columnDefinition = "text")
+    private String responseBody;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
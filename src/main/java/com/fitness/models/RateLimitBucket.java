@@ -0,0 +1,32 @@
+package com.fitness.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "rate_limit_bucket", indexes = {
+        @Index(name = "ix_rate_limit_bucket_updated_at", columnList = "updated_at")
+})
+public class RateLimitBucket {
+    @Id
+    @Column(name = "bucket_key")
+    private String bucketKey;
+
+    @Column(nullable = false)
+    private double tokens;
+
+    @Column(nullable = false)
+    private boolean allowed;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.fitness.models;
 
+import com.fitness.config.security.TokenHashes;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,19 +14,37 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "ux_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "ix_refresh_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "ix_refresh_tokens_username", columnList = "username"),
+        @Index(name = "ix_refresh_tokens_family_id", columnList = "family_id")
+})
 public class RefreshToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    @Column(name = "token_hash", nullable = false, length = TokenHashes.LENGTH)
+    private String tokenHash;
 
     @Column(nullable = false)
     private String username;
 
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    private String deviceId;
+
+    @Column(nullable = false)
+    private LocalDateTime sessionStartedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
     @Column(nullable = false)
     private LocalDateTime expiresAt;
 
+    private LocalDateTime revokedAt;
+
 }
@@ -1,16 +1,21 @@
 package com.fitness.models;
 
+import com.fitness.config.security.TokenHashes;
 import com.fitness.enums.Role;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "app_user")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @Data
 @Builder
 @NoArgsConstructor
@@ -56,4 +61,8 @@ public class User {
     @Column(nullable = false)
     private boolean enabled = false;
 
+    /** SHA-256 of the secret in the user's calendar feed URL; null while no feed is enabled. */
+    @Column(name = "calendar_token_hash", unique = true, length = TokenHashes.LENGTH)
+    private String calendarTokenHash;
+
 }
@@ -1,17 +1,33 @@
 package com.fitness.repositories;
 
+import com.fitness.dto.BookedInterval;
+import com.fitness.dto.BookingDTO;
+import com.fitness.dto.CalendarEntry;
+import com.fitness.dto.StudioBookingExportRow;
 import com.fitness.enums.BookingStatus;
 import com.fitness.models.Booking;
-import com.fitness.models.User;
+import com.fitness.models.TimeSlot;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    String BOOKING_DTO = "SELECT new com.fitness.dto.BookingDTO(b.id, b.user.id, b.timeSlot.id, b.status, b.createdAt) ";
+
     List<Booking> findByUserId(Long userId);
     List<Booking> findByUserIdAndStatusInAndTimeSlot_DateAfter(
             Long userId,
@@ -20,12 +36,12 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     );
 
     @Query("""
-      SELECT DISTINCT b.user
+      SELECT COUNT(DISTINCT b.user.id)
       FROM Booking b
       WHERE b.timeSlot.studio.id = :studioId
         AND b.timeSlot.date BETWEEN :startDate AND :endDate
     """)
-    List<User> findDistinctUsersByStudioAndPeriod(
+    long countDistinctUsersByStudioAndPeriod(
             @Param("studioId")    Long studioId,
             @Param("startDate")   LocalDate startDate,
             @Param("endDate")     LocalDate endDate
@@ -46,8 +62,169 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     );
 boolean existsByUserIdAndTimeSlot_TrialTrueAndTimeSlot_DateAfter(Long userId, LocalDate date);
     boolean existsByTimeSlotIdAndStatusNot(Long timeSlotId, BookingStatus status);
+    boolean existsByUserIdAndTimeSlotIdAndStatusNot(Long userId, Long timeSlotId, BookingStatus status);
     List<Booking> findByTimeSlot_DateAndStatusNot(LocalDate date, BookingStatus status);
 
     List<Booking> findByTimeSlot_DateAndStatus(LocalDate date, BookingStatus status);
     boolean existsByUserIdAndStatusNot(Long userId, BookingStatus status);
+
+    @EntityGraph(attributePaths = {"user", "timeSlot", "timeSlot.studio"})
+    Optional<Booking> findWithDetailsById(Long id);
+
+    @Query(BOOKING_DTO + "FROM Booking b WHERE b.id = :id")
+    Optional<BookingDTO> findDtoById(@Param("id") Long id);
+
+    @Query(BOOKING_DTO + "FROM Booking b WHERE b.user.id = :userId ORDER BY b.id")
+    List<BookingDTO> findDtosByUserId(@Param("userId") Long userId);
+
+    boolean existsByIdAndTimeSlot_Studio_Admin_Id(Long id, Long adminId);
+
+    @Query(BOOKING_DTO + """
+      FROM Booking b
+      JOIN b.timeSlot t
+      JOIN t.studio s
+      LEFT JOIN s.admin a
+      WHERE (:ownerId  IS NULL OR b.user.id = :ownerId)
+        AND (:adminId  IS NULL OR a.id      = :adminId)
+        AND (:userId   IS NULL OR b.user.id = :userId)
+        AND (:studioId IS NULL OR s.id      = :studioId)
+        AND (:status   IS NULL OR b.status  = :status)
+        AND (:start    IS NULL OR t.date   >= :start)
+        AND (:end      IS NULL OR t.date   <= :end)
+      ORDER BY b.id
+    """)
+    List<BookingDTO> searchDtos(
+            @Param("ownerId")  Long ownerId,
+            @Param("adminId")  Long adminId,
+            @Param("userId")   Long userId,
+            @Param("studioId") Long studioId,
+            @Param("status")   BookingStatus status,
+            @Param("start")    LocalDate start,
+            @Param("end")      LocalDate end
+    );
+
+    @Query(BOOKING_DTO + """
+      FROM Booking b
+      JOIN b.timeSlot t
+      JOIN t.studio s
+      LEFT JOIN s.admin a
+      WHERE b.status IN :statuses
+        AND t.date >= :from
+        AND (:ownerId IS NULL OR b.user.id = :ownerId)
+        AND (:adminId IS NULL OR a.id      = :adminId)
+      ORDER BY t.date, t.startTime
+    """)
+    List<BookingDTO> findUpcomingDtos(
+            @Param("statuses") Collection<BookingStatus> statuses,
+            @Param("from")     LocalDate from,
+            @Param("ownerId")  Long ownerId,
+            @Param("adminId")  Long adminId
+    );
+
+    @Query("""
+      SELECT new com.fitness.dto.BookedInterval(t.studio.id, t.date, t.startTime, t.endTime)
+      FROM Booking b
+      JOIN b.timeSlot t
+      WHERE t.date BETWEEN :startDate AND :endDate
+        AND b.status <> :excluded
+    """)
+    List<BookedInterval> findBookedIntervals(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate")   LocalDate endDate,
+            @Param("excluded")  BookingStatus excluded
+    );
+
+    @Query("""
+      SELECT b.timeSlot.id
+      FROM Booking b
+      WHERE b.timeSlot.date >= :from
+        AND b.status <> :excluded
+    """)
+    List<Long> findActiveSlotIdsFrom(
+            @Param("from")     LocalDate from,
+            @Param("excluded") BookingStatus excluded
+    );
+
+    @Query("""
+      SELECT t
+      FROM Booking b
+      JOIN b.timeSlot t
+      WHERE t.date IN :dates
+        AND b.status <> :excluded
+    """)
+    List<TimeSlot> findBookedSlotsOnDates(
+            @Param("dates")    Collection<LocalDate> dates,
+            @Param("excluded") BookingStatus excluded
+    );
+
+    @Query("""
+      SELECT t.date
+      FROM Booking b
+      JOIN b.timeSlot t
+      WHERE b.user.id = :userId
+        AND t.trial = true
+    """)
+    List<LocalDate> findTrialDatesByUserId(@Param("userId") Long userId);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY,  value = "true")
+    })
+    @Query(BOOKING_DTO + """
+      FROM Booking b
+      ORDER BY b.id
+    """)
+    Stream<BookingDTO> streamAllAsDto();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY,  value = "true")
+    })
+    @Query("""
+      SELECT new com.fitness.dto.CalendarEntry(b.id, t.date, t.startTime, t.endTime, s.name, s.address, b.status)
+      FROM Booking b
+      JOIN b.timeSlot t
+      JOIN t.studio s
+      WHERE b.user.id = :userId
+        AND b.status <> :excluded
+        AND t.date >= :from
+      ORDER BY t.date, t.startTime
+    """)
+    Stream<CalendarEntry> streamCalendarByUserId(
+            @Param("userId")   Long userId,
+            @Param("from")     LocalDate from,
+            @Param("excluded") BookingStatus excluded
+    );
+
+    /** Served by the indexes from scripts/migrations/studio-schedule-indexes.sql. */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY,  value = "true")
+    })
+    @Query("""
+      SELECT new com.fitness.dto.StudioBookingExportRow(
+          b.id, t.date, t.startTime, t.endTime, b.status, b.createdAt, u.id, u.name, u.email)
+      FROM Booking b
+      JOIN b.timeSlot t
+      JOIN b.user u
+      WHERE t.studio.id = :studioId
+        AND t.date BETWEEN :from AND :to
+      ORDER BY t.date, t.startTime, b.id
+    """)
+    Stream<StudioBookingExportRow> streamExportByStudioId(
+            @Param("studioId") Long studioId,
+            @Param("from")     LocalDate from,
+            @Param("to")       LocalDate to
+    );
+
+    @Query("""
+      SELECT DISTINCT b.user.id
+      FROM Booking b
+      WHERE b.timeSlot.id = :timeSlotId
+        AND b.status <> :excluded
+    """)
+    List<Long> findUserIdsByTimeSlotId(
+            @Param("timeSlotId") Long timeSlotId,
+            @Param("excluded")   BookingStatus excluded
+    );
 }
@@ -0,0 +1,57 @@
+package com.fitness.repositories;
+
+import com.fitness.models.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    Optional<IdempotencyRecord> findByKeyHashAndExpiresAtAfter(String keyHash, LocalDateTime now);
+
+    /** Inserts a pending record for the key, or takes over an expired one; 1 if claimed. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO idempotency_record (key_hash, request_hash, response_body, expires_at)
+            VALUES (:keyHash, :requestHash, NULL, :expiresAt)
+            ON CONFLICT (key_hash) DO UPDATE
+            SET request_hash = EXCLUDED.request_hash,
+                response_body = NULL,
+                expires_at = EXCLUDED.expires_at
+            WHERE idempotency_record.expires_at < :now
+            """, nativeQuery = true)
+    int claim(@Param("keyHash") String keyHash,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE idempotency_record
+            SET response_body = :body, expires_at = :expiresAt
+            WHERE key_hash = :keyHash AND request_hash = :requestHash AND response_body IS NULL
+            """, nativeQuery = true)
+    int complete(@Param("keyHash") String keyHash,
+                 @Param("requestHash") String requestHash,
+                 @Param("body") String body,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM idempotency_record
+            WHERE key_hash = :keyHash AND request_hash = :requestHash AND response_body IS NULL
+            """, nativeQuery = true)
+    int release(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,41 @@
+package com.fitness.repositories;
+
+import com.fitness.models.RateLimitBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+    interface BucketState {
+        Boolean getAllowed();
+        Double getTokens();
+    }
+
+    @Transactional
+    @Query(value = """
+            INSERT INTO rate_limit_bucket AS b (bucket_key, tokens, allowed, updated_at)
+            VALUES (:key, :capacity - 1, true, localtimestamp)
+            ON CONFLICT (bucket_key) DO UPDATE
+            SET tokens = CASE
+                    WHEN LEAST(:capacity, b.tokens + EXTRACT(EPOCH FROM localtimestamp - b.updated_at) * :tokensPerSecond) >= 1
+                    THEN LEAST(:capacity, b.tokens + EXTRACT(EPOCH FROM localtimestamp - b.updated_at) * :tokensPerSecond) - 1
+                    ELSE LEAST(:capacity, b.tokens + EXTRACT(EPOCH FROM localtimestamp - b.updated_at) * :tokensPerSecond)
+                END,
+                allowed = LEAST(:capacity, b.tokens + EXTRACT(EPOCH FROM localtimestamp - b.updated_at) * :tokensPerSecond) >= 1,
+                updated_at = localtimestamp
+            RETURNING allowed, tokens
+            """, nativeQuery = true)
+    BucketState consume(@Param("key") String key,
+                        @Param("capacity") double capacity,
+                        @Param("tokensPerSecond") double tokensPerSecond);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM rate_limit_bucket
+            WHERE updated_at < localtimestamp - make_interval(secs => :idleSeconds)
+            """, nativeQuery = true)
+    int deleteIdle(@Param("idleSeconds") double idleSeconds);
+}
@@ -1,10 +1,76 @@
 package com.fitness.repositories;
 
+import com.fitness.dto.SessionDTO;
 import com.fitness.models.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
-    void deleteByUsername(String username);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    @Query("""
+            SELECT new com.fitness.dto.SessionDTO(rt.familyId, rt.deviceId, rt.sessionStartedAt, rt.createdAt, rt.expiresAt)
+            FROM RefreshToken rt
+            WHERE rt.username = :username
+              AND rt.revokedAt IS NULL
+              AND rt.expiresAt > :now
+            ORDER BY rt.createdAt DESC
+            """)
+    List<SessionDTO> findActiveSessions(@Param("username") String username, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = :now WHERE rt.id = :id AND rt.revokedAt IS NULL")
+    int revokeIfActive(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = :now WHERE rt.familyId = :familyId AND rt.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+            UPDATE RefreshToken rt SET rt.revokedAt = :now
+            WHERE rt.username = :username AND rt.familyId = :familyId AND rt.revokedAt IS NULL
+            """)
+    int revokeFamilyOfUser(@Param("username") String username,
+                           @Param("familyId") String familyId,
+                           @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+            UPDATE RefreshToken rt SET rt.revokedAt = :now
+            WHERE rt.username = :username AND rt.deviceId = :deviceId AND rt.revokedAt IS NULL
+            """)
+    int revokeDevice(@Param("username") String username,
+                     @Param("deviceId") String deviceId,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = :now WHERE rt.username = :username AND rt.revokedAt IS NULL")
+    int revokeAllByUsername(@Param("username") String username, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM refresh_tokens
+            WHERE id IN (
+                SELECT id FROM refresh_tokens
+                WHERE expires_at < :cutoff
+                ORDER BY id
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
 }
@@ -0,0 +1,47 @@
+package com.fitness.repositories;
+
+import com.fitness.models.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO scheduler_lease (name, owner, acquired_at, heartbeat_at, expires_at, released_at)
+            VALUES (:name, :owner, localtimestamp, localtimestamp,
+                    localtimestamp + make_interval(secs => :ttlSeconds), NULL)
+            ON CONFLICT (name) DO UPDATE
+            SET owner = EXCLUDED.owner,
+                acquired_at = EXCLUDED.acquired_at,
+                heartbeat_at = EXCLUDED.heartbeat_at,
+                expires_at = EXCLUDED.expires_at,
+                released_at = NULL
+            WHERE scheduler_lease.expires_at < localtimestamp
+            """, nativeQuery = true)
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("ttlSeconds") double ttlSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE scheduler_lease
+            SET heartbeat_at = localtimestamp,
+                expires_at = localtimestamp + make_interval(secs => :ttlSeconds)
+            WHERE name = :name AND owner = :owner AND released_at IS NULL
+            """, nativeQuery = true)
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("ttlSeconds") double ttlSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE scheduler_lease
+            SET released_at = localtimestamp,
+                expires_at = GREATEST(acquired_at + make_interval(secs => :minHoldSeconds), localtimestamp)
+            WHERE name = :name AND owner = :owner
+            """, nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("minHoldSeconds") double minHoldSeconds);
+}
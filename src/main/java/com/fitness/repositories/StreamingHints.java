@@ -0,0 +1,8 @@
+package com.fitness.repositories;
+
+public final class StreamingHints {
+    public static final String FETCH_SIZE = "500";
+
+    private StreamingHints() {
+    }
+}
@@ -1,10 +1,30 @@
 package com.fitness.repositories;
 
+import com.fitness.dto.StudioDTO;
 import com.fitness.models.Studio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface StudioRepository extends JpaRepository<Studio, Long> {
+    String STUDIO_DTO = "SELECT new com.fitness.dto.StudioDTO(s.id, s.name, s.address, a.id) FROM Studio s LEFT JOIN s.admin a ";
+
     boolean existsByName(String name);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(STUDIO_DTO + "WHERE s.id = :id")
+    Optional<StudioDTO> findDtoById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(STUDIO_DTO + "ORDER BY s.id")
+    List<StudioDTO> findAllDtos();
 }
@@ -1,24 +1,33 @@
 package com.fitness.repositories;
 
+import com.fitness.dto.CalendarEntry;
+import com.fitness.dto.TimeSlotDTO;
+import com.fitness.enums.BookingStatus;
 import com.fitness.models.TimeSlot;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface TimeSlotRepository extends JpaRepository<TimeSlot, Long> {
+    String TIME_SLOT_DTO = "SELECT new com.fitness.dto.TimeSlotDTO(t.id, t.date, t.startTime, t.endTime, t.available, t.studio.id, t.trial) ";
+
     List<TimeSlot> findByStudioIdAndDate(Long studioId, LocalDate date);
     List<TimeSlot> findByAvailableTrue();
     List<TimeSlot> findByDate(LocalDate date);
 
-    List<TimeSlot> findByStudioId(Long studioId);
-    List<TimeSlot> findByStudioIdAndDateBetween(Long studioId, LocalDate startDate, LocalDate endDate);
-    List<TimeSlot> findByStudioIdAndDateBetweenAndAvailableTrue(Long studioId, LocalDate startDate, LocalDate endDate);
-
     @Query("""
         SELECT CASE WHEN COUNT(t) > 0 THEN true ELSE false END
         FROM TimeSlot t
@@ -35,4 +44,67 @@ public interface TimeSlotRepository extends JpaRepository<TimeSlot, Long> {
             @Param("endTime")       LocalTime endTime,
             @Param("excludeSlotId") Long excludeSlotId
     );
+
+    @Query(TIME_SLOT_DTO + "FROM TimeSlot t WHERE t.id = :id")
+    Optional<TimeSlotDTO> findDtoById(@Param("id") Long id);
+
+    @Query(TIME_SLOT_DTO + "FROM TimeSlot t WHERE t.studio.id = :studioId ORDER BY t.date, t.startTime")
+    List<TimeSlotDTO> findDtosByStudioId(@Param("studioId") Long studioId);
+
+    @Query(TIME_SLOT_DTO + """
+        FROM TimeSlot t
+        WHERE t.studio.id = :studioId
+          AND t.date BETWEEN :startDate AND :endDate
+        ORDER BY t.date, t.startTime
+    """)
+    List<TimeSlotDTO> findDtosByStudioIdAndDateBetween(
+            @Param("studioId")  Long studioId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate")   LocalDate endDate
+    );
+
+    @Query(TIME_SLOT_DTO + """
+        FROM TimeSlot t
+        WHERE t.studio.id = :studioId
+          AND t.date BETWEEN :startDate AND :endDate
+          AND t.available = true
+        ORDER BY t.date, t.startTime
+    """)
+    List<TimeSlotDTO> findAvailableDtosByStudioIdAndDateBetween(
+            @Param("studioId")  Long studioId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate")   LocalDate endDate
+    );
+
+    @Query(TIME_SLOT_DTO + "FROM TimeSlot t WHERE t.date >= :from")
+    List<TimeSlotDTO> findDtosFrom(@Param("from") LocalDate from);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY,  value = "true")
+    })
+    @Query(TIME_SLOT_DTO + """
+        FROM TimeSlot t
+        ORDER BY t.id
+    """)
+    Stream<TimeSlotDTO> streamAllAsDto();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY,  value = "true")
+    })
+    @Query("""
+        SELECT new com.fitness.dto.CalendarEntry(t.id, t.date, t.startTime, t.endTime, s.name, s.address, b.status)
+        FROM TimeSlot t
+        JOIN t.studio s
+        LEFT JOIN t.bookings b ON b.status <> :excluded
+        WHERE s.id = :studioId
+          AND t.date >= :from
+        ORDER BY t.date, t.startTime
+    """)
+    Stream<CalendarEntry> streamCalendarByStudioId(
+            @Param("studioId") Long studioId,
+            @Param("from")     LocalDate from,
+            @Param("excluded") BookingStatus excluded
+    );
 }
@@ -1,20 +1,88 @@
 package com.fitness.repositories;
 
 
+import com.fitness.dto.UserDTO;
 import com.fitness.models.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    /** Backs authentication, so always read from the database, never the query cache. */
     Optional<User> findByEmail(String email);
+
+    Optional<User> findByCalendarTokenHash(String calendarTokenHash);
  //   boolean existsByEmail(String email);
- void deleteAllByEnabledFalseAndCreatedAtBefore(LocalDateTime cutoff);
-    @Query("SELECT DISTINCT b.user FROM Booking b WHERE b.timeSlot.studio.id = :studioId")
-    List<User> findDistinctUsersByStudioId(@Param("studioId") Long studioId);
+    @Query(value = """
+      SELECT u.id FROM app_user u
+      WHERE u.enabled = false
+        AND u.created_at < :cutoff
+        AND NOT EXISTS (SELECT 1 FROM booking b WHERE b.user_id = u.id)
+        AND NOT EXISTS (SELECT 1 FROM studio s WHERE s.admin_id = u.id)
+      ORDER BY u.id
+      LIMIT :limit
+      FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<Long> lockUnconfirmedIdsCreatedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") List<Long> ids);
+    @Query("""
+      SELECT DISTINCT new com.fitness.dto.UserDTO(u.id, u.name, u.email, u.phoneNumber, u.role)
+      FROM Booking b
+      JOIN b.user u
+      WHERE b.timeSlot.studio.id = :studioId
+    """)
+    List<UserDTO> findDistinctUserDtosByStudioId(@Param("studioId") Long studioId);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = StreamingHints.FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY,  value = "true")
+    })
+    @Query("SELECT new com.fitness.dto.UserDTO(u.id, u.name, u.email, u.phoneNumber, u.role) FROM User u ORDER BY u.id")
+    Stream<UserDTO> streamAllAsDto();
+
+    /**
+     * Keyset page of users matching the filters, in id order. The text filter matches a
+     * prefix of the name or e-mail, a fuzzy word of the name or e-mail ({@code <%}, pg_trgm)
+     * or a prefix of the phone digits. Needs pg_trgm and the indexes from
+     * scripts/migrations/user-search-indexes.sql.
+     */
+    @Query(value = """
+      SELECT u.* FROM app_user u
+      WHERE u.id > :after
+        AND (CAST(:role AS varchar) IS NULL OR u.role = CAST(:role AS varchar))
+        AND (CAST(:enabled AS boolean) IS NULL OR u.enabled = CAST(:enabled AS boolean))
+        AND (CAST(:query AS text) IS NULL
+             OR lower(u.name)  LIKE CAST(:prefix AS text)
+             OR lower(u.email) LIKE CAST(:prefix AS text)
+             OR CAST(:query AS text) <% lower(u.name)
+             OR CAST(:query AS text) <% lower(u.email)
+             OR regexp_replace(u.phone_number, '[^0-9]', '', 'g') LIKE CAST(:phonePrefix AS text))
+      ORDER BY u.id
+      LIMIT :limit
+    """, nativeQuery = true)
+    List<User> search(
+            @Param("query")       String query,
+            @Param("prefix")      String prefix,
+            @Param("phonePrefix") String phonePrefix,
+            @Param("role")        String role,
+            @Param("enabled")     Boolean enabled,
+            @Param("after")       long after,
+            @Param("limit")       int limit
+    );
 }
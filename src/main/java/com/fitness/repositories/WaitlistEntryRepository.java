@@ -0,0 +1,48 @@
+package com.fitness.repositories;
+
+import com.fitness.dto.WaitlistEntryDTO;
+import com.fitness.models.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    String WAITLIST_ENTRY_DTO = """
+            SELECT new com.fitness.dto.WaitlistEntryDTO(
+                t.id, t.studio.id, t.date, t.startTime, t.endTime,
+                (SELECT COUNT(o) FROM WaitlistEntry o WHERE o.timeSlot = w.timeSlot AND o.id <= w.id),
+                w.createdAt)
+            FROM WaitlistEntry w JOIN w.timeSlot t
+            """;
+
+    boolean existsByTimeSlotIdAndUserId(Long timeSlotId, Long userId);
+
+    List<WaitlistEntry> findByTimeSlotIdOrderByIdAsc(Long timeSlotId);
+
+    @Query(WAITLIST_ENTRY_DTO + "WHERE t.id = :timeSlotId AND w.user.id = :userId")
+    Optional<WaitlistEntryDTO> findDto(@Param("timeSlotId") Long timeSlotId, @Param("userId") Long userId);
+
+    @Query(WAITLIST_ENTRY_DTO + "WHERE w.user.id = :userId AND t.date >= :from ORDER BY t.date, t.startTime")
+    List<WaitlistEntryDTO> findUpcomingDtosByUserId(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.timeSlot.id = :timeSlotId AND w.user.id = :userId")
+    int deleteByTimeSlotIdAndUserId(@Param("timeSlotId") Long timeSlotId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.user.id = :userId AND w.timeSlot.id IN :timeSlotIds")
+    int deleteByUserIdAndTimeSlotIdIn(@Param("userId") Long userId,
+                                      @Param("timeSlotIds") Collection<Long> timeSlotIds);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.timeSlot.id IN (SELECT t.id FROM TimeSlot t WHERE t.date < :before)")
+    int deleteForSlotsBefore(@Param("before") LocalDate before);
+}
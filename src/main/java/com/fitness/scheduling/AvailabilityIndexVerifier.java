@@ -0,0 +1,20 @@
+package com.fitness.scheduling;
+
+import com.fitness.services.interfaces.AvailabilityIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class AvailabilityIndexVerifier {
+    private final AvailabilityIndex availabilityIndex;
+
+    @Scheduled(
+            fixedDelayString = "${app.availability.verify-interval-ms:600000}",
+            initialDelayString = "${app.availability.verify-interval-ms:600000}"
+    )
+    public void verifyAgainstDatabase() {
+        availabilityIndex.verify();
+    }
+}
@@ -1,27 +1,40 @@
 package com.fitness.scheduling;
 
 import com.fitness.enums.BookingStatus;
+import com.fitness.models.Booking;
 import com.fitness.repositories.BookingRepository;
 import com.fitness.services.interfaces.EmailService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class BookingReminderScheduler {
     private final BookingRepository bookingRepo;
     private final EmailService emailService;
+    private final SchedulerLeases schedulerLeases;
 
 
     @Scheduled(cron = "0 15 3 * * *")
     public void sendTomorrowReminders() {
+        schedulerLeases.runExclusively("booking-reminders", this::sendReminders);
+    }
 
+    private void sendReminders(SchedulerLeases.Lease lease) {
         LocalDate tomorrow = LocalDate.now().plusDays(1);
 
-        bookingRepo.findByTimeSlot_DateAndStatus(tomorrow, BookingStatus.CONFIRMED)
-                .forEach(b -> emailService.sendBookingReminderEmail(b.getUser(), b));
+        for (Booking b : bookingRepo.findByTimeSlot_DateAndStatus(tomorrow, BookingStatus.CONFIRMED)) {
+            // another node holds the lease now and sends the reminders itself
+            if (lease.lost()) {
+                log.warn("Stopped sending reminders for {}, the lease was lost", tomorrow);
+                return;
+            }
+            emailService.sendBookingReminderEmail(b.getUser(), b);
+        }
     }
 }
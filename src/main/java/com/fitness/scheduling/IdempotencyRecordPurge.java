@@ -0,0 +1,21 @@
+package com.fitness.scheduling;
+
+import com.fitness.repositories.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+public class IdempotencyRecordPurge {
+    private final IdempotencyRecordRepository recordRepository;
+    private final SchedulerLeases schedulerLeases;
+
+    @Scheduled(cron = "0 45 * * * *")
+    public void purgeExpiredRecords() {
+        schedulerLeases.runExclusively("idempotency-record-purge",
+                () -> recordRepository.deleteExpired(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.fitness.scheduling;
+
+import com.fitness.repositories.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+public class RefreshTokenPurge {
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SchedulerLeases schedulerLeases;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public RefreshTokenPurge(RefreshTokenRepository refreshTokenRepository,
+                             SchedulerLeases schedulerLeases,
+                             @Value("${app.auth.refresh-purge.batch-size:1000}") int batchSize,
+                             @Value("${app.auth.refresh-purge.max-batches:100}") int maxBatches) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.schedulerLeases = schedulerLeases;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(cron = "${app.auth.refresh-purge.cron:0 30 * * * *}")
+    public void purgeExpiredTokens() {
+        schedulerLeases.runExclusively("refresh-token-purge", this::purgeBatches);
+    }
+
+    private void purgeBatches(SchedulerLeases.Lease lease) {
+        LocalDateTime cutoff = LocalDateTime.now();
+        int total = 0;
+        for (int batch = 0; batch < maxBatches && !lease.lost(); batch++) {
+            int deleted = refreshTokenRepository.deleteExpiredBatch(cutoff, batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Purged {} expired refresh tokens", total);
+        }
+    }
+}
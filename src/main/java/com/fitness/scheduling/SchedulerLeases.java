@@ -0,0 +1,173 @@
+package com.fitness.scheduling;
+
+import com.fitness.models.SchedulerLease;
+import com.fitness.repositories.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs a scheduled job on at most one node per trigger, using a row per job in
+ * {@code scheduler_lease}. All timestamps come from the database clock. While the job runs
+ * the lease is renewed every third of its TTL, so a crashed owner is replaced after at most
+ * one TTL. A finished lease is still held for {@code min-hold}, which keeps nodes whose cron
+ * fires a little later from running the same trigger again. The owner id is drawn again after
+ * a checkpoint restore, since every process restored from one checkpoint would share it.
+ * <p>
+ * A lease is lost when a renewal finds another owner, or when renewals have failed for a whole
+ * TTL, since another node may have taken it over by then. The job is told through
+ * {@link Lease#lost()}, which long jobs check between chunks so they stop before doing work
+ * the new owner is doing too.
+ */
+@Slf4j
+@Component
+public class SchedulerLeases {
+    private final SchedulerLeaseRepository leaseRepository;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final Duration minHold;
+    private volatile String owner;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "scheduler-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SchedulerLeases(SchedulerLeaseRepository leaseRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.scheduling.lease.ttl:PT2M}") Duration ttl,
+                           @Value("${app.scheduling.lease.min-hold:PT5M}") Duration minHold) {
+        this.leaseRepository = leaseRepository;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.minHold = minHold;
+        this.owner = newOwner();
+    }
+
+    public boolean runExclusively(String name, Runnable job) {
+        return runExclusively(name, lease -> job.run());
+    }
+
+    public boolean runExclusively(String name, Consumer<Lease> job) {
+        String owner = this.owner;
+        long started = System.nanoTime();
+        SchedulerLease previous = leaseRepository.findById(name).orElse(null);
+        boolean acquired = leaseRepository.tryAcquire(name, owner, seconds(ttl)) == 1;
+        Timer.builder("scheduler.lease.acquire")
+                .tag("lease", name)
+                .tag("outcome", acquired ? "acquired" : "skipped")
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            log.debug("Lease {} is held by another node, skipping this run", name);
+            return false;
+        }
+        if (previous != null && previous.getReleasedAt() == null && !owner.equals(previous.getOwner())) {
+            recordFailover(name, previous);
+        }
+
+        Lease lease = new Lease(name, owner);
+        long period = Math.max(1, ttl.toMillis() / 3);
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(
+                () -> renew(lease), period, period, TimeUnit.MILLISECONDS);
+        try {
+            job.accept(lease);
+        } finally {
+            heartbeat.cancel(false);
+            leaseRepository.release(name, owner, seconds(minHold));
+        }
+        return true;
+    }
+
+    public void resetOwner() {
+        owner = newOwner();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+
+    private void renew(Lease lease) {
+        if (lease.lost) {
+            return;
+        }
+        try {
+            if (leaseRepository.renew(lease.name, lease.owner, seconds(ttl)) == 0) {
+                markLost(lease, "it has another owner");
+            } else {
+                lease.renewedAt = System.nanoTime();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not renew lease {}: {}", lease.name, e.getMessage());
+            if (System.nanoTime() - lease.renewedAt >= ttl.toNanos()) {
+                markLost(lease, "it could not be renewed for " + ttl);
+            }
+        }
+    }
+
+    private void markLost(Lease lease, String reason) {
+        lease.lost = true;
+        meterRegistry.counter("scheduler.lease.lost", "lease", lease.name).increment();
+        log.warn("Lease {} was lost while its job was still running, {}; the job stops at its next check",
+                lease.name, reason);
+    }
+
+    private void recordFailover(String name, SchedulerLease previous) {
+        leaseRepository.findById(name).ifPresent(current -> {
+            Duration gap = Duration.between(previous.getHeartbeatAt(), current.getAcquiredAt());
+            Timer.builder("scheduler.lease.failover")
+                    .tag("lease", name)
+                    .register(meterRegistry)
+                    .record(gap);
+            log.warn("Took over lease {} from {} after {}", name, previous.getOwner(), gap);
+        });
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+
+    private static String newOwner() {
+        return hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+    /** A held lease, as seen by the job running under it. */
+    public static final class Lease {
+        private final String name;
+        private final String owner;
+        private volatile long renewedAt = System.nanoTime();
+        private volatile boolean lost;
+
+        Lease(String name, String owner) {
+            this.name = name;
+            this.owner = owner;
+        }
+
+        /** True once another node may be running the same job. */
+        public boolean lost() {
+            return lost;
+        }
+    }
+}
@@ -1,20 +1,99 @@
 package com.fitness.scheduling;
 
 import com.fitness.repositories.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.fitness.services.interfaces.EntityCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+/**
+ * Deletes accounts that were never confirmed in short transactions of at most
+ * {@code chunk-size} rows, pausing between chunks and stopping after {@code max-chunks}
+ * per run or once the lease is lost; whatever is left is picked up by the next run. The
+ * bulk delete bypasses the entity cache, so each chunk clears the user region on every node.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class UnconfirmedUserCleanup {
     private final UserRepository userRepository;
+    private final SchedulerLeases schedulerLeases;
+    private final EntityCacheService entityCacheService;
+    private final TransactionTemplate chunkTx;
+    private final Counter purgedCounter;
+    private final Timer purgeTimer;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final long pauseMs;
 
-    @Scheduled(cron = "0 0 3 * * *")
+    public UnconfirmedUserCleanup(UserRepository userRepository,
+                                  SchedulerLeases schedulerLeases,
+                                  EntityCacheService entityCacheService,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.cleanup.unconfirmed.retention-days:7}") int retentionDays,
+                                  @Value("${app.cleanup.unconfirmed.chunk-size:500}") int chunkSize,
+                                  @Value("${app.cleanup.unconfirmed.max-chunks:200}") int maxChunks,
+                                  @Value("${app.cleanup.unconfirmed.pause-ms:200}") long pauseMs) {
+        this.userRepository = userRepository;
+        this.schedulerLeases = schedulerLeases;
+        this.entityCacheService = entityCacheService;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.purgedCounter = Counter.builder("users.unconfirmed.purged")
+                .description("Unconfirmed accounts deleted by the cleanup job")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("users.unconfirmed.purge")
+                .description("Duration of unconfirmed account cleanup runs")
+                .register(meterRegistry);
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.pauseMs = pauseMs;
+    }
+
+    @Scheduled(cron = "${app.cleanup.unconfirmed.cron:0 0 3 * * *}")
     public void purgeOldUnconfirmedUsers() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(7);
-        userRepository.deleteAllByEnabledFalseAndCreatedAtBefore(cutoff);
+        schedulerLeases.runExclusively("unconfirmed-user-cleanup",
+                lease -> purgeTimer.record(() -> purgeChunks(lease)));
+    }
+
+    private void purgeChunks(SchedulerLeases.Lease lease) {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunks && !lease.lost(); chunk++) {
+            Integer deleted = chunkTx.execute(status -> {
+                List<Long> ids = userRepository.lockUnconfirmedIdsCreatedBefore(cutoff, chunkSize);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                int purged = userRepository.deleteAllByIdIn(ids);
+                entityCacheService.usersDeleted();
+                return purged;
+            });
+            int count = deleted == null ? 0 : deleted;
+            total += count;
+            purgedCounter.increment(count);
+            if (count < chunkSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Purged {} unconfirmed users created before {}", total, cutoff);
+        }
     }
 }
@@ -0,0 +1,21 @@
+package com.fitness.scheduling;
+
+import com.fitness.repositories.WaitlistEntryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+@RequiredArgsConstructor
+public class WaitlistPurge {
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final SchedulerLeases schedulerLeases;
+
+    @Scheduled(cron = "0 15 2 * * *")
+    public void purgePastSlots() {
+        schedulerLeases.runExclusively("waitlist-purge",
+                () -> waitlistEntryRepository.deleteForSlotsBefore(LocalDate.now()));
+    }
+}
@@ -1,35 +1,69 @@
 package com.fitness.services.impl;
 
 import com.fitness.config.security.JwtService;
+import com.fitness.config.security.TokenHashes;
 import com.fitness.dto.AuthResponse;
+import com.fitness.dto.SessionDTO;
 import com.fitness.exceptions.EmailNotConfirmedException;
+import com.fitness.exceptions.SessionNotFoundException;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
 import com.fitness.models.RefreshToken;
 import com.fitness.models.User;
 import com.fitness.repositories.RefreshTokenRepository;
 import com.fitness.repositories.UserRepository;
 import com.fitness.services.interfaces.AuthenticationService;
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
 
+/**
+ * Refresh tokens are persisted as SHA-256 hashes only and grouped into session families:
+ * every login starts a family, every refresh revokes the presented token and issues the
+ * next one in the same family. Presenting a token that was already rotated revokes the
+ * whole family, since either the client or an attacker holds a stale copy.
+ * <p>
+ * Lookups by hash go through a bounded cache holding both hits and misses. The cache never
+ * decides a rotation on its own: the conditional revoke in the database does.
+ */
 @Service
-@RequiredArgsConstructor
 public class AuthenticationServiceImpl implements AuthenticationService {
     private final AuthenticationManager authManager;
     private final JwtService jwtService;
     private final RefreshTokenRepository refreshTokenRepo;
     private final UserRepository userRepository;
+    private final Cache<String, Optional<StoredToken>> tokenCache;
+
+    public AuthenticationServiceImpl(AuthenticationManager authManager,
+                                     JwtService jwtService,
+                                     RefreshTokenRepository refreshTokenRepo,
+                                     UserRepository userRepository,
+                                     @Value("${app.auth.refresh-cache.max-size:10000}") long cacheSize,
+                                     @Value("${app.auth.refresh-cache.ttl:PT5M}") Duration cacheTtl) {
+        this.authManager = authManager;
+        this.jwtService = jwtService;
+        this.refreshTokenRepo = refreshTokenRepo;
+        this.userRepository = userRepository;
+        this.tokenCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
 
     @Override
     @Transactional
-    public AuthResponse login(String email, String password) {
+    public AuthResponse login(String email, String password, String deviceId) {
         authManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
         User user = userRepository.findByEmail(email)
                                .orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
@@ -38,33 +72,101 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         }
         String accessToken  = jwtService.generateToken(email);
         String refreshToken = jwtService.generateRefreshToken(email);
+        LocalDateTime now = LocalDateTime.now();
 
-        refreshTokenRepo.deleteByUsername(email);
-        RefreshToken rt = new RefreshToken();
-        rt.setUsername(email);
-        rt.setToken(refreshToken);
-        rt.setExpiresAt(
-                LocalDateTime.now()
-                        .plus(Duration.ofMillis(jwtService.getRefreshExpiration()))
-        );
-        refreshTokenRepo.save(rt);
+        if (deviceId != null && !deviceId.isBlank()) {
+            refreshTokenRepo.revokeDevice(email, deviceId, now);
+            AfterCommit.run(() -> evict(t -> t.username().equals(email) && deviceId.equals(t.deviceId())));
+        }
+        refreshTokenRepo.save(newToken(refreshToken, email, UUID.randomUUID().toString(), deviceId, now, now));
 
         return new AuthResponse(accessToken, refreshToken);
     }
 
     @Override
+    @Transactional(noRollbackFor = BadCredentialsException.class)
     public AuthResponse refresh(String refreshToken) {
         if (!jwtService.isRefreshToken(refreshToken)) {
             throw new BadCredentialsException(ErrorMessage.INVALID_REFRESH);
         }
-        RefreshToken rt = refreshTokenRepo.findByToken(refreshToken)
+        String hash = TokenHashes.sha256(refreshToken);
+        StoredToken rt = tokenCache.get(hash, h -> refreshTokenRepo.findByTokenHash(h).map(StoredToken::of))
                 .orElseThrow(() -> new BadCredentialsException(ErrorMessage.INVALID_REFRESH));
-        if (rt.getExpiresAt().isBefore(LocalDateTime.now())) {
-            refreshTokenRepo.delete(rt);
+        LocalDateTime now = LocalDateTime.now();
+        if (rt.revoked()) {
+            throw revokeFamilyOnReuse(rt, now);
+        }
+        if (rt.expiresAt().isBefore(now)) {
+            refreshTokenRepo.deleteByTokenHash(hash);
+            tokenCache.put(hash, Optional.empty());
             throw new BadCredentialsException(ErrorMessage.INVALID_REFRESH);
         }
+        if (refreshTokenRepo.revokeIfActive(rt.id(), now) == 0) {
+            throw revokeFamilyOnReuse(rt, now);
+        }
+
+        String newAccessToken = jwtService.generateToken(rt.username());
+        String newRefreshToken = jwtService.generateRefreshToken(rt.username());
+        refreshTokenRepo.save(newToken(newRefreshToken, rt.username(), rt.familyId(), rt.deviceId(),
+                rt.sessionStartedAt(), now));
+        AfterCommit.run(() -> tokenCache.put(hash, Optional.of(rt.asRevoked())));
+        return new AuthResponse(newAccessToken, newRefreshToken);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SessionDTO> getSessions(String email) {
+        return refreshTokenRepo.findActiveSessions(email, LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional
+    public void revokeSession(String email, String sessionId) {
+        if (refreshTokenRepo.revokeFamilyOfUser(email, sessionId, LocalDateTime.now()) == 0) {
+            throw new SessionNotFoundException(ErrorMessage.SESSION_NOT_FOUND);
+        }
+        AfterCommit.run(() -> evict(t -> t.familyId().equals(sessionId)));
+    }
+
+    @Override
+    @Transactional
+    public void revokeAllSessions(String email) {
+        refreshTokenRepo.revokeAllByUsername(email, LocalDateTime.now());
+        AfterCommit.run(() -> evict(t -> t.username().equals(email)));
+    }
+
+    private BadCredentialsException revokeFamilyOnReuse(StoredToken rt, LocalDateTime now) {
+        refreshTokenRepo.revokeFamily(rt.familyId(), now);
+        AfterCommit.run(() -> evict(t -> t.familyId().equals(rt.familyId())));
+        return new BadCredentialsException(ErrorMessage.INVALID_REFRESH);
+    }
 
-        String newAccessToken = jwtService.generateToken(rt.getUsername());
-        return new AuthResponse(newAccessToken, refreshToken);
+    private RefreshToken newToken(String refreshToken, String username, String familyId, String deviceId,
+                                  LocalDateTime sessionStartedAt, LocalDateTime now) {
+        return RefreshToken.builder()
+                .tokenHash(TokenHashes.sha256(refreshToken))
+                .username(username)
+                .familyId(familyId)
+                .deviceId(deviceId)
+                .sessionStartedAt(sessionStartedAt)
+                .createdAt(now)
+                .expiresAt(now.plus(Duration.ofMillis(jwtService.getRefreshExpiration())))
+                .build();
+    }
+
+    private void evict(Predicate<StoredToken> matches) {
+        tokenCache.asMap().values().removeIf(cached -> cached.isPresent() && matches.test(cached.get()));
+    }
+
+    private record StoredToken(Long id, String username, String familyId, String deviceId,
+                               LocalDateTime sessionStartedAt, LocalDateTime expiresAt, boolean revoked) {
+        static StoredToken of(RefreshToken token) {
+            return new StoredToken(token.getId(), token.getUsername(), token.getFamilyId(), token.getDeviceId(),
+                    token.getSessionStartedAt(), token.getExpiresAt(), token.getRevokedAt() != null);
+        }
+
+        StoredToken asRevoked() {
+            return new StoredToken(id, username, familyId, deviceId, sessionStartedAt, expiresAt, true);
+        }
     }
 }
@@ -0,0 +1,439 @@
+package com.fitness.services.impl;
+
+import com.fitness.config.datasource.PrimaryReads;
+import com.fitness.dto.SlotAvailabilityDelta;
+import com.fitness.dto.TimeSlotDTO;
+import com.fitness.enums.BookingStatus;
+import com.fitness.events.ClusterChanges;
+import com.fitness.events.SlotAvailabilityChangedEvent;
+import com.fitness.repositories.BookingRepository;
+import com.fitness.repositories.TimeSlotRepository;
+import com.fitness.services.interfaces.AvailabilityIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory read model of slot availability. Every studio-day keeps a bitset of booked
+ * 5-minute cells plus the same mask widened by the inter-studio buffer; the busy mask of a
+ * studio is its own booked cells OR the widened masks of every other studio on that day.
+ * Intervals are half-open, as in the booking service's trainer check, so back-to-back slots
+ * do not clash. Times that are not on the 5-minute grid are rounded outwards, so the model
+ * may hide a slot but never offers one that check would reject.
+ * <p>
+ * Every node holds its own copy. Each change is published through {@link ClusterChanges}
+ * in the writing transaction, and the other nodes apply the same mutation when it commits,
+ * so their SSE streams get the deltas too; after a gap in the notifications the index is
+ * rebuilt from the database.
+ * <p>
+ * Only days from {@code today - app.availability.history-days} are held; older ranges and
+ * queries before the first rebuild return empty so callers fall back to the database.
+ * <p>
+ * Whenever a change flips whether a slot is offered, a {@link SlotAvailabilityChangedEvent}
+ * is published per studio with a per-studio version. Events are published under the write
+ * lock so versions and deltas stay in order; listeners must only hand them off.
+ */
+@Slf4j
+@Service
+public class AvailabilityIndexImpl implements AvailabilityIndex {
+    static final int MINUTES_PER_CELL = 5;
+    static final int CELLS_PER_DAY = 24 * 60 / MINUTES_PER_CELL;
+    static final int BUFFER_CELLS = 60 / MINUTES_PER_CELL;
+    private static final String SAVED = "availability.saved";
+    private static final String DELETED = "availability.deleted";
+    private static final String BOOKED = "availability.booked";
+
+    private static final Comparator<TimeSlotDTO> SLOT_ORDER = Comparator
+            .comparing(TimeSlotDTO::getDate)
+            .thenComparing(TimeSlotDTO::getStartTime)
+            .thenComparing(TimeSlotDTO::getStudioId)
+            .thenComparing(TimeSlotDTO::getId);
+
+    private final TimeSlotRepository timeSlotRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate snapshotTx;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ClusterChanges clusterChanges;
+    private final int historyDays;
+
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong mutations = new AtomicLong();
+    private State state;
+
+    public AvailabilityIndexImpl(TimeSlotRepository timeSlotRepository,
+                                 BookingRepository bookingRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher eventPublisher,
+                                 ClusterChanges clusterChanges,
+                                 @Value("${app.availability.history-days:7}") int historyDays) {
+        this.timeSlotRepository = timeSlotRepository;
+        this.bookingRepository = bookingRepository;
+        this.eventPublisher = eventPublisher;
+        this.clusterChanges = clusterChanges;
+        this.historyDays = historyDays;
+        this.snapshotTx = new TransactionTemplate(transactionManager);
+        this.snapshotTx.setReadOnly(true);
+        this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        clusterChanges.subscribe(SAVED, payload -> applySaved(decodeSlot(payload)));
+        clusterChanges.subscribe(DELETED, payload -> applyDeleted(Long.valueOf(payload)));
+        clusterChanges.subscribe(BOOKED, payload -> {
+            String[] fields = payload.split(",");
+            applyBooked(Long.valueOf(fields[0]), Boolean.parseBoolean(fields[1]));
+        });
+        clusterChanges.onResync(this::rebuild);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Override
+    public Optional<List<TimeSlotDTO>> findAvailable(Collection<Long> studioIds, LocalDate start, LocalDate end) {
+        lock.readLock().lock();
+        try {
+            if (state == null || start.isBefore(state.from) || end.isBefore(start)) {
+                return Optional.empty();
+            }
+            List<TimeSlotDTO> result = new ArrayList<>();
+            for (Day day : state.days.subMap(start, true, end, true).values()) {
+                for (Long studioId : studioIds) {
+                    StudioDay studioDay = day.studios.get(studioId);
+                    if (studioDay == null) {
+                        continue;
+                    }
+                    for (SlotEntry slot : studioDay.slots.values()) {
+                        if (slot.available() && !studioDay.busy.intersects(cells(slot.start(), slot.end()))) {
+                            result.add(slot.toDto());
+                        }
+                    }
+                }
+            }
+            result.sort(SLOT_ORDER);
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void slotSaved(TimeSlotDTO slot) {
+        clusterChanges.publish(SAVED, encodeSlot(slot));
+        AfterCommit.run(() -> applySaved(slot));
+    }
+
+    @Override
+    public void slotDeleted(Long slotId) {
+        clusterChanges.publish(DELETED, slotId.toString());
+        AfterCommit.run(() -> applyDeleted(slotId));
+    }
+
+    @Override
+    public void slotBooked(Long slotId, boolean booked) {
+        clusterChanges.publish(BOOKED, slotId + "," + booked);
+        AfterCommit.run(() -> applyBooked(slotId, booked));
+    }
+
+    private void applySaved(TimeSlotDTO slot) {
+        mutate(s -> {
+            SlotEntry previous = s.slots.get(slot.getId());
+            s.put(SlotEntry.of(slot, previous != null && previous.booked()));
+        });
+    }
+
+    private void applyDeleted(Long slotId) {
+        mutate(s -> s.remove(slotId));
+    }
+
+    private void applyBooked(Long slotId, boolean booked) {
+        mutate(s -> {
+            SlotEntry previous = s.slots.get(slotId);
+            if (previous != null) {
+                s.put(previous.withBooked(booked));
+            }
+        });
+    }
+
+    @Override
+    public void rebuild() {
+        State fresh = load();
+        lock.writeLock().lock();
+        try {
+            replace(fresh);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Availability index built from {}: {} slots", fresh.from, fresh.slots.size());
+    }
+
+    @Override
+    public boolean verify() {
+        long before = mutations.get();
+        State fresh = load();
+        lock.writeLock().lock();
+        try {
+            if (mutations.get() != before) {
+                return true;
+            }
+            boolean consistent = state != null && fresh.sameSlotsAs(state);
+            if (!consistent) {
+                log.warn("Availability index diverged from the database, replacing it");
+            }
+            replace(fresh);
+            return consistent;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void mutate(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            mutations.incrementAndGet();
+            if (state != null) {
+                change.accept(state);
+                publish(state.recomputeDirty());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replace(State fresh) {
+        if (state != null) {
+            publish(State.changes(state.allOffers(), fresh.allOffers()));
+        }
+        state = fresh;
+    }
+
+    private void publish(Map<Long, Offer> changed) {
+        Map<Long, List<Long>> byStudio = new TreeMap<>();
+        changed.forEach((slotId, offer) ->
+                byStudio.computeIfAbsent(offer.studioId(), id -> new ArrayList<>()).add(slotId));
+        byStudio.forEach((studioId, slotIds) -> {
+            long version = versions.computeIfAbsent(studioId, id -> new AtomicLong()).incrementAndGet();
+            List<SlotAvailabilityDelta> deltas = slotIds.stream()
+                    .sorted()
+                    .map(slotId -> new SlotAvailabilityDelta(slotId, changed.get(slotId).offered(), version))
+                    .toList();
+            eventPublisher.publishEvent(new SlotAvailabilityChangedEvent(studioId, version, deltas));
+        });
+    }
+
+    private State load() {
+        LocalDate from = LocalDate.now().minusDays(historyDays);
+        // a replica snapshot could predate after-commit mutations already applied to the index
+        return PrimaryReads.call(() -> snapshotTx.execute(status -> {
+            Set<Long> booked = new HashSet<>(
+                    bookingRepository.findActiveSlotIdsFrom(from, BookingStatus.CANCELLED));
+            State fresh = new State(from);
+            for (TimeSlotDTO slot : timeSlotRepository.findDtosFrom(from)) {
+                fresh.put(SlotEntry.of(slot, booked.contains(slot.getId())));
+            }
+            fresh.recomputeDirty();
+            return fresh;
+        }));
+    }
+
+    private static String encodeSlot(TimeSlotDTO slot) {
+        return slot.getId() + "," + slot.getStudioId() + "," + slot.getDate() + "," + slot.getStartTime()
+                + "," + slot.getEndTime() + "," + Boolean.TRUE.equals(slot.getAvailable()) + "," + slot.isTrial();
+    }
+
+    private static TimeSlotDTO decodeSlot(String payload) {
+        String[] fields = payload.split(",");
+        return new TimeSlotDTO(Long.valueOf(fields[0]), LocalDate.parse(fields[2]), LocalTime.parse(fields[3]),
+                LocalTime.parse(fields[4]), Boolean.parseBoolean(fields[5]), Long.valueOf(fields[1]),
+                Boolean.parseBoolean(fields[6]));
+    }
+
+    static BitSet cells(LocalTime start, LocalTime end) {
+        int from = (start.getHour() * 60 + start.getMinute()) / MINUTES_PER_CELL;
+        int endMinute = end.getHour() * 60 + end.getMinute() + (end.getSecond() > 0 ? 1 : 0);
+        int to = Math.min(CELLS_PER_DAY, (endMinute + MINUTES_PER_CELL - 1) / MINUTES_PER_CELL);
+        BitSet bits = new BitSet(CELLS_PER_DAY);
+        if (to > from) {
+            bits.set(from, to);
+        }
+        return bits;
+    }
+
+    private static BitSet widen(BitSet booked) {
+        BitSet widened = new BitSet(CELLS_PER_DAY);
+        for (int from = booked.nextSetBit(0); from >= 0; ) {
+            int to = booked.nextClearBit(from);
+            widened.set(Math.max(0, from - BUFFER_CELLS), Math.min(CELLS_PER_DAY, to + BUFFER_CELLS));
+            from = booked.nextSetBit(to);
+        }
+        return widened;
+    }
+
+    private record SlotEntry(Long id, Long studioId, LocalDate date, LocalTime start, LocalTime end,
+                             boolean available, boolean trial, boolean booked) {
+        static SlotEntry of(TimeSlotDTO dto, boolean booked) {
+            return new SlotEntry(dto.getId(), dto.getStudioId(), dto.getDate(), dto.getStartTime(),
+                    dto.getEndTime(), Boolean.TRUE.equals(dto.getAvailable()), dto.isTrial(), booked);
+        }
+
+        SlotEntry withBooked(boolean nowBooked) {
+            return new SlotEntry(id, studioId, date, start, end, !nowBooked, trial, nowBooked);
+        }
+
+        TimeSlotDTO toDto() {
+            return new TimeSlotDTO(id, date, start, end, available, studioId, trial);
+        }
+    }
+
+    private record Offer(Long studioId, boolean offered) {
+    }
+
+    private static final class StudioDay {
+        final Map<Long, SlotEntry> slots = new HashMap<>();
+        BitSet booked = new BitSet(CELLS_PER_DAY);
+        BitSet widened = new BitSet(CELLS_PER_DAY);
+        BitSet busy = new BitSet(CELLS_PER_DAY);
+    }
+
+    private static final class Day {
+        final Map<Long, StudioDay> studios = new HashMap<>();
+
+        Map<Long, Offer> recompute() {
+            for (StudioDay studioDay : studios.values()) {
+                BitSet booked = new BitSet(CELLS_PER_DAY);
+                for (SlotEntry slot : studioDay.slots.values()) {
+                    if (slot.booked()) {
+                        booked.or(cells(slot.start(), slot.end()));
+                    }
+                }
+                studioDay.booked = booked;
+                studioDay.widened = widen(booked);
+            }
+            for (Map.Entry<Long, StudioDay> own : studios.entrySet()) {
+                BitSet busy = (BitSet) own.getValue().booked.clone();
+                for (Map.Entry<Long, StudioDay> other : studios.entrySet()) {
+                    if (!other.getKey().equals(own.getKey())) {
+                        busy.or(other.getValue().widened);
+                    }
+                }
+                own.getValue().busy = busy;
+            }
+            Map<Long, Offer> offers = new HashMap<>();
+            for (StudioDay studioDay : studios.values()) {
+                for (SlotEntry slot : studioDay.slots.values()) {
+                    boolean offered = slot.available() && !studioDay.busy.intersects(cells(slot.start(), slot.end()));
+                    offers.put(slot.id(), new Offer(slot.studioId(), offered));
+                }
+            }
+            return offers;
+        }
+    }
+
+    private static final class State {
+        final LocalDate from;
+        final Map<Long, SlotEntry> slots = new HashMap<>();
+        final NavigableMap<LocalDate, Day> days = new TreeMap<>();
+        final Set<LocalDate> dirty = new HashSet<>();
+        final Map<LocalDate, Map<Long, Offer>> offers = new HashMap<>();
+
+        State(LocalDate from) {
+            this.from = from;
+        }
+
+        void put(SlotEntry slot) {
+            remove(slot.id());
+            if (slot.date().isBefore(from)) {
+                return;
+            }
+            slots.put(slot.id(), slot);
+            days.computeIfAbsent(slot.date(), d -> new Day())
+                    .studios.computeIfAbsent(slot.studioId(), id -> new StudioDay())
+                    .slots.put(slot.id(), slot);
+            dirty.add(slot.date());
+        }
+
+        void remove(Long slotId) {
+            SlotEntry previous = slots.remove(slotId);
+            if (previous == null) {
+                return;
+            }
+            Day day = days.get(previous.date());
+            StudioDay studioDay = day.studios.get(previous.studioId());
+            studioDay.slots.remove(slotId);
+            if (studioDay.slots.isEmpty()) {
+                day.studios.remove(previous.studioId());
+            }
+            if (day.studios.isEmpty()) {
+                days.remove(previous.date());
+            }
+            dirty.add(previous.date());
+        }
+
+        Map<Long, Offer> recomputeDirty() {
+            Map<Long, Offer> before = new HashMap<>();
+            Map<Long, Offer> after = new HashMap<>();
+            for (LocalDate date : dirty) {
+                Map<Long, Offer> previous = offers.remove(date);
+                if (previous != null) {
+                    before.putAll(previous);
+                }
+                Day day = days.get(date);
+                if (day != null) {
+                    Map<Long, Offer> current = day.recompute();
+                    offers.put(date, current);
+                    after.putAll(current);
+                }
+            }
+            dirty.clear();
+            return changes(before, after);
+        }
+
+        Map<Long, Offer> allOffers() {
+            Map<Long, Offer> all = new HashMap<>();
+            offers.values().forEach(all::putAll);
+            return all;
+        }
+
+        static Map<Long, Offer> changes(Map<Long, Offer> before, Map<Long, Offer> after) {
+            Map<Long, Offer> changed = new HashMap<>();
+            after.forEach((id, offer) -> {
+                Offer previous = before.get(id);
+                if ((previous != null && previous.offered()) != offer.offered()) {
+                    changed.put(id, offer);
+                }
+            });
+            before.forEach((id, offer) -> {
+                if (offer.offered() && !after.containsKey(id)) {
+                    changed.put(id, new Offer(offer.studioId(), false));
+                }
+            });
+            return changed;
+        }
+
+        boolean sameSlotsAs(State other) {
+            Map<Long, SlotEntry> otherInWindow = new HashMap<>();
+            other.slots.forEach((id, slot) -> {
+                if (!slot.date().isBefore(from)) {
+                    otherInWindow.put(id, slot);
+                }
+            });
+            return slots.equals(otherInWindow);
+        }
+    }
+}
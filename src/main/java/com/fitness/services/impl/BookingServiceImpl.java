@@ -1,11 +1,19 @@
 package com.fitness.services.impl;
 
-
+import com.fitness.config.datasource.PrimaryReads;
+import com.fitness.dto.BatchBookingFailure;
+import com.fitness.dto.BatchBookingResult;
 import com.fitness.dto.BookingDTO;
 import com.fitness.dto.CreateBookingRequest;
 import com.fitness.dto.UpdateBookingRequest;
+import com.fitness.enums.BatchBookingMode;
 import com.fitness.enums.BookingStatus;
 import com.fitness.enums.Role;
+import com.fitness.events.BookingCancelledEvent;
+import com.fitness.events.BookingConfirmedEvent;
+import com.fitness.events.BookingCreatedEvent;
+import com.fitness.events.BookingRescheduledEvent;
+import com.fitness.events.SlotChangedEvent;
 import org.springframework.security.access.AccessDeniedException;
 import com.fitness.exceptions.*;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
@@ -13,20 +21,38 @@ import com.fitness.mappers.BookingMapper;
 import com.fitness.models.Booking;
 import com.fitness.models.TimeSlot;
 import com.fitness.models.User;
+import com.fitness.models.WaitlistEntry;
 import com.fitness.repositories.BookingRepository;
 import com.fitness.repositories.TimeSlotRepository;
 import com.fitness.repositories.UserRepository;
+import com.fitness.repositories.WaitlistEntryRepository;
+import com.fitness.services.interfaces.AvailabilityIndex;
 import com.fitness.services.interfaces.CurrentUserService;
 import com.fitness.services.interfaces.BookingService;
-import com.fitness.services.interfaces.EmailService;
-import jakarta.transaction.Transactional;
+import com.fitness.services.interfaces.ResourceVersionService;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.fitness.services.interfaces.SecurityService;
 
@@ -34,6 +60,7 @@ import com.fitness.services.interfaces.SecurityService;
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
     private static final long INTER_STUDIO_BUFFER_HOURS = 1L;
+    private static final String ACTIVE_SLOT_INDEX = "ux_booking_active_slot";
 
     private final BookingRepository bookingRepository;
 
@@ -46,7 +73,10 @@ public class BookingServiceImpl implements BookingService {
 
     private final CurrentUserService currentUserService;
     private final SecurityService securityService;
-    private final EmailService emailService;
+    private final ResourceVersionService resourceVersionService;
+    private final AvailabilityIndex availabilityIndex;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -72,6 +102,91 @@ public class BookingServiceImpl implements BookingService {
         return bookingMapper.bookingToBookingDTO(created);
     }
 
+    /**
+     * Books several slots for the current user using one load of the involved days and of
+     * the user's trial history. Each slot is validated against existing bookings and against
+     * the slots accepted before it in the same request. In ALL_OR_NOTHING mode a single
+     * rejection leaves every slot unbooked. BEST_EFFORT only applies to these checks: the
+     * accepted slots are inserted together, so a slot booked concurrently after the checks
+     * fails the whole batch with 409, and a retry then reports that slot as unavailable.
+     */
+    @Override
+    @Transactional
+    public BatchBookingResult createBookingsForCurrentUser(List<Long> timeSlotIds, BatchBookingMode mode) {
+        User me = currentUserService.getCurrentUser();
+        Set<Long> ids = new LinkedHashSet<>(timeSlotIds);
+        Map<Long, TimeSlot> slots = timeSlotRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(TimeSlot::getId, Function.identity()));
+        Set<LocalDate> days = slots.values().stream().map(TimeSlot::getDate).collect(Collectors.toSet());
+
+        Map<LocalDate, List<TimeSlot>> busyByDay = new HashMap<>();
+        if (!days.isEmpty()) {
+            bookingRepository.findBookedSlotsOnDates(days, BookingStatus.CANCELLED).forEach(busy ->
+                    busyByDay.computeIfAbsent(busy.getDate(), d -> new ArrayList<>()).add(busy));
+        }
+        List<LocalDate> trialDates = new ArrayList<>();
+        if (slots.values().stream().anyMatch(TimeSlot::isTrial)) {
+            trialDates.addAll(bookingRepository.findTrialDatesByUserId(me.getId()));
+        }
+
+        List<TimeSlot> accepted = new ArrayList<>();
+        List<BatchBookingFailure> failed = new ArrayList<>();
+        for (Long id : ids) {
+            TimeSlot slot = slots.get(id);
+            String rejection = slot == null
+                    ? ErrorMessage.TIME_SLOT_NOT_FOUND
+                    : batchRejection(slot, busyByDay.computeIfAbsent(slot.getDate(), d -> new ArrayList<>()), trialDates);
+            if (rejection != null) {
+                failed.add(new BatchBookingFailure(id, rejection));
+                continue;
+            }
+            accepted.add(slot);
+            busyByDay.get(slot.getDate()).add(slot);
+            if (slot.isTrial()) {
+                trialDates.add(slot.getDate());
+            }
+        }
+        if (accepted.isEmpty() || (mode != BatchBookingMode.BEST_EFFORT && !failed.isEmpty())) {
+            return new BatchBookingResult(List.of(), failed);
+        }
+
+        List<Booking> saved = insertActive(() -> bookingRepository.saveAll(accepted.stream()
+                .map(slot -> Booking.builder()
+                        .user(me)
+                        .timeSlot(slot)
+                        .status(BookingStatus.PENDING)
+                        .build())
+                .toList()));
+        waitlistEntryRepository.deleteByUserIdAndTimeSlotIdIn(me.getId(),
+                accepted.stream().map(TimeSlot::getId).toList());
+
+        accepted.forEach(slot -> availabilityIndex.slotBooked(slot.getId(), true));
+        resourceVersionService.bookingsChanged(me.getId());
+        accepted.stream().map(slot -> slot.getStudio().getId()).distinct()
+                .forEach(resourceVersionService::slotsChanged);
+        saved.forEach(this::publishCreated);
+
+        return new BatchBookingResult(saved.stream().map(bookingMapper::bookingToBookingDTO).toList(), failed);
+    }
+
+    private String batchRejection(TimeSlot slot, List<TimeSlot> sameDay, List<LocalDate> trialDates) {
+        if (sameDay.stream().anyMatch(busy -> busy.getId().equals(slot.getId()))) {
+            return ErrorMessage.TIME_SLOT_NOT_AVAILABLE;
+        }
+        if (slot.isTrial()) {
+            LocalDate oneYearAgo = slot.getDate().minusYears(1);
+            if (trialDates.stream().anyMatch(date -> date.isAfter(oneYearAgo))) {
+                return ErrorMessage.TRIAL_SESSION_LIMIT_EXCEEDED;
+            }
+        }
+        try {
+            checkTrainerAvailability(slot, sameDay);
+        } catch (TrainerNotAvailableException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
     private Booking createInternal(User user, TimeSlot slot) {
 
 
@@ -96,33 +211,99 @@ public class BookingServiceImpl implements BookingService {
                 .status(BookingStatus.PENDING)
                 .build();
 
-        Booking saved = bookingRepository.save(booking);
-
-        slot.setAvailable(false);
-        timeSlotRepository.save(slot);
+        Booking saved = insertActive(() -> bookingRepository.save(booking));
+        waitlistEntryRepository.deleteByTimeSlotIdAndUserId(slot.getId(), user.getId());
 
-        emailService.sendBookingConfirmationEmail(user, saved);
+        availabilityIndex.slotBooked(slot.getId(), true);
+        resourceVersionService.bookingsChanged(user.getId());
+        resourceVersionService.slotsChanged(slot.getStudio().getId());
+        publishCreated(saved);
         return saved;
     }
 
+    /**
+     * Runs an insert of active bookings. A concurrent booking of the same slot that committed
+     * after our checks trips the active-slot unique index; that is reported as the slot being
+     * taken, and the exception rolls back everything written in this transaction.
+     */
+    private static <T> T insertActive(Supplier<T> insert) {
+        try {
+            return insert.get();
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && ACTIVE_SLOT_INDEX.equalsIgnoreCase(violation.getConstraintName())) {
+                throw new TimeSlotAlreadyBookedException(ErrorMessage.TIME_SLOT_NOT_AVAILABLE);
+            }
+            throw e;
+        }
+    }
+
+    private void publishCreated(Booking booking) {
+        TimeSlot slot = booking.getTimeSlot();
+        eventPublisher.publishEvent(new BookingCreatedEvent(booking.getId(), booking.getUser().getId(), slot.getId()));
+        slotChanged(slot, true);
+    }
+
+    // the available column is updated in the booking transaction: the index verifier and the
+    // database fallback read it, so it must never lag the bookings table
+    private void slotChanged(TimeSlot slot, boolean booked) {
+        slot.setAvailable(!booked);
+        eventPublisher.publishEvent(new SlotChangedEvent(slot.getId(), slot.getStudio().getId(), booked));
+    }
+
+    /**
+     * Books a released slot for the longest-waiting user on its waitlist. Users who no
+     * longer pass the trial check are dropped from the waitlist; a trainer conflict blocks
+     * the slot for everyone, so promotion stops there.
+     * <p>
+     * Always a new transaction: when the bookings pool is full, the promotion runs on the
+     * publishing thread inside its after-commit callback, where joining the finished
+     * transaction would silently discard the booking.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<BookingDTO> promoteFromWaitlist(Long timeSlotId) {
+        TimeSlot slot = timeSlotRepository.findById(timeSlotId).orElse(null);
+        if (slot == null
+                || slot.getDate().isBefore(LocalDate.now())
+                || bookingRepository.existsByTimeSlotIdAndStatusNot(timeSlotId, BookingStatus.CANCELLED)) {
+            return Optional.empty();
+        }
+        for (WaitlistEntry entry : waitlistEntryRepository.findByTimeSlotIdOrderByIdAsc(timeSlotId)) {
+            try {
+                Booking created = createInternal(entry.getUser(), slot);
+                return Optional.of(bookingMapper.bookingToBookingDTO(created));
+            } catch (TrialSessionLimitExceededException e) {
+                waitlistEntryRepository.delete(entry);
+            } catch (TrainerNotAvailableException e) {
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
     private void checkTrainerAvailability(TimeSlot candidate) {
-        checkTrainerAvailability(candidate, null);
+        checkTrainerAvailability(candidate, (Long) null);
     }
 
     private void checkTrainerAvailability(TimeSlot candidate, Long ignoreBookingId) {
-        List<Booking> sameDay = bookingRepository
-                .findByTimeSlot_DateAndStatusNot(candidate.getDate(), BookingStatus.CANCELLED);
+        List<TimeSlot> sameDay = bookingRepository
+                .findByTimeSlot_DateAndStatusNot(candidate.getDate(), BookingStatus.CANCELLED).stream()
+                .filter(b -> ignoreBookingId == null || !b.getId().equals(ignoreBookingId))
+                .map(Booking::getTimeSlot)
+                .toList();
+        checkTrainerAvailability(candidate, sameDay);
+    }
 
+    private void checkTrainerAvailability(TimeSlot candidate, Collection<TimeSlot> sameDay) {
         LocalTime start = candidate.getStartTime();
         LocalTime end = candidate.getEndTime();
 
-        for (Booking b : sameDay) {
-            if (ignoreBookingId != null && b.getId().equals(ignoreBookingId)) continue;
-            TimeSlot ex = b.getTimeSlot();
+        for (TimeSlot ex : sameDay) {
             boolean sameStudio = ex.getStudio().getId().equals(candidate.getStudio().getId());
 
             if (sameStudio) {
-                boolean ok = end.isBefore(ex.getStartTime())
+                boolean ok = !end.isAfter(ex.getStartTime())
                         || !start.isBefore(ex.getEndTime());
                 if (!ok) throw new TrainerNotAvailableException(ErrorMessage.TRAINER_NOT_AVAILABLE);
 
@@ -138,39 +319,37 @@ public class BookingServiceImpl implements BookingService {
         return timeSlotRepository.findById(slotId)
                 .orElseThrow(() -> new TimeSlotNotFoundException(ErrorMessage.TIME_SLOT_NOT_FOUND));
     }
-    private boolean canViewBooking(Booking b) {
+    private boolean canViewBooking(BookingDTO b) {
         Role role = currentUserService.getCurrentUserRole();
         Long me   = currentUserService.getCurrentUserId();
 
         return switch (role) {
             case ADMIN, DEV -> true;
-            case USER -> b.getUser().getId().equals(me);
-            case USER_PRO -> {
-                User studioAdmin = b.getTimeSlot()
-                        .getStudio()
-                        .getAdmin();
-                yield studioAdmin != null && studioAdmin.getId().equals(me);
-            }
+            case USER -> b.getUserId().equals(me);
+            case USER_PRO -> bookingRepository.existsByIdAndTimeSlot_Studio_Admin_Id(b.getId(), me);
         };
     }
     @Override
+    @Transactional(readOnly = true)
     public BookingDTO getBooking(Long id) {
-        Booking booking = bookingRepository.findById(id)
+        BookingDTO booking = bookingRepository.findDtoById(id)
                 .orElseThrow(() -> new BookingNotFoundException(ErrorMessage.BOOKING_NOT_FOUND));
         if (!canViewBooking(booking))
             throw new AccessDeniedException(ErrorMessage.ACCESS_DENIED);
-        return bookingMapper.bookingToBookingDTO(booking);
+        return booking;
     }
 
     @Override
-    public List<BookingDTO> getAllBookings() {
+    @Transactional(readOnly = true)
+    public void streamAllBookings(Consumer<BookingDTO> sink) {
         securityService.requireAdminOrDev();
-        return bookingRepository.findAll().stream()
-                .map(bookingMapper::bookingToBookingDTO)
-                .collect(Collectors.toList());
+        try (Stream<BookingDTO> rows = bookingRepository.streamAllAsDto()) {
+            rows.forEach(sink);
+        }
     }
 
     @Override
+    @Transactional
     public BookingDTO cancelBooking(Long bookingId) {
         securityService.requireAdminOrDev();
         Booking booking = bookingRepository.findById(bookingId)
@@ -179,12 +358,15 @@ public class BookingServiceImpl implements BookingService {
         if (booking.getStatus() != BookingStatus.CANCELLED) {
             booking.setStatus(BookingStatus.CANCELLED);
             booking = bookingRepository.save(booking);
-        }
 
-        TimeSlot slot = booking.getTimeSlot();
-        slot.setAvailable(true);
-        timeSlotRepository.save(slot);
-        emailService.sendBookingCancellationEmail(booking.getUser(), booking);
+            TimeSlot slot = booking.getTimeSlot();
+            availabilityIndex.slotBooked(slot.getId(), false);
+            resourceVersionService.bookingsChanged(booking.getUser().getId());
+            resourceVersionService.slotsChanged(slot.getStudio().getId());
+            eventPublisher.publishEvent(new BookingCancelledEvent(
+                    booking.getId(), booking.getUser().getId(), slot.getId()));
+            slotChanged(slot, false);
+        }
 
         return bookingMapper.bookingToBookingDTO(booking);
     }
@@ -212,37 +394,46 @@ public class BookingServiceImpl implements BookingService {
                 throw new TimeSlotNotAvailableException(ErrorMessage.TIME_SLOT_NOT_AVAILABLE);
             }
             checkTrainerAvailability(newSlot, bookingId);
-
-            oldSlot.setAvailable(true);
-            timeSlotRepository.save(oldSlot);
-
             booking.setTimeSlot(newSlot);
-            newSlot.setAvailable(false);
-            timeSlotRepository.save(newSlot);
         }
 
         if (req.getStatus() != null) {
             booking.setStatus(req.getStatus());
+        }
 
-            if (req.getStatus() == BookingStatus.CANCELLED) {
-                TimeSlot ts = booking.getTimeSlot();
-                ts.setAvailable(true);
-                timeSlotRepository.save(ts);
+        Booking updated = bookingRepository.save(booking);
+        TimeSlot newSlot = updated.getTimeSlot();
+        boolean moved = !newSlot.getId().equals(oldSlot.getId());
+        boolean wasBooked = oldStatus != BookingStatus.CANCELLED;
+        boolean isBooked = updated.getStatus() != BookingStatus.CANCELLED;
+        Long userId = updated.getUser().getId();
+
+        if (moved) {
+            availabilityIndex.slotBooked(oldSlot.getId(), false);
+        }
+        availabilityIndex.slotBooked(newSlot.getId(), isBooked);
+        resourceVersionService.bookingsChanged(userId);
+        resourceVersionService.slotsChanged(oldSlot.getStudio().getId());
+        resourceVersionService.slotsChanged(newSlot.getStudio().getId());
+
+        if (moved) {
+            eventPublisher.publishEvent(new BookingRescheduledEvent(
+                    updated.getId(), userId, oldSlot.getId(), newSlot.getId()));
+            if (wasBooked) {
+                slotChanged(oldSlot, false);
             }
-            if (req.getStatus() != BookingStatus.CANCELLED
-                    && oldStatus == BookingStatus.CANCELLED) {
-                TimeSlot ts = booking.getTimeSlot();
-                ts.setAvailable(false);
-                timeSlotRepository.save(ts);
+            if (isBooked) {
+                slotChanged(newSlot, true);
             }
+        } else if (wasBooked != isBooked) {
+            slotChanged(newSlot, isBooked);
         }
-
-        Booking updated = bookingRepository.save(booking);
-
-        if (req.getStatus() == BookingStatus.CONFIRMED) {
-            emailService.sendBookingConfirmationEmail(updated.getUser(), updated);
-        } else if (req.getStatus() == BookingStatus.CANCELLED) {
-            emailService.sendBookingCancellationEmail(updated.getUser(), updated);
+        if (updated.getStatus() != oldStatus) {
+            if (updated.getStatus() == BookingStatus.CONFIRMED) {
+                eventPublisher.publishEvent(new BookingConfirmedEvent(updated.getId()));
+            } else if (updated.getStatus() == BookingStatus.CANCELLED) {
+                eventPublisher.publishEvent(new BookingCancelledEvent(updated.getId(), userId, newSlot.getId()));
+            }
         }
 
         return bookingMapper.bookingToBookingDTO(updated);
@@ -256,6 +447,7 @@ public class BookingServiceImpl implements BookingService {
 //    }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookingDTO> searchBookings(
             Long userId,
             Long studioId,
@@ -265,38 +457,23 @@ public class BookingServiceImpl implements BookingService {
     ) {
         Role role = currentUserService.getCurrentUserRole();
         Long me   = currentUserService.getCurrentUserId();
-        return bookingRepository.findAll().stream()
-                .filter(b -> switch (role) {
-                    case ADMIN, DEV -> true;
-                    case USER -> b.getUser().getId().equals(me);
-                    case USER_PRO -> {
-                        User admin = b.getTimeSlot().getStudio().getAdmin();
-                        yield admin != null && admin.getId().equals(me);
-                    }
-                })
-                .filter(b -> userId == null || b.getUser().getId().equals(userId))
-
-                .filter(b -> studioId == null || b.getTimeSlot().getStudio().getId().equals(studioId))
-
-                .filter(b -> status == null || b.getStatus() == status)
-
-                .filter(b -> start == null || !b.getTimeSlot().getDate().isBefore(start))
-
-                .filter(b -> end == null || !b.getTimeSlot().getDate().isAfter(end))
-                .map(bookingMapper::bookingToBookingDTO)
-                .collect(Collectors.toList());
+        return bookingRepository.searchDtos(
+                role == Role.USER ? me : null,
+                role == Role.USER_PRO ? me : null,
+                userId, studioId, status, start, end
+        );
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookingDTO> getMyHistory() {
         Long me = currentUserService.getCurrentUserId();
-        return bookingRepository.findByUserId(me).stream()
-                .map(bookingMapper::bookingToBookingDTO)
-                .toList();
+        return bookingRepository.findDtosByUserId(me);
     }
 
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookingDTO> getMyUpcoming() {
         Role role = currentUserService.getCurrentUserRole();
         Long me = currentUserService.getCurrentUserId();
@@ -306,19 +483,13 @@ public class BookingServiceImpl implements BookingService {
                 BookingStatus.PENDING,
                 BookingStatus.CONFIRMED
         );
-        return bookingRepository.findAll().stream()
-                .filter(b -> active.contains(b.getStatus()))
-                .filter(b -> !b.getTimeSlot().getDate().isBefore(today))
-                .filter(b -> switch (role) {
-                    case ADMIN, DEV -> true;
-                    case USER -> b.getUser().getId().equals(me);
-                    case USER_PRO -> {
-                        User admin = b.getTimeSlot().getStudio().getAdmin();
-                        yield admin != null && admin.getId().equals(me);
-                    }
-                })
-                .map(bookingMapper::bookingToBookingDTO)
-                .toList();
+        // cached by ETag, so never from a replica that has not seen the change behind the tag
+        return PrimaryReads.call(() -> bookingRepository.findUpcomingDtos(
+                active,
+                today,
+                role == Role.USER ? me : null,
+                role == Role.USER_PRO ? me : null
+        ));
     }
 
 }
@@ -0,0 +1,270 @@
+package com.fitness.services.impl;
+
+import com.fitness.config.datasource.PrimaryReads;
+import com.fitness.config.security.TokenHashes;
+import com.fitness.dto.CalendarEntry;
+import com.fitness.dto.CalendarFeedLinkDTO;
+import com.fitness.enums.BookingStatus;
+import com.fitness.enums.Role;
+import com.fitness.exceptions.InvalidTokenException;
+import com.fitness.exceptions.StudioNotFoundException;
+import com.fitness.exceptions.UserNotFoundException;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.fitness.models.Studio;
+import com.fitness.models.User;
+import com.fitness.repositories.BookingRepository;
+import com.fitness.repositories.StudioRepository;
+import com.fitness.repositories.TimeSlotRepository;
+import com.fitness.repositories.UserRepository;
+import com.fitness.services.interfaces.CalendarFeedService;
+import com.fitness.services.interfaces.CurrentUserService;
+import com.fitness.services.interfaces.ResourceVersionService;
+import com.fitness.services.interfaces.SecurityService;
+import com.fitness.web.ETags;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * iCalendar feeds for a user's bookings and a studio's schedule. Calendar apps poll these
+ * every few minutes, so each feed is rendered once per version and the bytes are kept in a
+ * bounded cache. The version is the ETag: the per-user booking counter (or the per-studio
+ * slot counter) plus the studio counter and the first day of the window, all bumped after
+ * commit by the booking, slot and studio writes. A poll with a current tag gets a 304
+ * without reading the feed rows; a stale cached feed is simply rendered again.
+ * <p>
+ * A render is cached under the tag read before it, so it reads from the primary: a lagging
+ * replica would store an old feed under a new tag, and every poll would get a 304 for it.
+ * Feeds differ a lot in size, so the cache is bounded by the bytes it holds, not by entries.
+ * <p>
+ * Calendar apps cannot send a bearer token, so subscriptions use a per-user feed token in
+ * the URL. Only its SHA-256 is stored; rotating the token revokes the old URL, and each poll
+ * resolves the token again, so a revoked or disabled user's feed stops at once.
+ */
+@Service
+public class CalendarFeedServiceImpl implements CalendarFeedService {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+
+    private final BookingRepository bookingRepository;
+    private final TimeSlotRepository timeSlotRepository;
+    private final StudioRepository studioRepository;
+    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final SecurityService securityService;
+    private final ResourceVersionService resourceVersionService;
+    private final TransactionTemplate readTx;
+    private final int pastDays;
+    private final ZoneId zone;
+    private final String uidDomain;
+    private final String baseUrl;
+    private final Cache<Long, Rendered> userFeeds;
+    private final Cache<Long, Rendered> studioFeeds;
+
+    public CalendarFeedServiceImpl(BookingRepository bookingRepository,
+                                   TimeSlotRepository timeSlotRepository,
+                                   StudioRepository studioRepository,
+                                   UserRepository userRepository,
+                                   CurrentUserService currentUserService,
+                                   SecurityService securityService,
+                                   ResourceVersionService resourceVersionService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.calendar.past-days:30}") int pastDays,
+                                   @Value("${app.calendar.time-zone:}") String timeZone,
+                                   @Value("${app.calendar.cache-size:64MB}") DataSize cacheSize,
+                                   @Value("${app.calendar.idle-timeout:PT1H}") Duration idleTimeout,
+                                   @Value("${app.url.base:http://localhost:8080}") String baseUrl) {
+        this.bookingRepository = bookingRepository;
+        this.timeSlotRepository = timeSlotRepository;
+        this.studioRepository = studioRepository;
+        this.userRepository = userRepository;
+        this.currentUserService = currentUserService;
+        this.securityService = securityService;
+        this.resourceVersionService = resourceVersionService;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.pastDays = pastDays;
+        this.zone = timeZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(timeZone);
+        this.uidDomain = URI.create(baseUrl).getHost();
+        this.baseUrl = baseUrl;
+        this.userFeeds = feedCache(cacheSize, idleTimeout);
+        this.studioFeeds = feedCache(cacheSize, idleTimeout);
+    }
+
+    private static Cache<Long, Rendered> feedCache(DataSize size, Duration idleTimeout) {
+        return Caffeine.newBuilder()
+                .maximumWeight(size.toBytes())
+                .weigher((Long key, Rendered feed) -> feed.body().length)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    @Override
+    public String myBookingsETag() {
+        return userETag(currentUserService.getCurrentUserId());
+    }
+
+    @Override
+    public byte[] myBookingsFeed() {
+        return bookingsFeed(currentUserService.getCurrentUserId());
+    }
+
+    @Override
+    public String bookingsETag(String feedToken) {
+        return userETag(feedUser(feedToken).getId());
+    }
+
+    @Override
+    public byte[] bookingsFeed(String feedToken) {
+        return bookingsFeed(feedUser(feedToken).getId());
+    }
+
+    private byte[] bookingsFeed(Long userId) {
+        return cached(userFeeds, userId, userETag(userId), () -> {
+            ICalendarWriter calendar = new ICalendarWriter("Fitness bookings", zone, uidDomain);
+            return PrimaryReads.call(() -> readTx.execute(status -> {
+                try (Stream<CalendarEntry> rows = bookingRepository.streamCalendarByUserId(
+                        userId, windowStart(), BookingStatus.CANCELLED)) {
+                    rows.forEach(row -> calendar.event("booking", row,
+                            "Training at " + row.getStudioName(), eventStatus(row.getStatus())));
+                }
+                return calendar.finish();
+            }));
+        });
+    }
+
+    @Override
+    public String studioScheduleETag(Long studioId) {
+        securityService.requireStudioOwnerOrAdminOrDev(studioId);
+        getStudioOrThrow(studioId);
+        return studioETag(studioId);
+    }
+
+    @Override
+    public byte[] studioScheduleFeed(Long studioId) {
+        securityService.requireStudioOwnerOrAdminOrDev(studioId);
+        return studioScheduleFeed(getStudioOrThrow(studioId));
+    }
+
+    @Override
+    public String studioScheduleETag(Long studioId, String feedToken) {
+        requireStudioAccess(feedUser(feedToken), getStudioOrThrow(studioId));
+        return studioETag(studioId);
+    }
+
+    @Override
+    public byte[] studioScheduleFeed(Long studioId, String feedToken) {
+        Studio studio = getStudioOrThrow(studioId);
+        requireStudioAccess(feedUser(feedToken), studio);
+        return studioScheduleFeed(studio);
+    }
+
+    private byte[] studioScheduleFeed(Studio studio) {
+        Long studioId = studio.getId();
+        return cached(studioFeeds, studioId, studioETag(studioId), () -> {
+            ICalendarWriter calendar = new ICalendarWriter(studio.getName() + " schedule", zone, uidDomain);
+            return PrimaryReads.call(() -> readTx.execute(status -> {
+                try (Stream<CalendarEntry> rows = timeSlotRepository.streamCalendarByStudioId(
+                        studioId, windowStart(), BookingStatus.CANCELLED)) {
+                    rows.forEach(row -> calendar.event("slot", row,
+                            row.getStatus() == null ? "Available" : "Booked", eventStatus(row.getStatus())));
+                }
+                return calendar.finish();
+            }));
+        });
+    }
+
+    @Override
+    @Transactional
+    public CalendarFeedLinkDTO rotateFeedToken() {
+        byte[] secret = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(secret);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        currentUserEntity().setCalendarTokenHash(TokenHashes.sha256(token));
+        return new CalendarFeedLinkDTO(token, baseUrl + "/api/bookings/calendar/" + token + ".ics");
+    }
+
+    @Override
+    @Transactional
+    public void revokeFeedToken() {
+        currentUserEntity().setCalendarTokenHash(null);
+    }
+
+    private User currentUserEntity() {
+        return userRepository.findById(currentUserService.getCurrentUserId())
+                .orElseThrow(() -> new UserNotFoundException(ErrorMessage.USER_NOT_FOUND));
+    }
+
+    private User feedUser(String feedToken) {
+        return userRepository.findByCalendarTokenHash(TokenHashes.sha256(feedToken))
+                .filter(User::isEnabled)
+                .orElseThrow(() -> new InvalidTokenException(ErrorMessage.INVALID_OR_EXPIRED_TOKEN));
+    }
+
+    // the studio feed's role check plus the ownership check, for the token's user
+    private static void requireStudioAccess(User user, Studio studio) {
+        Role role = user.getRole();
+        if (role == Role.ADMIN || role == Role.DEV) {
+            return;
+        }
+        if (role != Role.USER_PRO || studio.getAdmin() == null || !studio.getAdmin().getId().equals(user.getId())) {
+            throw new AccessDeniedException(ErrorMessage.ACCESS_DENIED_NOT_YOUR_STUDIO);
+        }
+    }
+
+    private static byte[] cached(Cache<Long, Rendered> cache, Long key, String etag, Supplier<byte[]> render) {
+        Rendered current = cache.getIfPresent(key);
+        if (current != null && current.etag().equals(etag)) {
+            return current.body();
+        }
+        // the tag is read before rendering, so a change that lands meanwhile forces another render
+        byte[] body = render.get();
+        cache.put(key, new Rendered(etag, body));
+        return body;
+    }
+
+    private String userETag(Long userId) {
+        return ETags.of(resourceVersionService.epoch(), "u" + userId,
+                resourceVersionService.bookingsVersion(userId),
+                resourceVersionService.studiosVersion(),
+                windowStart());
+    }
+
+    private String studioETag(Long studioId) {
+        return ETags.of(resourceVersionService.epoch(), "s" + studioId,
+                resourceVersionService.slotsVersion(studioId),
+                resourceVersionService.studiosVersion(),
+                windowStart());
+    }
+
+    private LocalDate windowStart() {
+        return LocalDate.now().minusDays(pastDays);
+    }
+
+    private Studio getStudioOrThrow(Long studioId) {
+        return studioRepository.findById(studioId)
+                .orElseThrow(() -> new StudioNotFoundException(ErrorMessage.STUDIO_NOT_FOUND));
+    }
+
+    private static String eventStatus(BookingStatus status) {
+        return status == BookingStatus.CONFIRMED ? "CONFIRMED" : "TENTATIVE";
+    }
+
+    private record Rendered(String etag, byte[] body) {
+    }
+}
@@ -8,6 +8,7 @@ import com.fitness.models.User;
 import com.fitness.repositories.UserRepository;
 import com.fitness.services.interfaces.ConfirmationService;
 import com.fitness.services.interfaces.EmailService;
+import com.fitness.services.interfaces.EntityCacheService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,6 +22,7 @@ public class ConfirmationServiceImpl implements ConfirmationService {
     private final UserDetailsService userDetailsService;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final EntityCacheService entityCacheService;
 
     @Override
     @Transactional
@@ -43,6 +45,7 @@ public class ConfirmationServiceImpl implements ConfirmationService {
 
         user.setEnabled(true);
         userRepository.save(user);
+        entityCacheService.userChanged(user.getId());
     }
 
     @Override
@@ -0,0 +1,67 @@
+package com.fitness.services.impl;
+
+import com.fitness.events.ClusterChanges;
+import com.fitness.models.Studio;
+import com.fitness.models.User;
+import com.fitness.services.interfaces.EntityCacheService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the Hibernate second-level cache regions of other nodes in step with writes. The
+ * regions are per-node heaps, and Hibernate only invalidates the node that wrote, so every
+ * write to a cached entity is published through {@link ClusterChanges} and the other nodes
+ * evict the entry when it commits. Studio changes also clear the query results region,
+ * whose invalidation timestamps are per node as well. When the listener may have missed
+ * changes, every region is cleared.
+ */
+@Service
+public class EntityCacheServiceImpl implements EntityCacheService {
+    private static final String USER = "cache.user";
+    private static final String STUDIO = "cache.studio";
+
+    private final Cache cache;
+    private final ClusterChanges clusterChanges;
+
+    public EntityCacheServiceImpl(EntityManagerFactory entityManagerFactory, ClusterChanges clusterChanges) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.clusterChanges = clusterChanges;
+        clusterChanges.subscribe(USER, payload -> evictUser(payload.isEmpty() ? null : Long.valueOf(payload)));
+        clusterChanges.subscribe(STUDIO, payload -> evictStudio(Long.valueOf(payload)));
+        clusterChanges.onResync(cache::evictAllRegions);
+    }
+
+    @Override
+    public void userChanged(Long userId) {
+        clusterChanges.publish(USER, userId.toString());
+        AfterCommit.run(() -> evictUser(userId));
+    }
+
+    /** Bulk deletes do not say which rows went, so the whole user region is cleared. */
+    @Override
+    public void usersDeleted() {
+        clusterChanges.publish(USER, "");
+        AfterCommit.run(() -> evictUser(null));
+    }
+
+    @Override
+    public void studioChanged(Long studioId) {
+        clusterChanges.publish(STUDIO, studioId.toString());
+        AfterCommit.run(() -> evictStudio(studioId));
+    }
+
+    private void evictUser(Long userId) {
+        if (userId == null) {
+            cache.evictEntityData(User.class);
+        } else {
+            cache.evictEntityData(User.class, userId);
+        }
+    }
+
+    private void evictStudio(Long studioId) {
+        cache.evictEntityData(Studio.class, studioId);
+        cache.evictDefaultQueryRegion();
+    }
+}
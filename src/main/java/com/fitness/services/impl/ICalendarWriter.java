@@ -0,0 +1,92 @@
+package com.fitness.services.impl;
+
+import com.fitness.dto.CalendarEntry;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Minimal RFC 5545 writer: CRLF line endings, text escaping and folding at 75 octets.
+ * Times are written in UTC, so the feed needs no VTIMEZONE component.
+ */
+final class ICalendarWriter {
+    private static final DateTimeFormatter UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+    private final ZoneId zone;
+    private final String uidDomain;
+    private final String stamp;
+
+    ICalendarWriter(String name, ZoneId zone, String uidDomain) {
+        this.zone = zone;
+        this.uidDomain = uidDomain;
+        this.stamp = UTC.format(Instant.now());
+        line("BEGIN:VCALENDAR");
+        line("VERSION:2.0");
+        line("PRODID:-//Fitness Trainer//Bookings//EN");
+        line("CALSCALE:GREGORIAN");
+        line("METHOD:PUBLISH");
+        line("X-WR-CALNAME:" + escape(name));
+    }
+
+    void event(String uidPrefix, CalendarEntry entry, String summary, String status) {
+        line("BEGIN:VEVENT");
+        line("UID:" + uidPrefix + "-" + entry.getId() + "@" + uidDomain);
+        line("DTSTAMP:" + stamp);
+        line("DTSTART:" + utc(entry.getDate(), entry.getStartTime()));
+        line("DTEND:" + utc(entry.getDate(), entry.getEndTime()));
+        line("SUMMARY:" + escape(summary));
+        line("LOCATION:" + escape(entry.getStudioAddress() == null
+                ? entry.getStudioName()
+                : entry.getStudioName() + ", " + entry.getStudioAddress()));
+        line("STATUS:" + status);
+        line("END:VEVENT");
+    }
+
+    byte[] finish() {
+        line("END:VCALENDAR");
+        return out.toByteArray();
+    }
+
+    private String utc(LocalDate date, LocalTime time) {
+        return UTC.format(date.atTime(time).atZone(zone));
+    }
+
+    private void line(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        int start = 0;
+        int limit = MAX_LINE_OCTETS;
+        while (bytes.length - start > limit) {
+            int end = start + limit;
+            // never split a multi-byte character
+            while ((bytes[end] & 0xC0) == 0x80) {
+                end--;
+            }
+            out.write(bytes, start, end - start);
+            out.write('\r');
+            out.write('\n');
+            out.write(' ');
+            start = end;
+            limit = MAX_LINE_OCTETS - 1;
+        }
+        out.write(bytes, start, bytes.length - start);
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,223 @@
+package com.fitness.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.config.datasource.PrimaryReads;
+import com.fitness.config.security.TokenHashes;
+import com.fitness.exceptions.IdempotencyConflictException;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.fitness.models.IdempotencyRecord;
+import com.fitness.repositories.IdempotencyRecordRepository;
+import com.fitness.services.interfaces.CurrentUserService;
+import com.fitness.services.interfaces.IdempotencyService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Remembers successful responses per (scope, current user, Idempotency-Key) for
+ * {@code app.idempotency.ttl} in {@code idempotency_record}, with a bounded in-memory cache in
+ * front for replays on the same node. Before running, a request claims its key by inserting a
+ * pending row; the unique key hash lets only one request on any node win, and the response is
+ * filled in when it succeeds. Duplicates wait for the response, on this node through the
+ * running request's future and on other nodes by polling the row, and replay it. A failed
+ * request deletes its claim, so failures are not remembered. A claim whose node died expires
+ * after {@code app.idempotency.claim-ttl} and can then be taken over.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    private final IdempotencyRecordRepository recordRepository;
+    private final CurrentUserService currentUserService;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration claimTtl;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+    private final Cache<String, IdempotencyRecord> completed;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository recordRepository,
+                                  CurrentUserService currentUserService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                                  @Value("${app.idempotency.claim-ttl:PT2M}") Duration claimTtl,
+                                  @Value("${app.idempotency.wait-timeout:PT30S}") Duration waitTimeout,
+                                  @Value("${app.idempotency.poll-interval:PT0.2S}") Duration pollInterval,
+                                  @Value("${app.idempotency.max-entries:10000}") long maxEntries) {
+        this.recordRepository = recordRepository;
+        this.currentUserService = currentUserService;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.claimTtl = claimTtl;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String keyHash = TokenHashes.sha256(scope + ":" + currentUserService.getCurrentUserId() + ":" + key);
+        String requestHash = TokenHashes.sha256(write(request));
+
+        IdempotencyRecord stored = completed.getIfPresent(keyHash);
+        if (stored != null) {
+            return replay(stored, requestHash, responseType);
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(keyHash, mine);
+        if (running != null) {
+            if (!running.requestHash().equals(requestHash)) {
+                throw new IdempotencyConflictException(ErrorMessage.IDEMPOTENCY_KEY_REUSED);
+            }
+            return read(await(running.response()), responseType);
+        }
+
+        try {
+            String replayed = claimOrAwait(keyHash, requestHash);
+            if (replayed != null) {
+                mine.response().complete(replayed);
+                return read(replayed, responseType);
+            }
+            T result;
+            try {
+                result = action.get();
+            } catch (RuntimeException e) {
+                release(keyHash, requestHash);
+                throw e;
+            }
+            String body = write(result);
+            remember(keyHash, requestHash, body);
+            mine.response().complete(body);
+            return result;
+        } catch (RuntimeException e) {
+            mine.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(keyHash, mine);
+        }
+    }
+
+    /**
+     * Claims the key and returns null, or returns the response of the request that holds it
+     * once that one has finished. If the holder fails and releases its claim, the key is
+     * claimed again.
+     */
+    private String claimOrAwait(String keyHash, String requestHash) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            if (recordRepository.claim(keyHash, requestHash, now, now.plus(claimTtl)) == 1) {
+                return null;
+            }
+            // the claim was made on the primary, so a replica may not have seen it yet
+            IdempotencyRecord existing = PrimaryReads.call(() ->
+                    recordRepository.findByKeyHashAndExpiresAtAfter(keyHash, now)).orElse(null);
+            if (existing != null) {
+                if (!existing.getRequestHash().equals(requestHash)) {
+                    throw new IdempotencyConflictException(ErrorMessage.IDEMPOTENCY_KEY_REUSED);
+                }
+                if (existing.getResponseBody() != null) {
+                    completed.put(keyHash, existing);
+                    return existing.getResponseBody();
+                }
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw new IdempotencyConflictException(ErrorMessage.IDEMPOTENCY_KEY_IN_PROGRESS);
+            }
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyConflictException(ErrorMessage.IDEMPOTENCY_KEY_IN_PROGRESS);
+            }
+        }
+    }
+
+    /**
+     * The action has already committed, so a failure to store its response is not passed on
+     * to the caller; the key stays claimed and duplicates get "in progress" until the claim
+     * expires.
+     */
+    private void remember(String keyHash, String requestHash, String body) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        completed.put(keyHash, IdempotencyRecord.builder()
+                .keyHash(keyHash)
+                .requestHash(requestHash)
+                .responseBody(body)
+                .expiresAt(expiresAt)
+                .build());
+        try {
+            if (recordRepository.complete(keyHash, requestHash, body, expiresAt) == 0) {
+                log.warn("Idempotency claim expired before its response was stored");
+            }
+        } catch (DataAccessException e) {
+            log.error("Could not store the idempotent response, the key stays claimed: {}", e.getMessage());
+        }
+    }
+
+    private void release(String keyHash, String requestHash) {
+        try {
+            recordRepository.release(keyHash, requestHash);
+        } catch (DataAccessException e) {
+            log.warn("Could not release idempotency claim, it expires after {}: {}", claimTtl, e.getMessage());
+        }
+    }
+
+    private <T> T replay(IdempotencyRecord stored, String requestHash, Class<T> responseType) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException(ErrorMessage.IDEMPOTENCY_KEY_REUSED);
+        }
+        return read(stored.getResponseBody(), responseType);
+    }
+
+    private String await(CompletableFuture<String> response) {
+        try {
+            return response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException(ErrorMessage.IDEMPOTENCY_KEY_IN_PROGRESS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException(ErrorMessage.IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<String> response) {
+    }
+}
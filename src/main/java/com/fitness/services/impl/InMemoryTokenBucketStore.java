@@ -0,0 +1,58 @@
+package com.fitness.services.impl;
+
+import com.fitness.config.RateLimitProperties;
+import com.fitness.services.interfaces.TokenBucketStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Buckets live in a size-bounded Caffeine map (internally lock-striped) and are dropped
+ * after {@code app.rate-limit.idle-timeout} without requests; a dropped bucket comes back
+ * full, which is what an idle client would have refilled to anyway.
+ */
+@Service
+@ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTokenBucketStore implements TokenBucketStore {
+    private final Cache<String, Bucket> buckets;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public InMemoryTokenBucketStore(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    InMemoryTokenBucketStore(RateLimitProperties properties, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+
+    @Override
+    public long tryConsume(String key, int capacity, Duration refillPeriod) {
+        double tokensPerNano = capacity / (double) refillPeriod.toNanos();
+        long now = nanoClock.getAsLong();
+        long[] waitNanos = {0};
+        buckets.asMap().compute(key, (k, bucket) -> {
+            double tokens = bucket == null
+                    ? capacity
+                    : Math.min(capacity, bucket.tokens() + (now - bucket.refilledAt()) * tokensPerNano);
+            if (tokens >= 1) {
+                return new Bucket(tokens - 1, now);
+            }
+            waitNanos[0] = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            return new Bucket(tokens, now);
+        });
+        return waitNanos[0];
+    }
+
+    private record Bucket(double tokens, long refilledAt) {
+    }
+}
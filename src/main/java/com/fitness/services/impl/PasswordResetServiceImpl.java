@@ -4,6 +4,7 @@ import com.fitness.config.security.JwtService;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
 import com.fitness.repositories.UserRepository;
 import com.fitness.services.interfaces.EmailService;
+import com.fitness.services.interfaces.EntityCacheService;
 import com.fitness.services.interfaces.PasswordResetService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +22,7 @@ public class PasswordResetServiceImpl implements PasswordResetService {
     private final UserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final EntityCacheService entityCacheService;
 
     @Override
     public void requestReset(String email) {
@@ -42,6 +44,7 @@ public class PasswordResetServiceImpl implements PasswordResetService {
                 .orElseThrow(() -> new InvalidTokenException(ErrorMessage.INVALID_OR_EXPIRED_TOKEN));
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        entityCacheService.userChanged(user.getId());
     }
 }
 
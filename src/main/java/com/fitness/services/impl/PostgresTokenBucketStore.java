@@ -0,0 +1,40 @@
+package com.fitness.services.impl;
+
+import com.fitness.config.RateLimitProperties;
+import com.fitness.repositories.RateLimitBucketRepository;
+import com.fitness.services.interfaces.TokenBucketStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared buckets for multi-node deployments: refill and take happen in one upsert on the
+ * database clock, so every node sees the same budget per key.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "postgres")
+public class PostgresTokenBucketStore implements TokenBucketStore {
+    private final RateLimitBucketRepository bucketRepository;
+    private final RateLimitProperties properties;
+
+    @Override
+    public long tryConsume(String key, int capacity, Duration refillPeriod) {
+        double tokensPerSecond = capacity / (refillPeriod.toMillis() / 1000.0);
+        RateLimitBucketRepository.BucketState state = bucketRepository.consume(key, capacity, tokensPerSecond);
+        if (Boolean.TRUE.equals(state.getAllowed())) {
+            return 0;
+        }
+        double waitSeconds = (1 - state.getTokens()) / tokensPerSecond;
+        return Math.max(1, (long) Math.ceil(waitSeconds * TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.purge-interval-ms:600000}")
+    public void purgeIdleBuckets() {
+        bucketRepository.deleteIdle(properties.getIdleTimeout().toMillis() / 1000.0);
+    }
+}
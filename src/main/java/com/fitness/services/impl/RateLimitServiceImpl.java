@@ -0,0 +1,36 @@
+package com.fitness.services.impl;
+
+import com.fitness.config.RateLimitProperties;
+import com.fitness.exceptions.RateLimitExceededException;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.fitness.services.interfaces.RateLimitService;
+import com.fitness.services.interfaces.TokenBucketStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+public class RateLimitServiceImpl implements RateLimitService {
+    private final TokenBucketStore tokenBucketStore;
+    private final RateLimitProperties properties;
+
+    @Override
+    public void consume(String policy, String key) {
+        if (!properties.isEnabled() || key == null || key.isBlank()) {
+            return;
+        }
+        RateLimitProperties.Policy limits = properties.getPolicies().get(policy);
+        if (limits == null) {
+            throw new IllegalStateException("No rate limit policy configured for " + policy);
+        }
+        String bucketKey = policy + ":" + key.trim().toLowerCase(Locale.ROOT);
+        long waitNanos = tokenBucketStore.tryConsume(bucketKey, limits.getCapacity(), limits.getRefillPeriod());
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            throw new RateLimitExceededException(ErrorMessage.TOO_MANY_REQUESTS, retryAfter);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.fitness.services.impl;
+
+import com.fitness.events.ClusterChanges;
+import com.fitness.services.interfaces.ResourceVersionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version counters used to build ETags. Counters restart from zero on every boot,
+ * so each process gets a random epoch that is part of every tag; versions are only bumped
+ * once the writing transaction has committed, so a 304 never hides committed data.
+ * After-commit callbacks run in registration order, so writers update the read models a
+ * tag covers (the availability index) before registering the bump; otherwise a read in
+ * between could pair the new tag with the old data and be answered 304 until the next write.
+ * <p>
+ * Counters are per JVM, so every change is also published through {@link ClusterChanges}
+ * and the other nodes bump the same counters when it commits. A tag is only valid on the
+ * node that issued it (the epochs differ), so clients hopping between nodes see more 200s;
+ * after a change on another node, a node may answer 304 for the few milliseconds until the
+ * notification arrives. When the listener loses its connection the epoch is drawn again, so
+ * no tag survives a gap in which changes may have been missed. Processes restored from the
+ * same checkpoint share their counters, so the epoch is also drawn again on restore.
+ * <p>
+ * A user's bookings version is the global bookings version of their last change, kept for
+ * the {@code MAX_TRACKED_USERS} most active users. An evicted user reads the highest
+ * version ever evicted: never lower than their own last change, so a tag issued before
+ * a later change cannot match again; it only costs evicted users an extra 200.
+ */
+@Service
+public class ResourceVersionServiceImpl implements ResourceVersionService {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int MAX_TRACKED_USERS = 100_000;
+    private static final String STUDIOS = "versions.studios";
+    private static final String SLOTS = "versions.slots";
+    private static final String BOOKINGS = "versions.bookings";
+
+    private volatile long epoch = randomEpoch();
+
+    private final AtomicLong studios = new AtomicLong();
+    private final AtomicLong slots = new AtomicLong();
+    private final AtomicLong bookings = new AtomicLong();
+    private final ConcurrentMap<Long, AtomicLong> slotsByStudio = new ConcurrentHashMap<>();
+    private final AtomicLong evictedBookings = new AtomicLong();
+    private final Cache<Long, Long> bookingsByUser;
+    private final ClusterChanges clusterChanges;
+
+    public ResourceVersionServiceImpl(ClusterChanges clusterChanges) {
+        this(clusterChanges, MAX_TRACKED_USERS);
+    }
+
+    ResourceVersionServiceImpl(ClusterChanges clusterChanges, int maxTrackedUsers) {
+        this.clusterChanges = clusterChanges;
+        this.bookingsByUser = Caffeine.newBuilder()
+                .maximumSize(maxTrackedUsers)
+                // evict on the writing thread, so the floor is raised before the write returns
+                .executor(Runnable::run)
+                .<Long, Long>evictionListener((userId, version, cause) ->
+                        evictedBookings.accumulateAndGet(version, Math::max))
+                .build();
+        clusterChanges.subscribe(STUDIOS, payload -> bumpStudios());
+        clusterChanges.subscribe(SLOTS, payload -> bumpSlots(Long.valueOf(payload)));
+        clusterChanges.subscribe(BOOKINGS, payload -> bumpBookings(Long.valueOf(payload)));
+        clusterChanges.onResync(this::resetEpoch);
+    }
+
+    @Override
+    public long epoch() {
+        return epoch;
+    }
+
+    @Override
+    public void resetEpoch() {
+        epoch = randomEpoch();
+    }
+
+    @Override
+    public long studiosVersion() {
+        return studios.get();
+    }
+
+    @Override
+    public long slotsVersion() {
+        return slots.get();
+    }
+
+    @Override
+    public long slotsVersion(Long studioId) {
+        AtomicLong counter = slotsByStudio.get(studioId);
+        return counter == null ? 0L : counter.get();
+    }
+
+    @Override
+    public long bookingsVersion() {
+        return bookings.get();
+    }
+
+    @Override
+    public long bookingsVersion(Long userId) {
+        Long version = bookingsByUser.getIfPresent(userId);
+        return version != null ? version : evictedBookings.get();
+    }
+
+    @Override
+    public void studiosChanged() {
+        clusterChanges.publish(STUDIOS, "");
+        AfterCommit.run(this::bumpStudios);
+    }
+
+    @Override
+    public void slotsChanged(Long studioId) {
+        clusterChanges.publish(SLOTS, studioId.toString());
+        AfterCommit.run(() -> bumpSlots(studioId));
+    }
+
+    @Override
+    public void bookingsChanged(Long userId) {
+        clusterChanges.publish(BOOKINGS, userId.toString());
+        AfterCommit.run(() -> bumpBookings(userId));
+    }
+
+    private void bumpStudios() {
+        studios.incrementAndGet();
+    }
+
+    private void bumpSlots(Long studioId) {
+        slotsByStudio.computeIfAbsent(studioId, id -> new AtomicLong()).incrementAndGet();
+        slots.incrementAndGet();
+    }
+
+    private void bumpBookings(Long userId) {
+        bookingsByUser.asMap().compute(userId, (id, previous) -> bookings.incrementAndGet());
+    }
+
+    private static long randomEpoch() {
+        return RANDOM.nextLong() & Long.MAX_VALUE;
+    }
+}
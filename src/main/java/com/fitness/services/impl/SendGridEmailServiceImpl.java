@@ -1,6 +1,7 @@
 package com.fitness.services.impl;
 import com.fitness.models.Booking;
 import com.fitness.models.User;
+import com.sendgrid.Client;
 import com.sendgrid.Method;
 import com.sendgrid.Request;
 import com.sendgrid.Response;
@@ -10,16 +11,27 @@ import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
 import com.fitness.services.interfaces.EmailService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Service;
 import org.springframework.core.env.Environment;
 
+import java.io.IOException;
 import java.util.List;
 
+/**
+ * Sends through one pooled HTTP client. The client is a lifecycle bean, so its connections
+ * are closed before a checkpoint and a fresh client is opened after restore.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class SendGridEmailServiceImpl implements EmailService {
+public class SendGridEmailServiceImpl implements EmailService, SmartLifecycle {
     private final Environment env;
+    private volatile CloseableHttpClient httpClient;
     @Value("${app.sendgrid.api-key}")
     private String apiKey;
 
@@ -36,7 +48,7 @@ public class SendGridEmailServiceImpl implements EmailService {
             Content content = new Content("text/plain", body);
             Mail mail = new Mail(fromEmail, subject, toEmail, content);
 
-            SendGrid sg = new SendGrid(apiKey);
+            SendGrid sg = sendGrid();
             Request req = new Request();
             req.setMethod(Method.POST);
             req.setEndpoint("mail/send");
@@ -89,6 +101,34 @@ public class SendGridEmailServiceImpl implements EmailService {
 
 
 
+    private SendGrid sendGrid() {
+        CloseableHttpClient client = httpClient;
+        return client != null ? new SendGrid(apiKey, new Client(client)) : new SendGrid(apiKey);
+    }
+
+    @Override
+    public void start() {
+        httpClient = HttpClients.createDefault();
+    }
+
+    @Override
+    public void stop() {
+        CloseableHttpClient client = httpClient;
+        httpClient = null;
+        if (client != null) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("SendGrid client close failed", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return httpClient != null;
+    }
+
     private void devPrint(String type, String email, String link) {
         if (!List.of(env.getActiveProfiles()).contains("prod")) {
             System.out.printf("⇢ DEV %s link for %s: %s%n", type, email, link);
@@ -1,30 +1,36 @@
 package com.fitness.services.impl;
 
+import com.fitness.config.datasource.PrimaryReads;
+import com.fitness.dto.StudioBookingExportRow;
 import com.fitness.dto.StudioCreateUpdateDTO;
 import com.fitness.dto.StudioDTO;
 import com.fitness.dto.UserDTO;
+import com.fitness.exceptions.InvalidDateRangeException;
 import com.fitness.exceptions.StudioAlreadyExistsException;
 import com.fitness.exceptions.StudioNotFoundException;
 import com.fitness.exceptions.UserNotFoundException;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
 import com.fitness.mappers.StudioMapper;
-import com.fitness.mappers.UserMapper;
 import com.fitness.models.Studio;
 import com.fitness.models.User;
 import com.fitness.repositories.BookingRepository;
 import com.fitness.repositories.StudioRepository;
 import com.fitness.repositories.UserRepository;
+import com.fitness.services.interfaces.EntityCacheService;
+import com.fitness.services.interfaces.ResourceVersionService;
 import com.fitness.services.interfaces.StudioService;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import com.fitness.services.interfaces.SecurityService;
 
 @Service
@@ -37,8 +43,10 @@ public class StudioServiceImpl implements StudioService {
     private final StudioMapper studioMapper;
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
-    private final UserMapper userMapper;
     private final SecurityService securityService;
+    private final ResourceVersionService resourceVersionService;
+    private final EntityCacheService entityCacheService;
+    private final PlatformTransactionManager transactionManager;
     @Override
     public StudioDTO createStudio(StudioCreateUpdateDTO dto) {
         securityService.requireAdminOrDev();
@@ -49,14 +57,16 @@ public class StudioServiceImpl implements StudioService {
         studio.setName(dto.getName());
         studio.setAddress(dto.getAddress());
         studio = studioRepository.save(studio);
+        entityCacheService.studioChanged(studio.getId());
+        resourceVersionService.studiosChanged();
         return studioMapper.studioToStudioDTO(studio);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public StudioDTO getStudio(Long id) {
-        Studio studio = studioRepository.findById(id)
+        return studioRepository.findDtoById(id)
                 .orElseThrow(() -> new StudioNotFoundException(ErrorMessage.STUDIO_NOT_FOUND));
-        return studioMapper.studioToStudioDTO(studio);
     }
 
     @Override
@@ -73,6 +83,8 @@ public class StudioServiceImpl implements StudioService {
         studio.setAddress(dto.getAddress());
 
         studio = studioRepository.save(studio);
+        entityCacheService.studioChanged(studio.getId());
+        resourceVersionService.studiosChanged();
         return studioMapper.studioToStudioDTO(studio);
     }
 
@@ -83,24 +95,25 @@ public class StudioServiceImpl implements StudioService {
                 .orElseThrow(() -> new StudioNotFoundException(ErrorMessage.STUDIO_NOT_FOUND));
 
         studioRepository.delete(studio);
+        entityCacheService.studioChanged(studio.getId());
+        resourceVersionService.studiosChanged();
     }
     @Override
+    @Transactional(readOnly = true)
     public List<StudioDTO> getAllStudios() {
-        return studioRepository.findAll(Sort.by("id")).stream()
-                .map(studioMapper::studioToStudioDTO)
-                .collect(Collectors.toList());
+        // cached by ETag, so never from a replica that has not seen the change behind the tag
+        return PrimaryReads.call(studioRepository::findAllDtos);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Long countUniqueClients(Long studioId, LocalDate start, LocalDate end) {
         securityService.requireStudioOwnerOrAdminOrDev(studioId);
-        List<User> users = bookingRepository.findDistinctUsersByStudioAndPeriod(
-                studioId, start, end
-        );
-        return (long) users.size();
+        return bookingRepository.countDistinctUsersByStudioAndPeriod(studioId, start, end);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<LocalDate, Integer> getOccupancy(Long studioId, LocalDate start, LocalDate end) {
         securityService.requireStudioOwnerOrAdminOrDev(studioId);
         List<Object[]> results = bookingRepository.countBookingsPerDate(
@@ -120,13 +133,29 @@ public class StudioServiceImpl implements StudioService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserDTO> getUniqueClientsByStudio(Long studioId) {
         securityService.requireStudioOwnerOrAdminOrDev(studioId);
+        return userRepository.findDistinctUserDtosByStudioId(studioId);
+    }
 
-        List<User> users = userRepository.findDistinctUsersByStudioId(studioId);
-        return users.stream()
-                .map(userMapper::userToUserDTO)
-                .collect(Collectors.toList());
+    @Override
+    public Consumer<Consumer<StudioBookingExportRow>> exportBookings(Long studioId, LocalDate from, LocalDate to) {
+        securityService.requireStudioOwnerOrAdminOrDev(studioId);
+        if (to.isBefore(from)) {
+            throw new InvalidDateRangeException(ErrorMessage.INVALID_DATE_RANGE);
+        }
+        if (!studioRepository.existsById(studioId)) {
+            throw new StudioNotFoundException(ErrorMessage.STUDIO_NOT_FOUND);
+        }
+        TransactionTemplate readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        // DTO rows are not kept by the persistence context, so only one fetch is in memory at a time
+        return sink -> readTx.executeWithoutResult(status -> {
+            try (Stream<StudioBookingExportRow> rows = bookingRepository.streamExportByStudioId(studioId, from, to)) {
+                rows.forEach(sink);
+            }
+        });
     }
 
 
@@ -145,6 +174,8 @@ public class StudioServiceImpl implements StudioService {
 
         studio.setAdmin(newAdmin);
         Studio saved = studioRepository.save(studio);
+        entityCacheService.studioChanged(saved.getId());
+        resourceVersionService.studiosChanged();
 
 
         return studioMapper.studioToStudioDTO(saved);
@@ -1,6 +1,7 @@
 package com.fitness.services.impl;
 
 
+import com.fitness.dto.BookedInterval;
 import com.fitness.dto.TimeSlotCreateDTO;
 import com.fitness.dto.TimeSlotDTO;
 import com.fitness.dto.TimeSlotUpdateDTO;
@@ -8,22 +9,29 @@ import com.fitness.enums.BookingStatus;
 import com.fitness.exceptions.*;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
 import com.fitness.mappers.TimeSlotMapper;
-import com.fitness.models.Booking;
 import com.fitness.models.Studio;
 import com.fitness.models.TimeSlot;
 import com.fitness.repositories.BookingRepository;
 import com.fitness.repositories.StudioRepository;
 import com.fitness.repositories.TimeSlotRepository;
+import com.fitness.services.interfaces.AvailabilityIndex;
+import com.fitness.services.interfaces.ResourceVersionService;
 import com.fitness.services.interfaces.TimeSlotService;
-import jakarta.transaction.Transactional;
+import com.fitness.web.ETags;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.fitness.services.interfaces.SecurityService;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 
@@ -39,6 +47,8 @@ public class TimeSlotServiceImpl implements TimeSlotService {
     private final TimeSlotMapper timeSlotMapper;
     private final SecurityService securityService;
     private final BookingRepository bookingRepository;
+    private final ResourceVersionService resourceVersionService;
+    private final AvailabilityIndex availabilityIndex;
 
     @Transactional
     @Override
@@ -77,21 +87,25 @@ public class TimeSlotServiceImpl implements TimeSlotService {
         timeSlot.setTrial(isTrial);
 
         TimeSlot saved = timeSlotRepository.save(timeSlot);
-        return timeSlotMapper.timeSlotToTimeSlotDTO(saved);
+        TimeSlotDTO created = timeSlotMapper.timeSlotToTimeSlotDTO(saved);
+        availabilityIndex.slotSaved(created);
+        resourceVersionService.slotsChanged(studio.getId());
+        return created;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public TimeSlotDTO getTimeSlot(Long id) {
-        TimeSlot timeSlot = timeSlotRepository.findById(id)
+        return timeSlotRepository.findDtoById(id)
                 .orElseThrow(() -> new TimeSlotNotFoundException(ErrorMessage.TIME_SLOT_NOT_FOUND));
-        return timeSlotMapper.timeSlotToTimeSlotDTO(timeSlot);
     }
 
     @Override
-    public List<TimeSlotDTO> getAllTimeSlots() {
-        return timeSlotRepository.findAll().stream()
-                .map(timeSlotMapper::timeSlotToTimeSlotDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void streamAllTimeSlots(Consumer<TimeSlotDTO> sink) {
+        try (Stream<TimeSlotDTO> rows = timeSlotRepository.streamAllAsDto()) {
+            rows.forEach(sink);
+        }
     }
 
     @Transactional
@@ -127,7 +141,12 @@ public class TimeSlotServiceImpl implements TimeSlotService {
         );
 
         TimeSlot updated = timeSlotRepository.save(slot);
-        return timeSlotMapper.timeSlotToTimeSlotDTO(updated);
+        TimeSlotDTO result = timeSlotMapper.timeSlotToTimeSlotDTO(updated);
+        availabilityIndex.slotSaved(result);
+        resourceVersionService.slotsChanged(studioId);
+        bookingRepository.findUserIdsByTimeSlotId(id, BookingStatus.CANCELLED)
+                .forEach(resourceVersionService::bookingsChanged);
+        return result;
     }
 
     @Override
@@ -142,51 +161,80 @@ public class TimeSlotServiceImpl implements TimeSlotService {
         }
 
         timeSlotRepository.delete(timeSlot);
+        availabilityIndex.slotDeleted(id);
+        resourceVersionService.slotsChanged(timeSlot.getStudio().getId());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<TimeSlotDTO> getTimeSlotsByStudio(Long studioId) {
         securityService.requireStudioOwnerOrAdminOrDev(studioId);
-        return timeSlotRepository.findByStudioId(studioId).stream()
-                .map(timeSlotMapper::timeSlotToTimeSlotDTO)
-                .collect(Collectors.toList());
+        return timeSlotRepository.findDtosByStudioId(studioId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<TimeSlotDTO> getTimeSlotsByStudioAndDateRange(Long studioId, LocalDate startDate, LocalDate endDate) {
         securityService.requireStudioOwnerOrAdminOrDev(studioId);
-        return timeSlotRepository.findByStudioIdAndDateBetween(studioId, startDate, endDate).stream()
-                .map(timeSlotMapper::timeSlotToTimeSlotDTO)
-                .collect(Collectors.toList());
+        return timeSlotRepository.findDtosByStudioIdAndDateBetween(studioId, startDate, endDate);
     }
 
+    @Override
+    public String availableSlotsETag(Long studioId) {
+        // authorize before revealing whether the studio's slots changed
+        securityService.requireStudioOwnerOrAdminOrDev(studioId);
+        return ETags.of(
+                resourceVersionService.epoch(),
+                resourceVersionService.slotsVersion(studioId),
+                resourceVersionService.bookingsVersion());
+    }
 
     @Override
+    @Transactional(readOnly = true)
     public List<TimeSlotDTO> getAvailableSlotsByStudio(Long studioId,
                                                        LocalDate startDate,
                                                        LocalDate endDate) {
+        return getAvailableSlots(List.of(studioId), startDate, endDate);
+    }
 
-        securityService.requireStudioOwnerOrAdminOrDev(studioId);
+    @Override
+    @Transactional(readOnly = true)
+    public List<TimeSlotDTO> getAvailableSlots(List<Long> studioIds,
+                                               LocalDate startDate,
+                                               LocalDate endDate) {
+
+        studioIds.forEach(securityService::requireStudioOwnerOrAdminOrDev);
 
-        List<TimeSlot> candidates = timeSlotRepository
-                .findByStudioIdAndDateBetweenAndAvailableTrue(studioId, startDate, endDate);
+        return availabilityIndex.findAvailable(studioIds, startDate, endDate)
+                .orElseGet(() -> findAvailableFromDb(studioIds, startDate, endDate));
+    }
+
+    private List<TimeSlotDTO> findAvailableFromDb(List<Long> studioIds,
+                                                  LocalDate startDate,
+                                                  LocalDate endDate) {
+        List<TimeSlotDTO> candidates = new ArrayList<>();
+        for (Long studioId : studioIds) {
+            candidates.addAll(timeSlotRepository
+                    .findAvailableDtosByStudioIdAndDateBetween(studioId, startDate, endDate));
+        }
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        Map<LocalDate, List<BookedInterval>> bookedByDate = bookingRepository
+                .findBookedIntervals(startDate, endDate, BookingStatus.CANCELLED).stream()
+                .collect(Collectors.groupingBy(BookedInterval::getDate));
 
         return candidates.stream()
                 .filter(candidate -> {
-                    LocalDate date = candidate.getDate();
                     LocalTime s1 = candidate.getStartTime();
                     LocalTime e1 = candidate.getEndTime();
 
-
-                    List<Booking> bookings = bookingRepository
-                            .findByTimeSlot_DateAndStatusNot(date, BookingStatus.CANCELLED);
-
-                    for (Booking b : bookings) {
-                        TimeSlot ex = b.getTimeSlot();
+                    for (BookedInterval ex : bookedByDate.getOrDefault(candidate.getDate(), List.of())) {
                         LocalTime s2 = ex.getStartTime();
                         LocalTime e2 = ex.getEndTime();
 
-                        boolean sameStudio = ex.getStudio().getId().equals(studioId);
+                        boolean sameStudio = ex.getStudioId().equals(candidate.getStudioId());
 
                         if (sameStudio) {
                             boolean overlaps = s1.isBefore(e2) && e1.isAfter(s2);
@@ -204,7 +252,9 @@ public class TimeSlotServiceImpl implements TimeSlotService {
                     }
                     return true;
                 })
-                .map(timeSlotMapper::timeSlotToTimeSlotDTO)
+                .sorted(Comparator.comparing(TimeSlotDTO::getDate)
+                        .thenComparing(TimeSlotDTO::getStartTime)
+                        .thenComparing(TimeSlotDTO::getStudioId))
                 .collect(Collectors.toList());
     }
 }
@@ -5,10 +5,12 @@ import com.fitness.enums.BookingStatus;
 import com.fitness.exceptions.UserHasActiveBookings;
 import com.fitness.repositories.BookingRepository;
 import com.fitness.services.interfaces.EmailService;
+import com.fitness.services.interfaces.EntityCacheService;
 import com.fitness.dto.ChangePasswordRequest;
 import com.fitness.dto.RegisterUserRequest;
 import com.fitness.dto.UpdateUserRequest;
 import com.fitness.dto.UserDTO;
+import com.fitness.dto.UserSearchPage;
 import com.fitness.enums.Role;
 import com.fitness.exceptions.UserNotFoundException;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
@@ -16,18 +18,23 @@ import com.fitness.mappers.UserMapper;
 import com.fitness.models.User;
 import com.fitness.repositories.UserRepository;
 import com.fitness.services.interfaces.UserService;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import com.fitness.services.interfaces.SecurityService;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    static final int MAX_SEARCH_LIMIT = 200;
+    private static final int MIN_PHONE_DIGITS = 3;
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
@@ -36,6 +43,7 @@ public class UserServiceImpl implements UserService {
     private final JwtService jwtService;
     private final EmailService emailService;
     private final BookingRepository bookingRepository;
+    private final EntityCacheService entityCacheService;
 
 
     @Override
@@ -68,11 +76,39 @@ public class UserServiceImpl implements UserService {
             return userMapper.userToUserDTO(user);
         }
     @Override
-    public List<UserDTO> getAllUsers() {
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserDTO> sink) {
+        securityService.requireAdminOrDev();
+        try (Stream<UserDTO> rows = userRepository.streamAllAsDto()) {
+            rows.forEach(sink);
+        }
+    }
+
+    /**
+     * One extra row is read to tell whether another page follows. Wildcards typed by the
+     * admin are escaped, so only the prefix and fuzzy matching of the query apply.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserSearchPage searchUsers(String query, Role role, Boolean enabled, Long after, int limit) {
         securityService.requireAdminOrDev();
-        return userRepository.findAll().stream()
-                .map(userMapper::userToUserDTO)
-                .collect(Collectors.toList());
+        int pageSize = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        String normalized = query == null || query.isBlank() ? null : query.trim().toLowerCase(Locale.ROOT);
+        String prefix = normalized == null ? null : escapeLike(normalized) + "%";
+        String digits = normalized == null ? "" : normalized.replaceAll("[^0-9]", "");
+        String phonePrefix = digits.length() < MIN_PHONE_DIGITS ? null : digits + "%";
+
+        List<User> found = userRepository.search(normalized, prefix, phonePrefix,
+                role == null ? null : role.name(), enabled, after == null ? 0L : after, pageSize + 1);
+        boolean more = found.size() > pageSize;
+        List<User> page = more ? found.subList(0, pageSize) : found;
+        return new UserSearchPage(
+                page.stream().map(userMapper::userToUserDTO).toList(),
+                more ? page.get(pageSize - 1).getId() : null);
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
     @Override
     public UserDTO updateUser(Long id, UpdateUserRequest dto) {
@@ -95,6 +131,7 @@ public class UserServiceImpl implements UserService {
         }
 
         User saved = userRepository.save(user);
+        entityCacheService.userChanged(saved.getId());
         if (changed) {
             emailService.sendProfileUpdateEmail(saved.getEmail());
         }
@@ -118,6 +155,7 @@ public class UserServiceImpl implements UserService {
 
         u.setPassword(passwordEncoder.encode(req.getNewPassword()));
         userRepository.save(u);
+        entityCacheService.userChanged(u.getId());
         emailService.sendPasswordChangedEmail(u.getEmail());
     }
     @Override
@@ -134,6 +172,7 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.delete(user);
+        entityCacheService.userChanged(user.getId());
         emailService.sendGoodbyeEmail(user.getEmail());
     }
     }
@@ -0,0 +1,122 @@
+package com.fitness.services.impl;
+
+import com.fitness.dto.WaitlistEntryDTO;
+import com.fitness.enums.BookingStatus;
+import com.fitness.events.DomainEventExecutors;
+import com.fitness.events.SlotChangedEvent;
+import com.fitness.events.WaitlistJoinedEvent;
+import com.fitness.exceptions.TimeSlotAlreadyBookedException;
+import com.fitness.exceptions.TimeSlotNotFoundException;
+import com.fitness.exceptions.TrialSessionLimitExceededException;
+import com.fitness.exceptions.WaitlistNotAllowedException;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.fitness.models.TimeSlot;
+import com.fitness.models.User;
+import com.fitness.models.WaitlistEntry;
+import com.fitness.repositories.BookingRepository;
+import com.fitness.repositories.TimeSlotRepository;
+import com.fitness.repositories.WaitlistEntryRepository;
+import com.fitness.services.interfaces.BookingService;
+import com.fitness.services.interfaces.CurrentUserService;
+import com.fitness.services.interfaces.WaitlistService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Users waiting for a booked slot join its waitlist instead of polling it. Whenever a
+ * booking releases a slot, promotion runs on the booking event pool after the releasing
+ * transaction commits and books the slot for the longest-waiting user who still passes the
+ * booking checks. A slot nobody holds cannot be joined: the caller is told to book it.
+ * Joining also triggers a promotion attempt, which covers a release that committed between
+ * the availability check and the insert.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WaitlistServiceImpl implements WaitlistService {
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final TimeSlotRepository timeSlotRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingService bookingService;
+    private final CurrentUserService currentUserService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DomainEventExecutors executors;
+
+    @Override
+    @Transactional
+    public WaitlistEntryDTO join(Long timeSlotId) {
+        User me = currentUserService.getCurrentUser();
+        TimeSlot slot = timeSlotRepository.findById(timeSlotId)
+                .orElseThrow(() -> new TimeSlotNotFoundException(ErrorMessage.TIME_SLOT_NOT_FOUND));
+
+        if (!waitlistEntryRepository.existsByTimeSlotIdAndUserId(timeSlotId, me.getId())) {
+            checkCanJoin(me, slot);
+            waitlistEntryRepository.save(WaitlistEntry.builder()
+                    .timeSlot(slot)
+                    .user(me)
+                    .build());
+            eventPublisher.publishEvent(new WaitlistJoinedEvent(timeSlotId, me.getId()));
+        }
+        return waitlistEntryRepository.findDto(timeSlotId, me.getId()).orElseThrow();
+    }
+
+    @Override
+    @Transactional
+    public void leave(Long timeSlotId) {
+        waitlistEntryRepository.deleteByTimeSlotIdAndUserId(timeSlotId, currentUserService.getCurrentUserId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryDTO> getMyWaitlist() {
+        return waitlistEntryRepository.findUpcomingDtosByUserId(
+                currentUserService.getCurrentUserId(), LocalDate.now());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotChanged(SlotChangedEvent event) {
+        if (!event.isBooked()) {
+            executors.bookings().execute(() -> promote(event.getTimeSlotId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaitlistJoined(WaitlistJoinedEvent event) {
+        executors.bookings().execute(() -> promote(event.getTimeSlotId()));
+    }
+
+    private void checkCanJoin(User user, TimeSlot slot) {
+        if (slot.getDate().isBefore(LocalDate.now())) {
+            throw new WaitlistNotAllowedException(ErrorMessage.WAITLIST_SLOT_IN_PAST);
+        }
+        if (bookingRepository.existsByUserIdAndTimeSlotIdAndStatusNot(
+                user.getId(), slot.getId(), BookingStatus.CANCELLED)) {
+            throw new WaitlistNotAllowedException(ErrorMessage.WAITLIST_ALREADY_BOOKED);
+        }
+        if (!bookingRepository.existsByTimeSlotIdAndStatusNot(slot.getId(), BookingStatus.CANCELLED)) {
+            throw new WaitlistNotAllowedException(ErrorMessage.WAITLIST_SLOT_AVAILABLE);
+        }
+        if (slot.isTrial() && bookingRepository.existsByUserIdAndTimeSlot_TrialTrueAndTimeSlot_DateAfter(
+                user.getId(), slot.getDate().minusYears(1))) {
+            throw new TrialSessionLimitExceededException(ErrorMessage.TRIAL_SESSION_LIMIT_EXCEEDED);
+        }
+    }
+
+    private void promote(Long timeSlotId) {
+        try {
+            bookingService.promoteFromWaitlist(timeSlotId).ifPresent(booking ->
+                    log.info("Promoted user {} from the waitlist of slot {}", booking.getUserId(), timeSlotId));
+        } catch (TimeSlotAlreadyBookedException e) {
+            log.debug("Slot {} was booked directly before its waitlist was promoted", timeSlotId);
+        } catch (RuntimeException e) {
+            log.warn("Waitlist promotion for slot {} failed: {}", timeSlotId, e.getMessage());
+        }
+    }
+}
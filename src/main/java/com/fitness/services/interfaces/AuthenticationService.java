@@ -1,8 +1,14 @@
 package com.fitness.services.interfaces;
 
 import com.fitness.dto.AuthResponse;
+import com.fitness.dto.SessionDTO;
+
+import java.util.List;
 
 public interface AuthenticationService {
-    AuthResponse login(String email, String password);
+    AuthResponse login(String email, String password, String deviceId);
     AuthResponse refresh(String refreshToken);
+    List<SessionDTO> getSessions(String email);
+    void revokeSession(String email, String sessionId);
+    void revokeAllSessions(String email);
 }
@@ -0,0 +1,19 @@
+package com.fitness.services.interfaces;
+
+import com.fitness.dto.TimeSlotDTO;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface AvailabilityIndex {
+    Optional<List<TimeSlotDTO>> findAvailable(Collection<Long> studioIds, LocalDate start, LocalDate end);
+
+    void slotSaved(TimeSlotDTO slot);
+    void slotDeleted(Long slotId);
+    void slotBooked(Long slotId, boolean booked);
+
+    void rebuild();
+    boolean verify();
+}
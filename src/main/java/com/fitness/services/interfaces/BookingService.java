@@ -1,18 +1,24 @@
 package com.fitness.services.interfaces;
 
+import com.fitness.dto.BatchBookingResult;
 import com.fitness.dto.BookingDTO;
 import com.fitness.dto.CreateBookingRequest;
 import com.fitness.dto.UpdateBookingRequest;
+import com.fitness.enums.BatchBookingMode;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingDTO createBookingForCurrentUser(Long timeSlotId);
     BookingDTO createBooking(CreateBookingRequest req);
+    BatchBookingResult createBookingsForCurrentUser(List<Long> timeSlotIds, BatchBookingMode mode);
     BookingDTO getBooking(Long id);
-    List<BookingDTO> getAllBookings();
+    void streamAllBookings(Consumer<BookingDTO> sink);
     BookingDTO cancelBooking(Long bookingId);
     BookingDTO updateBooking(Long bookingId, UpdateBookingRequest req);
+    Optional<BookingDTO> promoteFromWaitlist(Long timeSlotId);
    // List<BookingDTO> getBookingsByUser(Long userId);
     List<BookingDTO> searchBookings(
             Long userId, Long studioId,
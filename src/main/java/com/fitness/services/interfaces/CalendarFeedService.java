@@ -0,0 +1,21 @@
+package com.fitness.services.interfaces;
+
+import com.fitness.dto.CalendarFeedLinkDTO;
+
+public interface CalendarFeedService {
+    String MEDIA_TYPE = "text/calendar;charset=UTF-8";
+
+    String myBookingsETag();
+    byte[] myBookingsFeed();
+    String studioScheduleETag(Long studioId);
+    byte[] studioScheduleFeed(Long studioId);
+
+    /** Issues a new feed token for the current user; the previous one stops working. */
+    CalendarFeedLinkDTO rotateFeedToken();
+    void revokeFeedToken();
+
+    String bookingsETag(String feedToken);
+    byte[] bookingsFeed(String feedToken);
+    String studioScheduleETag(Long studioId, String feedToken);
+    byte[] studioScheduleFeed(Long studioId, String feedToken);
+}
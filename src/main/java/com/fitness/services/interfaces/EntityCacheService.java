@@ -0,0 +1,7 @@
+package com.fitness.services.interfaces;
+
+public interface EntityCacheService {
+    void userChanged(Long userId);
+    void usersDeleted();
+    void studioChanged(Long studioId);
+}
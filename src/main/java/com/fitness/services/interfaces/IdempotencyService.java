@@ -0,0 +1,9 @@
+package com.fitness.services.interfaces;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    String HEADER = "Idempotency-Key";
+
+    <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action);
+}
@@ -0,0 +1,5 @@
+package com.fitness.services.interfaces;
+
+public interface RateLimitService {
+    void consume(String policy, String key);
+}
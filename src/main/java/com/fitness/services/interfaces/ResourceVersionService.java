@@ -0,0 +1,16 @@
+package com.fitness.services.interfaces;
+
+public interface ResourceVersionService {
+    long epoch();
+    void resetEpoch();
+
+    long studiosVersion();
+    long slotsVersion();
+    long slotsVersion(Long studioId);
+    long bookingsVersion();
+    long bookingsVersion(Long userId);
+
+    void studiosChanged();
+    void slotsChanged(Long studioId);
+    void bookingsChanged(Long userId);
+}
@@ -1,5 +1,6 @@
 package com.fitness.services.interfaces;
 
+import com.fitness.dto.StudioBookingExportRow;
 import com.fitness.dto.StudioCreateUpdateDTO;
 import com.fitness.dto.StudioDTO;
 import com.fitness.dto.UserDTO;
@@ -7,6 +8,7 @@ import com.fitness.dto.UserDTO;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface StudioService {
     StudioDTO createStudio(StudioCreateUpdateDTO dto);
@@ -19,5 +21,11 @@ public interface StudioService {
     Map<LocalDate, Integer> getOccupancy(Long studioId, LocalDate start, LocalDate end);
     List<UserDTO> getUniqueClientsByStudio(Long studioId);
 
+    /**
+     * Checks access, the studio and the period right away; the returned source streams the
+     * studio's bookings in that period, in its own read-only transaction, when it is called.
+     */
+    Consumer<Consumer<StudioBookingExportRow>> exportBookings(Long studioId, LocalDate from, LocalDate to);
+
     StudioDTO assignAdminToStudio(Long studioId, Long userId);
 }
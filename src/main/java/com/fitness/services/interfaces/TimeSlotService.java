@@ -6,16 +6,20 @@ import com.fitness.dto.TimeSlotUpdateDTO;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TimeSlotService {
     TimeSlotDTO createTimeSlot(TimeSlotCreateDTO dto);
     TimeSlotDTO getTimeSlot(Long id);
-    List<TimeSlotDTO> getAllTimeSlots();
+    void streamAllTimeSlots(Consumer<TimeSlotDTO> sink);
     TimeSlotDTO updateTimeSlot(Long id, TimeSlotUpdateDTO dto);
     void deleteTimeSlot(Long id);
     List<TimeSlotDTO> getTimeSlotsByStudio(Long studioId);
     List<TimeSlotDTO> getTimeSlotsByStudioAndDateRange(
             Long studioId, LocalDate startDate, LocalDate endDate);
+    String availableSlotsETag(Long studioId);
     List<TimeSlotDTO> getAvailableSlotsByStudio(
             Long studioId, LocalDate startDate, LocalDate endDate);
+    List<TimeSlotDTO> getAvailableSlots(
+            List<Long> studioIds, LocalDate startDate, LocalDate endDate);
 }
@@ -0,0 +1,12 @@
+package com.fitness.services.interfaces;
+
+import java.time.Duration;
+
+public interface TokenBucketStore {
+    /**
+     * Takes one token from the bucket under {@code key}, creating it full if needed.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one becomes available
+     */
+    long tryConsume(String key, int capacity, Duration refillPeriod);
+}
@@ -4,13 +4,16 @@ import com.fitness.dto.ChangePasswordRequest;
 import com.fitness.dto.RegisterUserRequest;
 import com.fitness.dto.UpdateUserRequest;
 import com.fitness.dto.UserDTO;
+import com.fitness.dto.UserSearchPage;
+import com.fitness.enums.Role;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
     UserDTO registerUser(RegisterUserRequest registerUserRequest);
     UserDTO getUser(Long id);
-    List<UserDTO> getAllUsers();
+    void streamAllUsers(Consumer<UserDTO> sink);
+    UserSearchPage searchUsers(String query, Role role, Boolean enabled, Long after, int limit);
     UserDTO updateUser(Long id, UpdateUserRequest dto);
     void changePassword(Long id, ChangePasswordRequest req);
     void deleteUser(Long id);
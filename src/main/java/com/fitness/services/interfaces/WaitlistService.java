@@ -0,0 +1,11 @@
+package com.fitness.services.interfaces;
+
+import com.fitness.dto.WaitlistEntryDTO;
+
+import java.util.List;
+
+public interface WaitlistService {
+    WaitlistEntryDTO join(Long timeSlotId);
+    void leave(Long timeSlotId);
+    List<WaitlistEntryDTO> getMyWaitlist();
+}
@@ -0,0 +1,138 @@
+package com.fitness.web;
+
+import com.fitness.config.datasource.BulkheadRoutingDataSource;
+import com.fitness.config.datasource.StatementCancellation;
+import com.fitness.exceptions.BulkheadRejectedException;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * One isolated workload: a fixed number of threads with a bounded queue, and a connection
+ * pool of the same size that only these threads use. Work that does not fit is rejected at
+ * once, both as 503 {@code SERVICE_BUSY}. Work that exceeds the timeout, or whose future is
+ * cancelled, is stopped: the thread is interrupted and its running statements are cancelled
+ * on the server. The timeout is also each connection's {@code statement_timeout}, as a backstop.
+ */
+public class Bulkhead {
+    private final ThreadPoolExecutor threads;
+    private final ExecutorService executor;
+    private final HikariDataSource pool;
+    private final DataSource connections;
+    private final Duration timeout;
+    private final Counter rejected;
+    private final Counter timedOut;
+
+    Bulkhead(String name, int size, int queueCapacity, Duration timeout, HikariDataSource pool,
+             MeterRegistry meterRegistry) {
+        AtomicInteger counter = new AtomicInteger();
+        this.threads = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "bulkhead-" + name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, threads, "bulkhead-" + name);
+        this.pool = pool;
+        this.connections = StatementCancellation.tracking(pool);
+        this.timeout = timeout;
+        this.rejected = Counter.builder("bulkhead.rejected").tag("bulkhead", name).register(meterRegistry);
+        this.timedOut = Counter.builder("bulkhead.timeouts").tag("bulkhead", name).register(meterRegistry);
+        Gauge.builder("bulkhead.saturation", threads,
+                        t -> (double) (t.getActiveCount() + t.getQueue().size()) / (size + queueCapacity))
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        pool.addDataSourceProperty("options", "-c statement_timeout=" + timeout.toMillis());
+    }
+
+    /**
+     * Starts {@code work} on this bulkhead with the caller's security context. The future fails
+     * with {@link BulkheadRejectedException} on timeout; cancelling it stops the work.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        StatementCancellation statements = new StatementCancellation();
+        Future<?> task;
+        try {
+            task = executor.submit(new DelegatingSecurityContextRunnable(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(statements.run(() -> BulkheadRoutingDataSource.callOn(connections, work)));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BulkheadRejectedException(ErrorMessage.BULKHEAD_FULL);
+        }
+        CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.completeExceptionally(new BulkheadRejectedException(ErrorMessage.BULKHEAD_TIMEOUT))) {
+                timedOut.increment();
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                // statements first: once interrupted, the task may finish and forget them
+                statements.cancel();
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /** Runs {@code work} on this bulkhead and waits for it. */
+    public <T> T call(Supplier<T> work) {
+        return await(submit(work));
+    }
+
+    /** Waits for {@code future}, rethrowing its failure; an interrupt cancels it. */
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BulkheadRejectedException(ErrorMessage.BULKHEAD_TIMEOUT);
+        }
+    }
+
+    HikariDataSource pool() {
+        return pool;
+    }
+
+    void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        pool.close();
+    }
+}
@@ -0,0 +1,128 @@
+package com.fitness.web;
+
+import com.fitness.config.datasource.HikariPools;
+import com.fitness.exceptions.BulkheadRejectedException;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps reporting traffic away from bookings. Studio analytics and the full-table exports
+ * each run in their own {@link Bulkhead}, so a spike of reports can only exhaust its own
+ * threads and connections, never Tomcat's workers or the primary pool. Saturation is exported
+ * as {@code bulkhead.saturation}, {@code bulkhead.rejected}, {@code bulkhead.timeouts}, the
+ * {@code executor.*} metrics and the Hikari metrics of the {@code bulkhead-*} pools.
+ * Analytics is asynchronous: the Tomcat worker is released while the query runs.
+ */
+@Component
+public class Bulkheads implements SmartLifecycle {
+    private final Bulkhead analytics;
+    private final Bulkhead exports;
+    private final Duration analyticsTimeout;
+    private volatile boolean running;
+
+    public Bulkheads(DataSourceProperties dataSource,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.bulkheads.analytics.threads:4}") int analyticsThreads,
+                     @Value("${app.bulkheads.analytics.queue-capacity:16}") int analyticsQueue,
+                     @Value("${app.bulkheads.analytics.timeout:PT30S}") Duration analyticsTimeout,
+                     @Value("${app.bulkheads.analytics.jdbc-url:${spring.datasource.url}}") String analyticsUrl,
+                     @Value("${app.bulkheads.exports.threads:2}") int exportThreads,
+                     @Value("${app.bulkheads.exports.queue-capacity:4}") int exportQueue,
+                     @Value("${app.bulkheads.exports.timeout:PT5M}") Duration exportTimeout,
+                     @Value("${app.bulkheads.exports.jdbc-url:${spring.datasource.url}}") String exportUrl) {
+        this.analytics = new Bulkhead("analytics", analyticsThreads, analyticsQueue, analyticsTimeout,
+                HikariPools.readOnly("bulkhead-analytics", analyticsUrl, dataSource.determineUsername(),
+                        dataSource.determinePassword(), analyticsThreads, meterRegistry),
+                meterRegistry);
+        this.analyticsTimeout = analyticsTimeout;
+        this.exports = new Bulkhead("exports", exportThreads, exportQueue, exportTimeout,
+                HikariPools.readOnly("bulkhead-exports", exportUrl, dataSource.determineUsername(),
+                        dataSource.determinePassword(), exportThreads, meterRegistry),
+                meterRegistry);
+    }
+
+    /**
+     * Starts {@code work} on the analytics bulkhead and returns without waiting. The request
+     * fails with 503 once the bulkhead timeout passes; if the client goes away first, the work
+     * is cancelled together with its running statement.
+     */
+    public <T> DeferredResult<T> analytics(Supplier<T> work) {
+        CompletableFuture<T> future = analytics.submit(work);
+        // the bulkhead times out first; the request timeout only guards against a lost completion
+        DeferredResult<T> result = new DeferredResult<>(analyticsTimeout.plusSeconds(1).toMillis());
+        result.onTimeout(() -> {
+            future.cancel(true);
+            result.setErrorResult(new BulkheadRejectedException(ErrorMessage.BULKHEAD_TIMEOUT));
+        });
+        result.onError(error -> future.cancel(true));
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                result.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                result.setResult(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Wraps a streaming source so the rows are read on the exports bulkhead. The export is
+     * submitted here, while the controller still runs, so a full bulkhead is a 503 rather than
+     * a 200 with an empty body; the task then waits for the response body to hand it the sink.
+     * A timeout after that aborts the response, which the streamers leave unterminated.
+     */
+    public <T> Consumer<Consumer<T>> exports(Consumer<Consumer<T>> source) {
+        CompletableFuture<Consumer<T>> sink = new CompletableFuture<>();
+        CompletableFuture<Void> export = exports.submit(() -> {
+            source.accept(Bulkhead.await(sink));
+            return null;
+        });
+        return target -> {
+            sink.complete(target);
+            Bulkhead.await(export);
+        };
+    }
+
+    @Override
+    public void start() {
+        HikariPools.resume(analytics.pool());
+        HikariPools.resume(exports.pool());
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        HikariPools.suspend(analytics.pool());
+        HikariPools.suspend(exports.pool());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Started with the primary pool, before the restore hooks and the web server; stopped after them. */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        analytics.shutdown();
+        exports.shutdown();
+    }
+}
@@ -0,0 +1,138 @@
+package com.fitness.web;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes rows as RFC 4180 CSV straight into the response, gzip-compressed when the client
+ * accepts it. Only a write buffer and the compressor window are held, whatever the row count.
+ * Cells that a spreadsheet would read as a formula are prefixed with a quote.
+ * <p>
+ * If the source fails midway, the output is neither finished nor closed: a truncated export
+ * must not end with a valid gzip trailer. The response is committed and the failure rethrown,
+ * so the container drops the connection and the client sees a broken transfer.
+ */
+@Component
+public class CsvStreamer {
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(String acceptEncoding, String filename,
+                                                            List<String> header,
+                                                            Function<T, Object[]> columns,
+                                                            Consumer<Consumer<T>> source) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = StreamUtils.nonClosing(out);
+            if (gzip) {
+                target = new GZIPOutputStream(target, BUFFER_SIZE);
+            }
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+            try {
+                writeRow(writer, header.toArray());
+                source.accept(row -> writeRow(writer, columns.apply(row)));
+            } catch (RuntimeException e) {
+                out.flush();
+                // an IOException skips the domain handlers, which would append an error body
+                throw e instanceof UncheckedIOException io ? io.getCause() : new IOException("CSV export aborted", e);
+            }
+            writer.close();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /** True when {@code Accept-Encoding} lists gzip, or failing that {@code *}, with a non-zero q. */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = quality(parts);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        Double q = gzip != null ? gzip : any;
+        return q != null && q > 0;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static void writeRow(Writer writer, Object[] cells) {
+        try {
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCell(writer, cells[i]);
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCell(Writer writer, Object cell) throws IOException {
+        if (cell == null) {
+            return;
+        }
+        String text = cell.toString();
+        if (!text.isEmpty() && !(cell instanceof Number) && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
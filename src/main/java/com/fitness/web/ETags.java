@@ -0,0 +1,15 @@
+package com.fitness.web;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public final class ETags {
+    private ETags() {
+    }
+
+    public static String of(Object... parts) {
+        return Arrays.stream(parts)
+                .map(String::valueOf)
+                .collect(Collectors.joining("-", "\"", "\""));
+    }
+}
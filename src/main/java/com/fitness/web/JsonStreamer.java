@@ -0,0 +1,76 @@
+package com.fitness.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes rows straight into the response as they are produced, either as a JSON array
+ * or as NDJSON when the client asks for {@code application/x-ndjson}. If the source fails
+ * midway the array is left open, so the client sees invalid JSON instead of a short list.
+ */
+@Component
+public class JsonStreamer {
+    private static final SerializedString NDJSON_SEPARATOR = new SerializedString("\n");
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public JsonStreamer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(String accept, Consumer<Consumer<T>> source) {
+        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(out))) {
+                // a failure must not close the array on the way out, or the cut-off export looks complete
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                if (ndjson) {
+                    gen.setRootValueSeparator(NDJSON_SEPARATOR);
+                } else {
+                    gen.writeStartArray();
+                }
+
+                source.accept(item -> write(gen, item));
+
+                if (ndjson) {
+                    gen.writeRaw('\n');
+                } else {
+                    gen.writeEndArray();
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                out.flush();
+                // an IOException skips the domain handlers, which would append an error body
+                throw new IOException("JSON export aborted", e);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private void write(JsonGenerator gen, Object item) {
+        try {
+            writer.writeValue(gen, item);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
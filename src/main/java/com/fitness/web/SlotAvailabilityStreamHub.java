@@ -0,0 +1,176 @@
+package com.fitness.web;
+
+import com.fitness.dto.SlotAvailabilityDelta;
+import com.fitness.events.SlotAvailabilityChangedEvent;
+import com.fitness.services.interfaces.SecurityService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans slot availability deltas out to SSE subscribers. Publishers only enqueue: every
+ * subscriber has a bounded buffer drained on its own virtual thread, so a slow client never
+ * blocks the booking path, another subscriber's stream, or a servlet thread. A subscriber
+ * whose buffer overflows gets its backlog replaced by a single {@code resync} event and
+ * should reload availability over REST; one whose write has been stuck for longer than the
+ * send timeout (a full TCP window) is dropped and has to reconnect.
+ */
+@Slf4j
+@Component
+public class SlotAvailabilityStreamHub {
+    static final String AVAILABILITY_EVENT = "availability";
+    static final String RESYNC_EVENT = "resync";
+    private static final long IDLE = Long.MIN_VALUE;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final SecurityService securityService;
+    private final ExecutorService drainPool;
+    private final long timeoutMs;
+    private final int bufferSize;
+    private final long sendTimeoutNanos;
+
+    public SlotAvailabilityStreamHub(SecurityService securityService,
+                                     @Value("${app.sse.timeout-ms:1800000}") long timeoutMs,
+                                     @Value("${app.sse.buffer-size:64}") int bufferSize,
+                                     @Value("${app.sse.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.securityService = securityService;
+        this.timeoutMs = timeoutMs;
+        this.bufferSize = bufferSize;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        this.drainPool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-drain-", 1).factory());
+    }
+
+    public SseEmitter subscribe(Long studioId) {
+        securityService.requireStudioOwnerOrAdminOrDev(studioId);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(studioId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.computeIfAbsent(studioId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        enqueue(subscriber, SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    @EventListener
+    public void onAvailabilityChanged(SlotAvailabilityChangedEvent event) {
+        Set<Subscriber> targets = subscribers.get(event.getStudioId());
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        List<SlotAvailabilityDelta> deltas = event.getDeltas();
+        for (Subscriber subscriber : targets) {
+            enqueue(subscriber, SseEmitter.event()
+                    .name(AVAILABILITY_EVENT)
+                    .id(String.valueOf(event.getVersion()))
+                    .data(deltas, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (subscriber.queue.isEmpty()) {
+                enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+            }
+        }));
+    }
+
+    @Scheduled(fixedRateString = "${app.sse.stall-check-ms:1000}")
+    public void dropStalled() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            long since = subscriber.sendingSince.get();
+            if (since != IDLE && now - since > sendTimeoutNanos) {
+                log.debug("Dropping stalled availability subscriber for studio {}", subscriber.studioId);
+                remove(subscriber);
+                // completing the async request closes the connection, which fails the stuck write
+                subscriber.emitter.completeWithError(new TimeoutException("SSE send timed out"));
+            }
+        }));
+    }
+
+    int subscriberCount(Long studioId) {
+        Set<Subscriber> set = subscribers.get(studioId);
+        return set == null ? 0 : set.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainPool.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.queue.offer(event)) {
+            subscriber.queue.clear();
+            subscriber.queue.offer(SseEmitter.event().name(RESYNC_EVENT).data(""));
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                drainPool.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+                subscriber.sendingSince.set(System.nanoTime());
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    if (!subscriber.closed.get()) {
+                        log.debug("Dropping availability subscriber for studio {}: {}", subscriber.studioId, e.getMessage());
+                        remove(subscriber);
+                        subscriber.emitter.completeWithError(e);
+                    }
+                    return;
+                } finally {
+                    subscriber.sendingSince.set(IDLE);
+                }
+            }
+            subscriber.draining.set(false);
+            if (subscriber.queue.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed.set(true);
+        subscribers.computeIfPresent(subscriber.studioId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        subscriber.queue.clear();
+    }
+
+    private record Subscriber(Long studioId, SseEmitter emitter, Queue<SseEmitter.SseEventBuilder> queue,
+                              AtomicBoolean draining, AtomicBoolean closed, AtomicLong sendingSince) {
+        Subscriber(Long studioId, SseEmitter emitter, Queue<SseEmitter.SseEventBuilder> queue) {
+            this(studioId, emitter, queue, new AtomicBoolean(), new AtomicBoolean(), new AtomicLong(IDLE));
+        }
+    }
+}
@@ -1,4 +1,30 @@
 -- dialect:postgresql
 CREATE UNIQUE INDEX IF NOT EXISTS ux_booking_active_slot
   ON booking (time_slot_id)
-  WHERE status <> 'CANCELLED';
\ No newline at end of file
+  WHERE status <> 'CANCELLED';
+
+-- refresh tokens are stored as SHA-256 hashes; rows holding raw tokens are dropped
+ALTER TABLE refresh_tokens DROP COLUMN IF EXISTS token;
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash VARCHAR(64);
+DELETE FROM refresh_tokens WHERE token_hash IS NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS ux_refresh_tokens_token_hash ON refresh_tokens (token_hash);
+CREATE INDEX IF NOT EXISTS ix_refresh_tokens_expires_at ON refresh_tokens (expires_at);
+CREATE INDEX IF NOT EXISTS ix_refresh_tokens_username ON refresh_tokens (username);
+
+-- session families: rows from before families existed become single-token sessions
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS family_id VARCHAR(36);
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS device_id VARCHAR(255);
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS session_started_at TIMESTAMP(6);
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS revoked_at TIMESTAMP(6);
+UPDATE refresh_tokens SET family_id = gen_random_uuid()::text WHERE family_id IS NULL;
+UPDATE refresh_tokens SET created_at = now() WHERE created_at IS NULL;
+UPDATE refresh_tokens SET session_started_at = created_at WHERE session_started_at IS NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN family_id SET NOT NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN session_started_at SET NOT NULL;
+CREATE INDEX IF NOT EXISTS ix_refresh_tokens_family_id ON refresh_tokens (family_id);
+
+-- idempotency keys are claimed with a pending row before the request runs
+ALTER TABLE idempotency_record ALTER COLUMN response_body DROP NOT NULL;
@@ -0,0 +1,104 @@
+package com.fitness.config.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicaPoolTest {
+    private ReplicaPool pool;
+    private ReplicaPool.Replica first;
+    private ReplicaPool.Replica second;
+
+    @BeforeEach
+    void setUp() {
+        ReadReplicaProperties properties = new ReadReplicaProperties();
+        properties.setMaxLag(Duration.ofSeconds(2));
+        properties.setReplicas(List.of(replica("jdbc:postgresql://replica-1/db"),
+                replica("jdbc:postgresql://replica-2/db")));
+        DataSourceProperties primary = new DataSourceProperties();
+        primary.setUsername("app");
+        primary.setPassword("secret");
+        pool = new ReplicaPool(properties, primary, new SimpleMeterRegistry());
+        first = pool.replicas().get(0);
+        second = pool.replicas().get(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private static ReadReplicaProperties.Replica replica(String url) {
+        ReadReplicaProperties.Replica replica = new ReadReplicaProperties.Replica();
+        replica.setUrl(url);
+        return replica;
+    }
+
+    @Test
+    void unprobedReplicas_areNotCandidates() {
+        assertTrue(pool.candidates().isEmpty());
+    }
+
+    @Test
+    void lagUpToMaxLag_isEligible() {
+        pool.record(first, 2000L);
+        pool.record(second, 2001L);
+
+        assertEquals(List.of(first), pool.candidates());
+    }
+
+    @Test
+    void notStreaming_isStaleWhateverItsLastLag() {
+        pool.record(first, 0L);
+        pool.record(first, null);
+
+        assertTrue(pool.candidates().isEmpty());
+        assertTrue(first.healthy);
+    }
+
+    @Test
+    void streamingAgain_isEligibleAgain() {
+        pool.record(first, null);
+        pool.record(first, 100L);
+
+        assertEquals(List.of(first), pool.candidates());
+    }
+
+    @Test
+    void markedDown_isNotCandidateUntilNextProbe() {
+        pool.record(first, 0L);
+        pool.markDown(first, new SQLException("connection refused"));
+        assertTrue(pool.candidates().isEmpty());
+
+        pool.record(first, 0L);
+        assertEquals(List.of(first), pool.candidates());
+    }
+
+    @Test
+    void candidates_rotateBetweenEligibleReplicas() {
+        pool.record(first, 0L);
+        pool.record(second, 0L);
+
+        ReplicaPool.Replica a = pool.candidates().get(0);
+        ReplicaPool.Replica b = pool.candidates().get(0);
+
+        assertNotSame(a, b);
+        assertEquals(2, pool.candidates().size());
+    }
+
+    @Test
+    void stop_makesEveryReplicaIneligible() {
+        pool.record(first, 0L);
+        pool.stop();
+
+        assertTrue(pool.candidates().isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package com.fitness.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingDataSourceTest {
+    private final DataSource primary = mock(DataSource.class);
+    private final ReplicaPool replicas = mock(ReplicaPool.class);
+    private final ReadYourWrites readYourWrites = mock(ReadYourWrites.class);
+    private final HikariDataSource firstPool = mock(HikariDataSource.class);
+    private final HikariDataSource secondPool = mock(HikariDataSource.class);
+    private final ReplicaPool.Replica first = new ReplicaPool.Replica("replica-0", firstPool);
+    private final ReplicaPool.Replica second = new ReplicaPool.Replica("replica-1", secondPool);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private MeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        meterRegistry = new SimpleMeterRegistry();
+        routing = new ReplicaRoutingDataSource(primary, replicas, readYourWrites, meterRegistry);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+    }
+
+    private double routed(String target) {
+        return meterRegistry.get("datasource.read.routing").tag("target", target).counter().count();
+    }
+
+    @Test
+    void eligibleReplica_servesTheRead() throws SQLException {
+        when(replicas.candidates()).thenReturn(List.of(first, second));
+        when(firstPool.getConnection()).thenReturn(replicaConnection);
+
+        assertSame(replicaConnection, routing.getConnection());
+        verifyNoInteractions(primary, secondPool);
+        assertEquals(1, routed("replica"));
+    }
+
+    @Test
+    void failingReplica_isMarkedDownAndNextOneIsTried() throws SQLException {
+        SQLException refused = new SQLException("connection refused");
+        when(replicas.candidates()).thenReturn(List.of(first, second));
+        when(firstPool.getConnection()).thenThrow(refused);
+        when(secondPool.getConnection()).thenReturn(replicaConnection);
+
+        assertSame(replicaConnection, routing.getConnection());
+        verify(replicas).markDown(first, refused);
+    }
+
+    @Test
+    void noEligibleReplica_fallsBackToPrimary() throws SQLException {
+        when(replicas.candidates()).thenReturn(List.of());
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(1, routed("primary-fallback"));
+    }
+
+    @Test
+    void recentWriter_readsFromPrimary() throws SQLException {
+        when(readYourWrites.pinnedToPrimary()).thenReturn(true);
+
+        assertSame(primaryConnection, routing.getConnection());
+        verifyNoInteractions(replicas);
+        assertEquals(1, routed("primary-read-your-writes"));
+    }
+
+    @Test
+    void primaryReads_neverTouchReplicas() throws SQLException {
+        Connection connection = PrimaryReads.call(() -> {
+            try {
+                return routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertSame(primaryConnection, connection);
+        verifyNoInteractions(replicas);
+        assertFalse(PrimaryReads.active());
+    }
+
+    @Test
+    void explicitCredentials_delegateToPrimary() throws SQLException {
+        when(primary.getConnection("report", "pw")).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routing.getConnection("report", "pw"));
+        verifyNoInteractions(replicas);
+    }
+}
@@ -8,12 +8,14 @@ import com.fitness.dto.RegisterUserRequest;
 import com.fitness.dto.UserDTO;
 import com.fitness.exceptions.AlreadyConfirmedException;
 import com.fitness.exceptions.InvalidTokenException;
+import com.fitness.exceptions.RateLimitExceededException;
 import com.fitness.exceptions.RefreshTokenException;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
 import com.fitness.services.interfaces.AuthenticationService;
 import com.fitness.services.interfaces.ConfirmationService;
 import com.fitness.services.interfaces.UserService;
 import com.fitness.services.interfaces.PasswordResetService;
+import com.fitness.services.interfaces.RateLimitService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -58,6 +60,8 @@ public class AuthControllerTest {
     private UserDetailsServiceImpl userDetailsService;
     @MockBean
     private PasswordResetService passwordResetService;
+    @MockBean
+    private RateLimitService rateLimitService;
 
     @Test
     @DisplayName("POST /auth/register — successful registration")
@@ -96,7 +100,7 @@ public class AuthControllerTest {
         String pass  = "secret";
         var auth = new AuthResponse("atoken", "rtoken");
 
-        when(authenticationService.login(email, pass)).thenReturn(auth);
+        when(authenticationService.login(email, pass, null)).thenReturn(auth);
 
         mvc.perform(post("/auth/login")
                         .param("email", email)
@@ -105,14 +109,14 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.accessToken").value("atoken"))
                 .andExpect(jsonPath("$.refreshToken").value("rtoken"));
 
-        verify(authenticationService).login(email, pass);
+        verify(authenticationService).login(email, pass, null);
     }
 
     @Test
     @DisplayName("POST /auth/refresh — successful refresh")
     void refresh_success() throws Exception {
         String rtoken = "rtoken";
-        var auth     = new AuthResponse("newAccess", rtoken);
+        var auth     = new AuthResponse("newAccess", "rotated");
 
         when(authenticationService.refresh(rtoken)).thenReturn(auth);
 
@@ -120,7 +124,7 @@ public class AuthControllerTest {
                         .param("refreshToken", rtoken))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accessToken").value("newAccess"))
-                .andExpect(jsonPath("$.refreshToken").value(rtoken));
+                .andExpect(jsonPath("$.refreshToken").value("rotated"));
 
         verify(authenticationService).refresh(rtoken);
     }
@@ -188,7 +192,7 @@ public class AuthControllerTest {
     @DisplayName("POST /auth/login — bad creds → 401 INVALID_CREDENTIALS")
     void login_badCredentials() throws Exception {
         doThrow(new BadCredentialsException("bad"))
-                .when(authenticationService).login(anyString(), anyString());
+                .when(authenticationService).login(anyString(), anyString(), any());
 
         mvc.perform(post("/auth/login")
                         .param("email", "x@y.z")
@@ -235,4 +239,21 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.error").value("BUSINESS_ERROR"))
                 .andExpect(jsonPath("$.message").value("been here"));
     }
+
+    @Test
+    @DisplayName("POST /auth/login — email bucket empty → 429 RATE_LIMIT")
+    void login_rateLimited() throws Exception {
+        doThrow(new RateLimitExceededException(ErrorMessage.TOO_MANY_REQUESTS, 12))
+                .when(rateLimitService).consume("login-email", "x@y.z");
+
+        mvc.perform(post("/auth/login")
+                        .param("email", "x@y.z")
+                        .param("password", "secret"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "12"))
+                .andExpect(jsonPath("$.error").value("RATE_LIMIT"));
+
+        verify(rateLimitService).consume(eq("login-ip"), any());
+        verifyNoInteractions(authenticationService);
+    }
 }
@@ -1,37 +1,69 @@
 package com.fitness.controllers;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.dto.BatchBookingFailure;
+import com.fitness.dto.BatchBookingResult;
 import com.fitness.dto.BookingDTO;
+import com.fitness.dto.CalendarFeedLinkDTO;
+import com.fitness.dto.CreateBatchBookingRequest;
 import com.fitness.dto.CreateBookingRequest;
 import com.fitness.dto.CreateOwnBookingRequest;
 import com.fitness.dto.UpdateBookingRequest;
+import com.fitness.dto.WaitlistEntryDTO;
+import com.fitness.enums.BatchBookingMode;
 import com.fitness.enums.BookingStatus;
+import com.fitness.enums.Role;
 import com.fitness.exceptions.BookingAlreadyCancelledException;
 import com.fitness.exceptions.BookingNotFoundException;
 import com.fitness.exceptions.BookingCreationNotAllowedException;
+import com.fitness.exceptions.InvalidTokenException;
+import com.fitness.exceptions.TimeSlotAlreadyBookedException;
+import com.fitness.exceptions.TimeSlotNotAvailableException;
+import com.fitness.exceptions.WaitlistNotAllowedException;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
 import com.fitness.services.interfaces.BookingService;
+import com.fitness.services.interfaces.CalendarFeedService;
+import com.fitness.services.interfaces.CurrentUserService;
+import com.fitness.services.interfaces.IdempotencyService;
+import com.fitness.services.interfaces.ResourceVersionService;
+import com.fitness.services.interfaces.WaitlistService;
 import com.fitness.config.security.JwtService;
 import com.fitness.config.security.UserDetailsServiceImpl;
+import com.fitness.web.JsonStreamer;
+import com.fitness.web.Bulkheads;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(BookingController.class)
+@Import(JsonStreamer.class)
 @AutoConfigureMockMvc(addFilters = false)
 public class BookingControllerTest {
     @Autowired
@@ -43,9 +75,32 @@ public class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
     @MockBean
+    private ResourceVersionService resourceVersionService;
+    @MockBean
+    private CurrentUserService currentUserService;
+    @MockBean
     private JwtService jwtService;
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
+    @MockBean
+    private IdempotencyService idempotencyService;
+    @MockBean
+    private WaitlistService waitlistService;
+    @MockBean
+    private Bulkheads bulkheads;
+    @MockBean
+    private CalendarFeedService calendarFeedService;
+
+    @BeforeEach
+    void passThroughBulkheads() {
+        when(bulkheads.exports(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @BeforeEach
+    void passThroughIdempotency() {
+        when(idempotencyService.execute(any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> inv.<Supplier<?>>getArgument(4).get());
+    }
 
     @Test
     @DisplayName("POST /api/bookings/me — successful own booking")
@@ -168,9 +223,18 @@ public class BookingControllerTest {
         var dto1 = new BookingDTO(); dto1.setId(4L);
         var dto2 = new BookingDTO(); dto2.setId(5L);
 
-        when(bookingService.getAllBookings()).thenReturn(List.of(dto1, dto2));
+        doAnswer(inv -> {
+            Consumer<BookingDTO> sink = inv.getArgument(0);
+            sink.accept(dto1);
+            sink.accept(dto2);
+            return null;
+        }).when(bookingService).streamAllBookings(any());
+
+        MvcResult result = mvc.perform(get("/api/bookings"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        mvc.perform(get("/api/bookings"))
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(APPLICATION_JSON))
                 .andExpect(jsonPath("$.length()").value(2))
@@ -178,6 +242,56 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$[1].id").value(5));
     }
 
+    @Test
+    @DisplayName("GET /api/bookings — NDJSON when requested")
+    void getAllBookings_ndjson() throws Exception {
+        var dto1 = new BookingDTO(); dto1.setId(4L);
+        var dto2 = new BookingDTO(); dto2.setId(5L);
+
+        doAnswer(inv -> {
+            Consumer<BookingDTO> sink = inv.getArgument(0);
+            sink.accept(dto1);
+            sink.accept(dto2);
+            return null;
+        }).when(bookingService).streamAllBookings(any());
+
+        MvcResult result = mvc.perform(get("/api/bookings").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(4, mapper.readValue(lines[0], BookingDTO.class).getId());
+        assertEquals(5, mapper.readValue(lines[1], BookingDTO.class).getId());
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings — source failing midway leaves the array open")
+    void getAllBookings_sourceFails_unterminatedArray() throws Exception {
+        var dto = new BookingDTO(); dto.setId(4L);
+
+        doAnswer(inv -> {
+            Consumer<BookingDTO> sink = inv.getArgument(0);
+            sink.accept(dto);
+            throw new IllegalStateException("connection lost");
+        }).when(bookingService).streamAllBookings(any());
+
+        MvcResult result = mvc.perform(get("/api/bookings"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThrows(Exception.class, () -> mvc.perform(asyncDispatch(result)));
+
+        String body = result.getResponse().getContentAsString();
+        assertFalse(body.endsWith("]"), body);
+        assertThrows(Exception.class, () -> mapper.readTree(body));
+    }
+
     @Test
     @DisplayName("PUT /api/bookings/{id}/cancel — success")
     void cancelBooking_success() throws Exception {
@@ -294,6 +408,27 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$[0].id").value(12));
     }
 
+    @Test
+    @DisplayName("GET /api/bookings/me/upcoming — another user's booking keeps the tag")
+    void getMyUpcoming_tagFollowsOwnBookingsOnly() throws Exception {
+        when(currentUserService.getCurrentUserId()).thenReturn(5L);
+        when(currentUserService.getCurrentUserRole()).thenReturn(Role.USER);
+        when(resourceVersionService.bookingsVersion(5L)).thenReturn(3L);
+        when(bookingService.getMyUpcoming()).thenReturn(List.of());
+
+        String etag = mvc.perform(get("/api/bookings/me/upcoming"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        when(resourceVersionService.bookingsVersion()).thenReturn(9L);
+        mvc.perform(get("/api/bookings/me/upcoming").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        when(resourceVersionService.bookingsVersion(5L)).thenReturn(4L);
+        mvc.perform(get("/api/bookings/me/upcoming").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     @DisplayName("GET /api/bookings/me/history — successful issuance of booking history")
     void getMyHistory_success() throws Exception {
@@ -305,4 +440,206 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].id").value(13));
     }
+
+    @Test
+    @DisplayName("POST /api/bookings/me — Idempotency-Key is passed through")
+    void createOwnBooking_forwardsIdempotencyKey() throws Exception {
+        var req = new CreateOwnBookingRequest();
+        req.setTimeSlotId(10L);
+        var dto = new BookingDTO();
+        dto.setId(5L);
+        doReturn(dto).when(idempotencyService)
+                .execute(eq("bookings.me"), eq("retry-1"), eq(req), eq(BookingDTO.class), any());
+
+        mvc.perform(post("/api/bookings/me")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(5));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/waitlist/{slotId} — joins the waitlist")
+    void joinWaitlist_success() throws Exception {
+        var entry = new WaitlistEntryDTO();
+        entry.setTimeSlotId(10L);
+        entry.setPosition(3);
+        when(waitlistService.join(10L)).thenReturn(entry);
+
+        mvc.perform(post("/api/bookings/waitlist/10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.timeSlotId").value(10))
+                .andExpect(jsonPath("$.position").value(3));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/waitlist/{slotId} — already booked -> 409")
+    void joinWaitlist_alreadyBooked() throws Exception {
+        when(waitlistService.join(10L))
+                .thenThrow(new WaitlistNotAllowedException(ErrorMessage.WAITLIST_ALREADY_BOOKED));
+
+        mvc.perform(post("/api/bookings/waitlist/10"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value(ErrorMessage.WAITLIST_ALREADY_BOOKED));
+    }
+
+    @Test
+    @DisplayName("DELETE /api/bookings/waitlist/{slotId} — leaves the waitlist")
+    void leaveWaitlist_noContent() throws Exception {
+        mvc.perform(delete("/api/bookings/waitlist/10"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/me/batch — all slots booked")
+    void createOwnBookings_success() throws Exception {
+        var req = new CreateBatchBookingRequest();
+        req.setTimeSlotIds(List.of(1L, 2L));
+        var b1 = new BookingDTO(); b1.setId(11L);
+        var b2 = new BookingDTO(); b2.setId(12L);
+        when(bookingService.createBookingsForCurrentUser(List.of(1L, 2L), BatchBookingMode.ALL_OR_NOTHING))
+                .thenReturn(new BatchBookingResult(List.of(b1, b2), List.of()));
+
+        mvc.perform(post("/api/bookings/me/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.booked.length()").value(2))
+                .andExpect(jsonPath("$.failed.length()").value(0));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/me/batch — rejected batch -> 409 with per-slot reasons")
+    void createOwnBookings_rejected() throws Exception {
+        var req = new CreateBatchBookingRequest();
+        req.setTimeSlotIds(List.of(1L, 2L));
+        when(bookingService.createBookingsForCurrentUser(List.of(1L, 2L), BatchBookingMode.ALL_OR_NOTHING))
+                .thenReturn(new BatchBookingResult(List.of(),
+                        List.of(new BatchBookingFailure(2L, ErrorMessage.TIME_SLOT_NOT_AVAILABLE))));
+
+        mvc.perform(post("/api/bookings/me/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.failed[0].timeSlotId").value(2))
+                .andExpect(jsonPath("$.failed[0].message").value(ErrorMessage.TIME_SLOT_NOT_AVAILABLE));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/me/batch — slot taken concurrently -> 409")
+    void createOwnBookings_concurrentlyTaken() throws Exception {
+        var req = new CreateBatchBookingRequest();
+        req.setTimeSlotIds(List.of(1L, 2L));
+        when(bookingService.createBookingsForCurrentUser(List.of(1L, 2L), BatchBookingMode.ALL_OR_NOTHING))
+                .thenThrow(new TimeSlotAlreadyBookedException(ErrorMessage.TIME_SLOT_NOT_AVAILABLE));
+
+        mvc.perform(post("/api/bookings/me/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("CONFLICT"))
+                .andExpect(jsonPath("$.message").value(ErrorMessage.TIME_SLOT_NOT_AVAILABLE));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/me/batch — empty list -> 400")
+    void createOwnBookings_empty() throws Exception {
+        var req = new CreateBatchBookingRequest();
+        req.setTimeSlotIds(List.of());
+
+        mvc.perform(post("/api/bookings/me/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/me — slot taken -> 400 from the error catalog, no stack trace")
+    void createOwnBooking_slotTaken() throws Exception {
+        var req = new CreateOwnBookingRequest();
+        req.setTimeSlotId(10L);
+        var rejection = new TimeSlotNotAvailableException(ErrorMessage.TIME_SLOT_NOT_AVAILABLE);
+        when(bookingService.createBookingForCurrentUser(10L)).thenThrow(rejection);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/api/bookings/me")
+                            .contentType(APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(req)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentType(APPLICATION_JSON))
+                    .andExpect(jsonPath("$.error").value("BUSINESS_ERROR"))
+                    .andExpect(jsonPath("$.message").value(ErrorMessage.TIME_SLOT_NOT_AVAILABLE));
+        }
+        assertEquals(0, rejection.getStackTrace().length);
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/me/calendar.ics — feed served as text/calendar with an ETag")
+    void getMyCalendar_success() throws Exception {
+        when(calendarFeedService.myBookingsETag()).thenReturn("\"7-u5-2\"");
+        when(calendarFeedService.myBookingsFeed()).thenReturn("BEGIN:VCALENDAR\r\n".getBytes());
+
+        mvc.perform(get("/api/bookings/me/calendar.ics"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-u5-2\""))
+                .andExpect(content().contentType("text/calendar;charset=UTF-8"))
+                .andExpect(content().string("BEGIN:VCALENDAR\r\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/me/calendar.ics — matching If-None-Match answered with 304, feed not rendered")
+    void getMyCalendar_notModified() throws Exception {
+        when(calendarFeedService.myBookingsETag()).thenReturn("\"7-u5-2\"");
+
+        mvc.perform(get("/api/bookings/me/calendar.ics").header(HttpHeaders.IF_NONE_MATCH, "\"7-u5-2\""))
+                .andExpect(status().isNotModified());
+
+        verify(calendarFeedService, never()).myBookingsFeed();
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/calendar/{token}.ics — feed resolved by the token")
+    void getCalendarByToken_success() throws Exception {
+        when(calendarFeedService.bookingsETag("abc")).thenReturn("\"7-u5-2\"");
+        when(calendarFeedService.bookingsFeed("abc")).thenReturn("BEGIN:VCALENDAR\r\n".getBytes());
+
+        mvc.perform(get("/api/bookings/calendar/abc.ics"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-u5-2\""))
+                .andExpect(content().string("BEGIN:VCALENDAR\r\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/calendar/{token}.ics — revoked token answered with 401")
+    void getCalendarByToken_revoked() throws Exception {
+        when(calendarFeedService.bookingsETag("old"))
+                .thenThrow(new InvalidTokenException(ErrorMessage.INVALID_OR_EXPIRED_TOKEN));
+
+        mvc.perform(get("/api/bookings/calendar/old.ics"))
+                .andExpect(status().isUnauthorized());
+
+        verify(calendarFeedService, never()).bookingsFeed(any());
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/me/calendar-token — returns the new feed URL")
+    void rotateCalendarToken_success() throws Exception {
+        when(calendarFeedService.rotateFeedToken()).thenReturn(
+                new CalendarFeedLinkDTO("abc", "http://localhost:8080/api/bookings/calendar/abc.ics"));
+
+        mvc.perform(post("/api/bookings/me/calendar-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("abc"))
+                .andExpect(jsonPath("$.bookingsUrl").value("http://localhost:8080/api/bookings/calendar/abc.ics"));
+    }
+
+    @Test
+    @DisplayName("DELETE /api/bookings/me/calendar-token — revokes the feed")
+    void revokeCalendarToken_success() throws Exception {
+        mvc.perform(delete("/api/bookings/me/calendar-token"))
+                .andExpect(status().isNoContent());
+
+        verify(calendarFeedService).revokeFeedToken();
+    }
 }
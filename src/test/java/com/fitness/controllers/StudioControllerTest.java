@@ -1,35 +1,60 @@
 package com.fitness.controllers;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.dto.StudioBookingExportRow;
 import com.fitness.dto.StudioCreateUpdateDTO;
 import com.fitness.dto.StudioDTO;
 import com.fitness.dto.UserDTO;
+import com.fitness.enums.BookingStatus;
+import com.fitness.exceptions.BulkheadRejectedException;
+import com.fitness.exceptions.InvalidDateRangeException;
 import com.fitness.exceptions.StudioNotFoundException;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.fitness.services.interfaces.CalendarFeedService;
 import com.fitness.services.interfaces.StudioService;
+import com.fitness.services.interfaces.ResourceVersionService;
 import com.fitness.config.security.JwtService;
 import com.fitness.config.security.UserDetailsServiceImpl;
+import com.fitness.web.Bulkheads;
+import com.fitness.web.CsvStreamer;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(StudioController.class)
+@Import(CsvStreamer.class)
 @AutoConfigureMockMvc(addFilters = false)
 public class StudioControllerTest {
     @Autowired
@@ -41,9 +66,25 @@ public class StudioControllerTest {
     @MockBean
     private StudioService studioService;
     @MockBean
+    private ResourceVersionService resourceVersionService;
+    @MockBean
     private JwtService jwtService;
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
+    @MockBean
+    private Bulkheads bulkheads;
+    @MockBean
+    private CalendarFeedService calendarFeedService;
+
+    @BeforeEach
+    void passThroughBulkheads() {
+        when(bulkheads.analytics(any())).thenAnswer(inv -> {
+            var result = new DeferredResult<>();
+            result.setResult(inv.<Supplier<?>>getArgument(0).get());
+            return result;
+        });
+        when(bulkheads.exports(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
 
     @Test
     @DisplayName("POST /api/studios — success")
@@ -112,6 +153,147 @@ public class StudioControllerTest {
                 .andExpect(jsonPath("$[1].id").value(4));
     }
 
+    @Test
+    @DisplayName("GET /api/studios — ETag issued, matching If-None-Match answered with 304")
+    void getAllStudios_notModified() throws Exception {
+        when(resourceVersionService.epoch()).thenReturn(7L);
+        when(resourceVersionService.studiosVersion()).thenReturn(3L);
+
+        mvc.perform(get("/api/studios").header(HttpHeaders.IF_NONE_MATCH, "\"7-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-3\""));
+
+        verifyNoInteractions(studioService);
+    }
+
+    @Test
+    @DisplayName("GET /api/studios — stale If-None-Match gets the body and the new ETag")
+    void getAllStudios_staleETag() throws Exception {
+        when(resourceVersionService.epoch()).thenReturn(7L);
+        when(resourceVersionService.studiosVersion()).thenReturn(4L);
+        when(studioService.getAllStudios()).thenReturn(List.of(new StudioDTO()));
+
+        mvc.perform(get("/api/studios").header(HttpHeaders.IF_NONE_MATCH, "\"7-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-4\""))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @DisplayName("GET /api/studios/{studioId}/bookings/export.csv — gzip-compressed CSV streamed from the service")
+    void exportBookings_gzip() throws Exception {
+        var row = new StudioBookingExportRow(21L, LocalDate.parse("2025-07-01"), LocalTime.of(10, 0),
+                LocalTime.of(11, 0), BookingStatus.CONFIRMED, LocalDateTime.parse("2025-06-20T08:30:00"),
+                5L, "Doe, \"Jo\"", "=cmd@example.com");
+        Consumer<Consumer<StudioBookingExportRow>> source = sink -> sink.accept(row);
+        when(studioService.exportBookings(3L, LocalDate.parse("2025-07-01"), LocalDate.parse("2025-07-31")))
+                .thenReturn(source);
+
+        MvcResult started = mvc.perform(get("/api/studios/3/bookings/export.csv")
+                        .param("from", "2025-07-01")
+                        .param("to", "2025-07-31")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("booking_id,date,start_time,end_time,status,created_at,user_id,user_name,user_email\r\n"
+                            + "21,2025-07-01,10:00,11:00,CONFIRMED,2025-06-20T08:30,5,\"Doe, \"\"Jo\"\"\",'=cmd@example.com\r\n",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/studios/{studioId}/bookings/export.csv — gzip;q=0 refuses compression")
+    void exportBookings_gzipRefused() throws Exception {
+        Consumer<Consumer<StudioBookingExportRow>> source = sink -> { };
+        when(studioService.exportBookings(eq(3L), any(), any())).thenReturn(source);
+
+        MvcResult started = mvc.perform(get("/api/studios/3/bookings/export.csv")
+                        .param("from", "2025-07-01")
+                        .param("to", "2025-07-31")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *;q=0.5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string(
+                        "booking_id,date,start_time,end_time,status,created_at,user_id,user_name,user_email\r\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/studios/{studioId}/bookings/export.csv — source failing midway aborts without a gzip trailer")
+    void exportBookings_sourceFails_truncatedGzip() throws Exception {
+        var row = new StudioBookingExportRow(21L, LocalDate.parse("2025-07-01"), LocalTime.of(10, 0),
+                LocalTime.of(11, 0), BookingStatus.CONFIRMED, LocalDateTime.parse("2025-06-20T08:30:00"),
+                5L, "Jo", "jo@example.com");
+        Consumer<Consumer<StudioBookingExportRow>> source = sink -> {
+            sink.accept(row);
+            throw new IllegalStateException("connection lost");
+        };
+        when(studioService.exportBookings(eq(3L), any(), any())).thenReturn(source);
+
+        MvcResult started = mvc.perform(get("/api/studios/3/bookings/export.csv")
+                        .param("from", "2025-07-01")
+                        .param("to", "2025-07-31")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThrows(Exception.class, () -> mvc.perform(asyncDispatch(started)));
+
+        byte[] body = started.getResponse().getContentAsByteArray();
+        assertThrows(EOFException.class, () -> {
+            try (var in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                in.readAllBytes();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("GET /api/studios/{studioId}/bookings/export.csv — end before start → 400 before streaming")
+    void exportBookings_invalidRange() throws Exception {
+        when(studioService.exportBookings(eq(3L), any(), any()))
+                .thenThrow(new InvalidDateRangeException(ErrorMessage.INVALID_DATE_RANGE));
+
+        mvc.perform(get("/api/studios/3/bookings/export.csv")
+                        .param("from", "2025-07-31")
+                        .param("to", "2025-07-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(ErrorMessage.INVALID_DATE_RANGE));
+    }
+
+    @Test
+    @DisplayName("GET /api/studios/{studioId}/calendar.ics — stale If-None-Match gets the feed and the new ETag")
+    void getStudioCalendar_staleETag() throws Exception {
+        when(calendarFeedService.studioScheduleETag(4L)).thenReturn("\"7-s4-9\"");
+        when(calendarFeedService.studioScheduleFeed(4L)).thenReturn("BEGIN:VCALENDAR\r\n".getBytes());
+
+        mvc.perform(get("/api/studios/4/calendar.ics").header(HttpHeaders.IF_NONE_MATCH, "\"7-s4-8\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-s4-9\""))
+                .andExpect(content().contentType("text/calendar;charset=UTF-8"))
+                .andExpect(content().string("BEGIN:VCALENDAR\r\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/studios/{studioId}/calendar.ics — unknown studio → 404")
+    void getStudioCalendar_notFound() throws Exception {
+        when(calendarFeedService.studioScheduleETag(99L))
+                .thenThrow(new StudioNotFoundException(ErrorMessage.STUDIO_NOT_FOUND));
+
+        mvc.perform(get("/api/studios/99/calendar.ics"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("PUT /api/studios/{id} — successful studio update")
     void updateStudio_success() throws Exception {
@@ -180,9 +362,13 @@ public class StudioControllerTest {
                 eq(LocalDate.parse("2025-07-31"))
         )).thenReturn(42L);
 
-        mvc.perform(get("/api/studios/9/unique-clients")
+        MvcResult started = mvc.perform(get("/api/studios/9/unique-clients")
                         .param("start", "2025-07-01")
                         .param("end", "2025-07-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
                 .andExpect(status().isOk())
                 .andExpect(content().string("42"));
     }
@@ -200,14 +386,33 @@ public class StudioControllerTest {
                 eq(LocalDate.parse("2025-07-31"))
         )).thenReturn(occupancy);
 
-        mvc.perform(get("/api/studios/10/occupancy")
+        MvcResult started = mvc.perform(get("/api/studios/10/occupancy")
                         .param("start", "2025-07-01")
                         .param("end", "2025-07-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.['2025-07-01']").value(5))
                 .andExpect(jsonPath("$.['2025-07-02']").value(3));
     }
 
+    @Test
+    @DisplayName("GET /api/studios/{studioId}/occupancy — analytics bulkhead full → 503")
+    void getOccupancy_bulkheadFull() throws Exception {
+        doThrow(new BulkheadRejectedException(ErrorMessage.BULKHEAD_FULL))
+                .when(bulkheads).analytics(any());
+
+        mvc.perform(get("/api/studios/10/occupancy")
+                        .param("start", "2025-07-01")
+                        .param("end", "2025-07-31"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("SERVICE_BUSY"))
+                .andExpect(jsonPath("$.message").value(ErrorMessage.BULKHEAD_FULL));
+        verifyNoInteractions(studioService);
+    }
+
     @Test
     @DisplayName("GET /api/studios/{studioId}/clients — Successfully retrieved customer list")
     void getUniqueClientsByStudio_success() throws Exception {
@@ -218,7 +423,11 @@ public class StudioControllerTest {
         when(studioService.getUniqueClientsByStudio(11L))
                 .thenReturn(List.of(user));
 
-        mvc.perform(get("/api/studios/11/clients"))
+        MvcResult started = mvc.perform(get("/api/studios/11/clients"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].id").value(11))
@@ -241,4 +450,16 @@ public class StudioControllerTest {
                 .andExpect(jsonPath("$.name").value("Boxing Gym"))
                 .andExpect(jsonPath("$.address").value("321 Pine St"));
     }
+
+    @Test
+    @DisplayName("GET /api/studios/{studioId}/calendar/{token}.ics — feed resolved by the owner's token")
+    void getStudioCalendarByToken_success() throws Exception {
+        when(calendarFeedService.studioScheduleETag(4L, "abc")).thenReturn("\"7-s4-9\"");
+        when(calendarFeedService.studioScheduleFeed(4L, "abc")).thenReturn("BEGIN:VCALENDAR\r\n".getBytes());
+
+        mvc.perform(get("/api/studios/4/calendar/abc.ics"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-s4-9\""))
+                .andExpect(content().string("BEGIN:VCALENDAR\r\n"));
+    }
 }
@@ -1,5 +1,6 @@
 package com.fitness.controllers;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.dto.SlotAvailabilityDelta;
 import com.fitness.dto.TimeSlotCreateDTO;
 import com.fitness.dto.TimeSlotDTO;
 import com.fitness.dto.TimeSlotUpdateDTO;
@@ -8,27 +9,41 @@ import com.fitness.exceptions.errorMessage.ErrorMessage;
 import com.fitness.services.interfaces.TimeSlotService;
 import com.fitness.config.security.JwtService;
 import com.fitness.config.security.UserDetailsServiceImpl;
+import com.fitness.web.JsonStreamer;
+import com.fitness.web.SlotAvailabilityStreamHub;
+import com.fitness.web.Bulkheads;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(TimeSlotController.class)
+@Import(JsonStreamer.class)
 @AutoConfigureMockMvc(addFilters = false)
 public class TimeSlotControllerTest {
     @Autowired
@@ -40,9 +55,18 @@ public class TimeSlotControllerTest {
     @MockBean
     private TimeSlotService timeSlotService;
     @MockBean
+    private SlotAvailabilityStreamHub slotAvailabilityStreamHub;
+    @MockBean
     private JwtService jwtService;
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
+    @MockBean
+    private Bulkheads bulkheads;
+
+    @BeforeEach
+    void passThroughBulkheads() {
+        when(bulkheads.exports(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
 
     @Test
     @DisplayName("POST /api/timeslots — successful slot creation")
@@ -118,9 +142,18 @@ public class TimeSlotControllerTest {
         var dto1 = new TimeSlotDTO(3L, LocalDate.now(), LocalTime.NOON, LocalTime.NOON.plusHours(1), true, 3L, false);
         var dto2 = new TimeSlotDTO(4L, LocalDate.now(), LocalTime.NOON, LocalTime.NOON.plusHours(1), false, 3L, false);
 
-        when(timeSlotService.getAllTimeSlots()).thenReturn(List.of(dto1, dto2));
+        doAnswer(inv -> {
+            Consumer<TimeSlotDTO> sink = inv.getArgument(0);
+            sink.accept(dto1);
+            sink.accept(dto2);
+            return null;
+        }).when(timeSlotService).streamAllTimeSlots(any());
 
-        mvc.perform(get("/api/timeslots"))
+        MvcResult result = mvc.perform(get("/api/timeslots"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(2))
                 .andExpect(jsonPath("$[0].id").value(3))
@@ -219,14 +252,52 @@ public class TimeSlotControllerTest {
                 eq(LocalDate.parse("2025-07-01")),
                 eq(LocalDate.parse("2025-07-31"))
         )).thenReturn(List.of(dto));
+        when(timeSlotService.availableSlotsETag(12L)).thenReturn("\"0-1-2\"");
 
         mvc.perform(get("/api/timeslots/studio/12/available")
                         .param("start", "2025-07-01")
                         .param("end", "2025-07-31"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0-1-2\""))
                 .andExpect(jsonPath("$[0].id").value(11));
     }
 
+    @Test
+    @DisplayName("GET /api/timeslots/studio/{studioId}/available — not the owner → 403 before the ETag is compared")
+    void getAvailableSlots_notOwner_forbiddenEvenWithMatchingETag() throws Exception {
+        when(timeSlotService.availableSlotsETag(12L))
+                .thenThrow(new AccessDeniedException(ErrorMessage.ACCESS_DENIED_NOT_YOUR_STUDIO));
+
+        mvc.perform(get("/api/timeslots/studio/12/available")
+                        .header("If-None-Match", "\"0-1-2\"")
+                        .param("start", "2025-07-01")
+                        .param("end", "2025-07-31"))
+                .andExpect(status().isForbidden());
+
+        verify(timeSlotService, never()).getAvailableSlotsByStudio(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/timeslots/available — successful multi-studio search")
+    void getAvailableSlotsAcrossStudios_success() throws Exception {
+        var dto1 = new TimeSlotDTO(15L, LocalDate.parse("2025-07-01"), LocalTime.parse("08:00"), LocalTime.parse("09:00"), true, 1L, false);
+        var dto2 = new TimeSlotDTO(16L, LocalDate.parse("2025-07-01"), LocalTime.parse("11:00"), LocalTime.parse("12:00"), true, 2L, false);
+
+        when(timeSlotService.getAvailableSlots(
+                eq(List.of(1L, 2L)),
+                eq(LocalDate.parse("2025-07-01")),
+                eq(LocalDate.parse("2025-07-31"))
+        )).thenReturn(List.of(dto1, dto2));
+
+        mvc.perform(get("/api/timeslots/available")
+                        .param("studioIds", "1", "2")
+                        .param("start", "2025-07-01")
+                        .param("end", "2025-07-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].studioId").value(2));
+    }
+
     @Test
     @DisplayName("GET /api/timeslots/studio/{studioId}/dates — successful get of slots by date range")
     void getTimeSlotsByStudioAndDateRange_success() throws Exception {
@@ -245,4 +316,26 @@ public class TimeSlotControllerTest {
                 .andExpect(jsonPath("$[0].id").value(13))
                 .andExpect(jsonPath("$[0].available").value(false));
     }
+
+    @Test
+    @DisplayName("GET /api/timeslots/studio/{studioId}/stream — streams availability deltas as SSE")
+    void streamAvailability_success() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        emitter.send(SseEmitter.event()
+                .name("availability")
+                .id("4")
+                .data(List.of(new SlotAvailabilityDelta(21L, false, 4)), APPLICATION_JSON));
+        emitter.complete();
+        when(slotAvailabilityStreamHub.subscribe(3L)).thenReturn(emitter);
+
+        MvcResult result = mvc.perform(get("/api/timeslots/studio/3/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/event-stream"))
+                .andExpect(content().string(containsString("event:availability")))
+                .andExpect(content().string(containsString("\"slotId\":21")));
+    }
 }
@@ -4,30 +4,45 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fitness.config.security.JwtService;
 import com.fitness.config.security.UserDetailsServiceImpl;
 import com.fitness.dto.ChangePasswordRequest;
+import com.fitness.dto.SessionDTO;
 import com.fitness.dto.UpdateUserRequest;
 import com.fitness.dto.UserDTO;
+import com.fitness.dto.UserSearchPage;
+import com.fitness.enums.Role;
+import com.fitness.exceptions.SessionNotFoundException;
 import com.fitness.exceptions.UserNotFoundException;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.fitness.models.User;
+import com.fitness.services.interfaces.AuthenticationService;
 import com.fitness.services.interfaces.CurrentUserService;
 import com.fitness.services.interfaces.UserService;
+import com.fitness.web.JsonStreamer;
+import com.fitness.web.Bulkheads;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 @WebMvcTest(UserController.class)
+@Import(JsonStreamer.class)
 @AutoConfigureMockMvc(addFilters = false)
 public class UserControllerTest {
     @Autowired
@@ -44,6 +59,15 @@ public class UserControllerTest {
     private UserDetailsServiceImpl userDetailsService;
     @MockBean
     private CurrentUserService currentUserService;
+    @MockBean
+    private AuthenticationService authenticationService;
+    @MockBean
+    private Bulkheads bulkheads;
+
+    @BeforeEach
+    void passThroughBulkheads() {
+        when(bulkheads.exports(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
 
 
     @Test
@@ -93,9 +117,18 @@ public class UserControllerTest {
         dto2.setEmail("b@c.com");
         dto2.setPhoneNumber("p2");
 
-        when(userService.getAllUsers()).thenReturn(List.of(dto1, dto2));
+        doAnswer(inv -> {
+            Consumer<UserDTO> sink = inv.getArgument(0);
+            sink.accept(dto1);
+            sink.accept(dto2);
+            return null;
+        }).when(userService).streamAllUsers(any());
+
+        MvcResult result = mvc.perform(get("/api/users"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        mvc.perform(get("/api/users"))
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(APPLICATION_JSON))
                 .andExpect(jsonPath("$.length()").value(2))
@@ -103,6 +136,27 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$[1].id").value(2));
     }
 
+    @Test
+    @DisplayName("GET /api/users/search — filters passed through, page with next cursor returned")
+    void searchUsers_success() throws Exception {
+        var dto = new UserDTO();
+        dto.setId(42L);
+        dto.setName("Inna");
+        when(userService.searchUsers("inn", Role.USER, true, 40L, 20))
+                .thenReturn(new UserSearchPage(List.of(dto), 42L));
+
+        mvc.perform(get("/api/users/search")
+                        .param("q", "inn")
+                        .param("role", "USER")
+                        .param("enabled", "true")
+                        .param("after", "40")
+                        .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].name").value("Inna"))
+                .andExpect(jsonPath("$.nextAfter").value(42));
+    }
+
     @Test
     @DisplayName("PUT /api/users/{id} — successful user update")
     void updateUser_success() throws Exception {
@@ -220,4 +274,37 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.message")
                         .value("An unexpected error occurred. Please try again later."));
     }
+
+    @Test
+    @DisplayName("GET /api/users/me/sessions — lists active sessions")
+    void getMySessions_success() throws Exception {
+        User me = new User();
+        me.setEmail("me@example.com");
+        when(currentUserService.getCurrentUser()).thenReturn(me);
+        var now = LocalDateTime.parse("2025-07-01T10:00:00");
+        when(authenticationService.getSessions("me@example.com")).thenReturn(List.of(
+                new SessionDTO("f1", "phone", now.minusDays(2), now, now.plusDays(7)),
+                new SessionDTO("f2", "tablet", now.minusDays(5), now.minusDays(1), now.plusDays(6))
+        ));
+
+        mvc.perform(get("/api/users/me/sessions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].sessionId").value("f1"))
+                .andExpect(jsonPath("$[1].deviceId").value("tablet"));
+    }
+
+    @Test
+    @DisplayName("DELETE /api/users/me/sessions/{id} — unknown session")
+    void revokeMySession_notFound() throws Exception {
+        User me = new User();
+        me.setEmail("me@example.com");
+        when(currentUserService.getCurrentUser()).thenReturn(me);
+        doThrow(new SessionNotFoundException(ErrorMessage.SESSION_NOT_FOUND))
+                .when(authenticationService).revokeSession("me@example.com", "nope");
+
+        mvc.perform(delete("/api/users/me/sessions/nope"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value(ErrorMessage.SESSION_NOT_FOUND));
+    }
 }
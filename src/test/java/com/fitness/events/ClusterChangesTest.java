@@ -0,0 +1,85 @@
+package com.fitness.events;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ClusterChangesTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<String> received = new ArrayList<>();
+    private ClusterChanges changes;
+
+    @BeforeEach
+    void setUp() {
+        changes = new ClusterChanges(jdbcTemplate, new DataSourceProperties(),
+                Duration.ofMillis(100), Duration.ofMillis(100));
+        changes.subscribe("slots", received::add);
+    }
+
+    private String published(String topic, String payload) {
+        changes.publish(topic, payload);
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(ClusterChanges.CHANNEL), message.capture());
+        return message.getValue();
+    }
+
+    @Test
+    void ownMessages_areSkipped() {
+        changes.dispatch(published("slots", "5"));
+
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void otherNodesMessages_reachTheTopicsHandler() {
+        changes.dispatch("othernode:slots:5");
+        changes.dispatch("othernode:studios:");
+
+        assertEquals(List.of("5"), received);
+    }
+
+    @Test
+    void payload_keepsItsSeparators() {
+        changes.dispatch("othernode:slots:5:2025-07-01");
+
+        assertEquals(List.of("5:2025-07-01"), received);
+    }
+
+    @Test
+    void failingHandler_doesNotStopTheListener() {
+        changes.subscribe("studios", payload -> {
+            throw new IllegalStateException("boom");
+        });
+
+        changes.dispatch("othernode:studios:");
+        changes.dispatch("othernode:slots:6");
+
+        assertEquals(List.of("6"), received);
+    }
+
+    @Test
+    void resync_runsEveryActionEvenIfOneFails() {
+        Runnable first = mock(Runnable.class);
+        Runnable second = mock(Runnable.class);
+        doThrow(new IllegalStateException("database down")).when(first).run();
+        changes.onResync(first);
+        changes.onResync(second);
+
+        changes.resync();
+
+        verify(second).run();
+    }
+}
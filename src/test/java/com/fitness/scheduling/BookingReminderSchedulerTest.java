@@ -0,0 +1,84 @@
+package com.fitness.scheduling;
+
+import com.fitness.enums.BookingStatus;
+import com.fitness.models.Booking;
+import com.fitness.models.User;
+import com.fitness.repositories.BookingRepository;
+import com.fitness.repositories.SchedulerLeaseRepository;
+import com.fitness.services.interfaces.EmailService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class BookingReminderSchedulerTest {
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final SchedulerLeaseRepository leaseRepository = mock(SchedulerLeaseRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Booking first = booking(1L);
+    private final Booking second = booking(2L);
+    private SchedulerLeases schedulerLeases;
+    private BookingReminderScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        when(leaseRepository.tryAcquire(anyString(), anyString(), anyDouble())).thenReturn(1);
+        when(bookingRepository.findByTimeSlot_DateAndStatus(LocalDate.now().plusDays(1), BookingStatus.CONFIRMED))
+                .thenReturn(List.of(first, second));
+        schedulerLeases = new SchedulerLeases(leaseRepository, meterRegistry,
+                Duration.ofMillis(30), Duration.ofMinutes(5));
+        scheduler = new BookingReminderScheduler(bookingRepository, emailService, schedulerLeases);
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulerLeases.shutdown();
+    }
+
+    private static Booking booking(long id) {
+        User user = new User();
+        user.setId(id);
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setUser(user);
+        return booking;
+    }
+
+    @Test
+    void heldLease_remindsEveryBooking() {
+        when(leaseRepository.renew(anyString(), anyString(), anyDouble())).thenReturn(1);
+
+        scheduler.sendTomorrowReminders();
+
+        verify(emailService).sendBookingReminderEmail(first.getUser(), first);
+        verify(emailService).sendBookingReminderEmail(second.getUser(), second);
+    }
+
+    @Test
+    void lostLease_stopsBeforeTheNextReminder() {
+        when(leaseRepository.renew(anyString(), anyString(), anyDouble())).thenReturn(0);
+        doAnswer(inv -> {
+            // another node takes the lease over while the first reminder is sent
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.find("scheduler.lease.lost").counter() == null && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            return null;
+        }).when(emailService).sendBookingReminderEmail(first.getUser(), first);
+
+        scheduler.sendTomorrowReminders();
+
+        verify(emailService, times(1)).sendBookingReminderEmail(any(), any());
+    }
+}
@@ -0,0 +1,181 @@
+package com.fitness.scheduling;
+
+import com.fitness.models.SchedulerLease;
+import com.fitness.repositories.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class SchedulerLeasesTest {
+    private final SchedulerLeaseRepository leaseRepository = mock(SchedulerLeaseRepository.class);
+    private MeterRegistry meterRegistry;
+    private SchedulerLeases leases;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(leaseRepository.findById("job")).thenReturn(Optional.empty());
+        leases = leases(Duration.ofMinutes(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        leases.shutdown();
+    }
+
+    private SchedulerLeases leases(Duration ttl) {
+        return new SchedulerLeases(leaseRepository, meterRegistry, ttl, Duration.ofMinutes(5));
+    }
+
+    private long acquisitions(String outcome) {
+        return meterRegistry.get("scheduler.lease.acquire").tag("outcome", outcome).timer().count();
+    }
+
+    // holds the job until the lease is lost, or fails after five seconds
+    private static void awaitLost(SchedulerLeases.Lease lease) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!lease.lost() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void freeLease_runsTheJobAndReleasesIt() {
+        when(leaseRepository.tryAcquire(eq("job"), anyString(), eq(120.0))).thenReturn(1);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertTrue(leases.runExclusively("job", () -> ran.set(true)));
+
+        assertTrue(ran.get());
+        verify(leaseRepository).release(eq("job"), anyString(), eq(300.0));
+        assertEquals(1, acquisitions("acquired"));
+    }
+
+    @Test
+    void heldLease_skipsTheJob() {
+        when(leaseRepository.tryAcquire(eq("job"), anyString(), anyDouble())).thenReturn(0);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertFalse(leases.runExclusively("job", () -> ran.set(true)));
+
+        assertFalse(ran.get());
+        verify(leaseRepository, never()).release(anyString(), anyString(), anyDouble());
+        assertEquals(1, acquisitions("skipped"));
+    }
+
+    @Test
+    void failingJob_stillReleasesTheLease() {
+        when(leaseRepository.tryAcquire(eq("job"), anyString(), anyDouble())).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> leases.runExclusively("job", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        verify(leaseRepository).release(eq("job"), anyString(), anyDouble());
+    }
+
+    @Test
+    void expiredLeaseOfAnotherNode_isTakenOverAndRecorded() {
+        LocalDateTime lastHeartbeat = LocalDateTime.of(2025, 7, 1, 3, 0);
+        SchedulerLease crashed = new SchedulerLease("job", "other:1", lastHeartbeat.minusMinutes(1),
+                lastHeartbeat, lastHeartbeat.plusMinutes(2), null);
+        SchedulerLease taken = new SchedulerLease("job", "me", lastHeartbeat.plusMinutes(3),
+                lastHeartbeat.plusMinutes(3), lastHeartbeat.plusMinutes(5), null);
+        when(leaseRepository.findById("job")).thenReturn(Optional.of(crashed), Optional.of(taken));
+        when(leaseRepository.tryAcquire(eq("job"), anyString(), anyDouble())).thenReturn(1);
+
+        assertTrue(leases.runExclusively("job", () -> { }));
+
+        var failover = meterRegistry.get("scheduler.lease.failover").tag("lease", "job").timer();
+        assertEquals(1, failover.count());
+        assertEquals(180.0, failover.totalTime(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void releasedLeaseOfAnotherNode_isNoFailover() {
+        LocalDateTime at = LocalDateTime.of(2025, 7, 1, 3, 0);
+        SchedulerLease finished = new SchedulerLease("job", "other:1", at, at, at.plusMinutes(5), at);
+        when(leaseRepository.findById("job")).thenReturn(Optional.of(finished));
+        when(leaseRepository.tryAcquire(eq("job"), anyString(), anyDouble())).thenReturn(1);
+
+        assertTrue(leases.runExclusively("job", () -> { }));
+
+        assertNull(meterRegistry.find("scheduler.lease.failover").timer());
+    }
+
+    @Test
+    void renewedLease_isNotLost() {
+        leases = leases(Duration.ofMillis(30));
+        when(leaseRepository.tryAcquire(eq("job"), anyString(), anyDouble())).thenReturn(1);
+        when(leaseRepository.renew(eq("job"), anyString(), anyDouble())).thenReturn(1);
+        AtomicReference<SchedulerLeases.Lease> held = new AtomicReference<>();
+
+        leases.runExclusively("job", lease -> {
+            verify(leaseRepository, timeout(5000).atLeast(3)).renew(eq("job"), anyString(), anyDouble());
+            held.set(lease);
+        });
+
+        assertFalse(held.get().lost());
+    }
+
+    @Test
+    void renewalFindingAnotherOwner_losesTheLease() {
+        leases = leases(Duration.ofMillis(30));
+        when(leaseRepository.tryAcquire(eq("job"), anyString(), anyDouble())).thenReturn(1);
+        when(leaseRepository.renew(eq("job"), anyString(), anyDouble())).thenReturn(0);
+        AtomicReference<SchedulerLeases.Lease> held = new AtomicReference<>();
+
+        leases.runExclusively("job", lease -> {
+            awaitLost(lease);
+            held.set(lease);
+        });
+
+        assertTrue(held.get().lost());
+        assertEquals(1, meterRegistry.get("scheduler.lease.lost").tag("lease", "job").counter().count());
+    }
+
+    @Test
+    void renewalsFailingForAWholeTtl_loseTheLease() {
+        leases = leases(Duration.ofMillis(30));
+        when(leaseRepository.tryAcquire(eq("job"), anyString(), anyDouble())).thenReturn(1);
+        when(leaseRepository.renew(eq("job"), anyString(), anyDouble()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        AtomicReference<SchedulerLeases.Lease> held = new AtomicReference<>();
+
+        leases.runExclusively("job", lease -> {
+            awaitLost(lease);
+            held.set(lease);
+        });
+
+        assertTrue(held.get().lost());
+    }
+
+    @Test
+    void newOwner_afterRestore_isUsedForTheNextRun() {
+        when(leaseRepository.tryAcquire(eq("job"), anyString(), anyDouble())).thenReturn(1);
+        leases.runExclusively("job", () -> { });
+        leases.resetOwner();
+        leases.runExclusively("job", () -> { });
+
+        ArgumentCaptor<String> owners = ArgumentCaptor.forClass(String.class);
+        verify(leaseRepository, times(2)).tryAcquire(eq("job"), owners.capture(), anyDouble());
+        assertNotEquals(owners.getAllValues().get(0), owners.getAllValues().get(1));
+    }
+}
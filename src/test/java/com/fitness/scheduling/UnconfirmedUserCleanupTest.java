@@ -0,0 +1,106 @@
+package com.fitness.scheduling;
+
+import com.fitness.repositories.SchedulerLeaseRepository;
+import com.fitness.repositories.UserRepository;
+import com.fitness.services.interfaces.EntityCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class UnconfirmedUserCleanupTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SchedulerLeaseRepository leaseRepository = mock(SchedulerLeaseRepository.class);
+    private final EntityCacheService entityCacheService = mock(EntityCacheService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SchedulerLeases schedulerLeases;
+    private UnconfirmedUserCleanup cleanup;
+
+    @BeforeEach
+    void setUp() {
+        when(leaseRepository.tryAcquire(anyString(), anyString(), anyDouble())).thenReturn(1);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        schedulerLeases = new SchedulerLeases(leaseRepository, meterRegistry,
+                Duration.ofMinutes(2), Duration.ofMinutes(5));
+        cleanup = new UnconfirmedUserCleanup(userRepository, schedulerLeases, entityCacheService,
+                transactionManager, meterRegistry, 7, 2, 10, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulerLeases.shutdown();
+    }
+
+    @Test
+    void bulkDelete_evictsTheUserRegionInItsTransaction() {
+        when(userRepository.lockUnconfirmedIdsCreatedBefore(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(userRepository.deleteAllByIdIn(List.of(1L, 2L))).thenReturn(2);
+        when(userRepository.deleteAllByIdIn(List.of(3L))).thenReturn(1);
+
+        cleanup.purgeOldUnconfirmedUsers();
+
+        var order = inOrder(userRepository, entityCacheService, transactionManager);
+        order.verify(userRepository).deleteAllByIdIn(List.of(1L, 2L));
+        order.verify(entityCacheService).usersDeleted();
+        order.verify(transactionManager).commit(any());
+        order.verify(userRepository).deleteAllByIdIn(List.of(3L));
+        order.verify(entityCacheService).usersDeleted();
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void lostLease_stopsBeforeTheNextChunk() {
+        schedulerLeases.shutdown();
+        schedulerLeases = new SchedulerLeases(leaseRepository, meterRegistry,
+                Duration.ofMillis(30), Duration.ofMinutes(5));
+        cleanup = new UnconfirmedUserCleanup(userRepository, schedulerLeases, entityCacheService,
+                transactionManager, meterRegistry, 7, 2, 10, 0);
+        when(leaseRepository.renew(anyString(), anyString(), anyDouble())).thenReturn(0);
+        when(userRepository.lockUnconfirmedIdsCreatedBefore(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(1L, 2L));
+        when(userRepository.deleteAllByIdIn(List.of(1L, 2L))).thenAnswer(inv -> {
+            // another node takes the lease over while the first chunk runs
+            verify(leaseRepository, timeout(5000)).renew(anyString(), anyString(), anyDouble());
+            awaitLostLease();
+            return 2;
+        });
+
+        cleanup.purgeOldUnconfirmedUsers();
+
+        verify(userRepository, times(1)).deleteAllByIdIn(any());
+    }
+
+    private void awaitLostLease() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.find("scheduler.lease.lost").counter() == null && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void nothingToDelete_leavesTheCacheAlone() {
+        when(userRepository.lockUnconfirmedIdsCreatedBefore(any(LocalDateTime.class), anyInt()))
+                .thenReturn(List.of());
+
+        cleanup.purgeOldUnconfirmedUsers();
+
+        verify(userRepository, never()).deleteAllByIdIn(any());
+        verifyNoInteractions(entityCacheService);
+    }
+}
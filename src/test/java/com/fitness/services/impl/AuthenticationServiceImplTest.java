@@ -1,7 +1,9 @@
 package com.fitness.services.impl;
 
 import com.fitness.config.security.JwtService;
+import com.fitness.config.security.TokenHashes;
 import com.fitness.dto.AuthResponse;
+import com.fitness.exceptions.SessionNotFoundException;
 import com.fitness.exceptions.errorMessage.ErrorMessage;
 import com.fitness.models.RefreshToken;
 import com.fitness.models.User;
@@ -13,12 +15,15 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 public class AuthenticationServiceImplTest {
+    private static final String HASH = TokenHashes.sha256("r");
+
     private AuthenticationManager authManager;
     private JwtService jwtService;
     private RefreshTokenRepository refreshTokenRepo;
@@ -34,7 +39,9 @@ public class AuthenticationServiceImplTest {
         service = new AuthenticationServiceImpl(authManager,
                 jwtService,
                 refreshTokenRepo,
-                userRepository);
+                userRepository,
+                100,
+                Duration.ofMinutes(5));
     }
 
 
@@ -55,13 +62,13 @@ public class AuthenticationServiceImplTest {
         when(jwtService.generateRefreshToken(email)).thenReturn(refresh);
         when(jwtService.getRefreshExpiration()).thenReturn(refreshExp);
 
-        AuthResponse resp = service.login(email, password);
+        AuthResponse resp = service.login(email, password, null);
 
         verify(authManager).authenticate(new UsernamePasswordAuthenticationToken(email, password));
-        verify(refreshTokenRepo).deleteByUsername(email);
+        verify(refreshTokenRepo, never()).revokeDevice(any(), any(), any());
         verify(refreshTokenRepo).save(argThat(rt ->
                 rt.getUsername().equals(email) &&
-                        rt.getToken().equals(refresh) &&
+                        rt.getTokenHash().equals(TokenHashes.sha256(refresh)) &&
                         rt.getExpiresAt().isAfter(LocalDateTime.now())
         ));
         assertEquals(access,  resp.getAccessToken());
@@ -73,7 +80,7 @@ public class AuthenticationServiceImplTest {
         doThrow(new BadCredentialsException("bad"))
                 .when(authManager).authenticate(any());
         assertThrows(BadCredentialsException.class,
-                () -> service.login("e","p"));
+                () -> service.login("e","p", null));
         verifyNoMoreInteractions(jwtService, refreshTokenRepo);
     }
 
@@ -90,7 +97,7 @@ public class AuthenticationServiceImplTest {
     @Test
     void refresh_tokenNotFound_throws() {
         when(jwtService.isRefreshToken("r")).thenReturn(true);
-        when(refreshTokenRepo.findByToken("r")).thenReturn(Optional.empty());
+        when(refreshTokenRepo.findByTokenHash(HASH)).thenReturn(Optional.empty());
         BadCredentialsException ex = assertThrows(BadCredentialsException.class,
                 () -> service.refresh("r")
         );
@@ -103,26 +110,105 @@ public class AuthenticationServiceImplTest {
         RefreshToken rt = new RefreshToken();
         rt.setUsername("u");
         rt.setExpiresAt(LocalDateTime.now().minusSeconds(1));
-        when(refreshTokenRepo.findByToken("r")).thenReturn(Optional.of(rt));
+        when(refreshTokenRepo.findByTokenHash(HASH)).thenReturn(Optional.of(rt));
 
         assertThrows(BadCredentialsException.class,
                 () -> service.refresh("r")
         );
-        verify(refreshTokenRepo).delete(rt);
+        verify(refreshTokenRepo).deleteByTokenHash(HASH);
+    }
+
+    private static RefreshToken activeToken(String username) {
+        return RefreshToken.builder()
+                .id(7L)
+                .username(username)
+                .familyId("family-1")
+                .deviceId("phone")
+                .sessionStartedAt(LocalDateTime.now().minusDays(1))
+                .expiresAt(LocalDateTime.now().plusSeconds(60))
+                .build();
     }
 
     @Test
-    void refresh_successful() {
+    void refresh_successful_rotatesWithinFamily() {
         when(jwtService.isRefreshToken("r")).thenReturn(true);
-        RefreshToken rt = new RefreshToken();
-        rt.setUsername("u");
-        rt.setExpiresAt(LocalDateTime.now().plusSeconds(60));
-        when(refreshTokenRepo.findByToken("r")).thenReturn(Optional.of(rt));
+        when(refreshTokenRepo.findByTokenHash(HASH)).thenReturn(Optional.of(activeToken("u")));
+        when(refreshTokenRepo.revokeIfActive(eq(7L), any())).thenReturn(1);
         when(jwtService.generateToken("u")).thenReturn("new-access");
+        when(jwtService.generateRefreshToken("u")).thenReturn("new-refresh");
 
         AuthResponse resp = service.refresh("r");
 
         assertEquals("new-access", resp.getAccessToken());
-        assertEquals("r",          resp.getRefreshToken());
+        assertEquals("new-refresh", resp.getRefreshToken());
+        verify(refreshTokenRepo).save(argThat(rt ->
+                rt.getTokenHash().equals(TokenHashes.sha256("new-refresh")) &&
+                        rt.getFamilyId().equals("family-1") &&
+                        rt.getDeviceId().equals("phone")
+        ));
+    }
+
+    @Test
+    void refresh_reusedToken_revokesFamily() {
+        when(jwtService.isRefreshToken("r")).thenReturn(true);
+        when(refreshTokenRepo.findByTokenHash(HASH)).thenReturn(Optional.of(activeToken("u")));
+        when(refreshTokenRepo.revokeIfActive(eq(7L), any())).thenReturn(1);
+        when(jwtService.generateRefreshToken("u")).thenReturn("new-refresh");
+
+        service.refresh("r");
+        assertThrows(BadCredentialsException.class, () -> service.refresh("r"));
+
+        verify(refreshTokenRepo, times(1)).findByTokenHash(HASH);
+        verify(refreshTokenRepo).revokeFamily(eq("family-1"), any());
+    }
+
+    @Test
+    void refresh_concurrentRotation_revokesFamily() {
+        when(jwtService.isRefreshToken("r")).thenReturn(true);
+        when(refreshTokenRepo.findByTokenHash(HASH)).thenReturn(Optional.of(activeToken("u")));
+        when(refreshTokenRepo.revokeIfActive(eq(7L), any())).thenReturn(0);
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh("r"));
+
+        verify(refreshTokenRepo).revokeFamily(eq("family-1"), any());
+        verify(refreshTokenRepo, never()).save(any());
+    }
+
+    @Test
+    void refresh_cachesMisses() {
+        when(jwtService.isRefreshToken("gone")).thenReturn(true);
+        when(refreshTokenRepo.findByTokenHash(TokenHashes.sha256("gone"))).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh("gone"));
+        assertThrows(BadCredentialsException.class, () -> service.refresh("gone"));
+
+        verify(refreshTokenRepo, times(1)).findByTokenHash(TokenHashes.sha256("gone"));
+    }
+
+    @Test
+    void login_sameDevice_revokesPreviousSessionOnly() {
+        User u = new User();
+        u.setEmail("user@example.com");
+        u.setEnabled(true);
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(u));
+        when(jwtService.generateRefreshToken("user@example.com")).thenReturn("new-refresh");
+
+        service.login("user@example.com", "pass", "tablet");
+
+        verify(refreshTokenRepo).revokeDevice(eq("user@example.com"), eq("tablet"), any());
+        verify(refreshTokenRepo, never()).revokeAllByUsername(any(), any());
+        verify(refreshTokenRepo).save(argThat(rt -> "tablet".equals(rt.getDeviceId()) && rt.getFamilyId() != null));
+    }
+
+    @Test
+    void revokeSession_unknown_throws() {
+        when(refreshTokenRepo.revokeFamilyOfUser(eq("u"), eq("nope"), any())).thenReturn(0);
+        assertThrows(SessionNotFoundException.class, () -> service.revokeSession("u", "nope"));
+    }
+
+    @Test
+    void tokenHash_isFixedLengthHex() {
+        assertEquals(TokenHashes.LENGTH, HASH.length());
+        assertTrue(HASH.matches("[0-9a-f]+"));
     }
 }
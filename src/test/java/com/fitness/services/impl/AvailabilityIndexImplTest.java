@@ -0,0 +1,204 @@
+package com.fitness.services.impl;
+
+import com.fitness.dto.SlotAvailabilityDelta;
+import com.fitness.dto.TimeSlotDTO;
+import com.fitness.enums.BookingStatus;
+import com.fitness.events.ClusterChanges;
+import com.fitness.events.SlotAvailabilityChangedEvent;
+import com.fitness.repositories.BookingRepository;
+import com.fitness.repositories.TimeSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AvailabilityIndexImplTest {
+    private static final LocalDate DAY = LocalDate.now().plusDays(3);
+
+    private TimeSlotRepository slotRepo;
+    private BookingRepository bookingRepo;
+    private ApplicationEventPublisher eventPublisher;
+    private ClusterChanges clusterChanges;
+    private AvailabilityIndexImpl index;
+
+    @BeforeEach
+    void setUp() {
+        slotRepo = mock(TimeSlotRepository.class);
+        bookingRepo = mock(BookingRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        clusterChanges = mock(ClusterChanges.class);
+        index = new AvailabilityIndexImpl(slotRepo, bookingRepo, mock(PlatformTransactionManager.class),
+                eventPublisher, clusterChanges, 7);
+    }
+
+    private static TimeSlotDTO slot(long id, long studioId, String start, String end, boolean available) {
+        return new TimeSlotDTO(id, DAY, LocalTime.parse(start), LocalTime.parse(end), available, studioId, false);
+    }
+
+    private List<Long> ids(Optional<List<TimeSlotDTO>> slots) {
+        return slots.orElseThrow().stream().map(TimeSlotDTO::getId).toList();
+    }
+
+    @Test
+    void beforeFirstBuild_returnsEmptySoCallerFallsBack() {
+        assertTrue(index.findAvailable(List.of(1L), DAY, DAY).isEmpty());
+    }
+
+    @Test
+    void rangeOlderThanWindow_returnsEmpty() {
+        index.rebuild();
+        assertTrue(index.findAvailable(List.of(1L), LocalDate.now().minusDays(30), DAY).isEmpty());
+    }
+
+    @Test
+    void sameStudioOverlap_andOtherStudioBuffer_hideSlots() {
+        when(slotRepo.findDtosFrom(any())).thenReturn(List.of(
+                slot(1L, 1L, "10:00", "11:00", false),
+                slot(2L, 1L, "10:30", "11:30", true),
+                slot(3L, 1L, "11:00", "12:00", true),
+                slot(4L, 2L, "11:30", "12:30", true),
+                slot(5L, 2L, "13:00", "14:00", true)
+        ));
+        when(bookingRepo.findActiveSlotIdsFrom(any(), eq(BookingStatus.CANCELLED))).thenReturn(List.of(1L));
+        index.rebuild();
+
+        assertEquals(List.of(3L), ids(index.findAvailable(List.of(1L), DAY, DAY)));
+        assertEquals(List.of(5L), ids(index.findAvailable(List.of(2L), DAY, DAY)));
+        assertEquals(List.of(3L, 5L), ids(index.findAvailable(List.of(1L, 2L), DAY, DAY)));
+    }
+
+    @Test
+    void bookingAndSlotMutations_updateMasks() {
+        when(slotRepo.findDtosFrom(any())).thenReturn(List.of(
+                slot(1L, 1L, "10:00", "11:00", true),
+                slot(2L, 2L, "11:30", "12:30", true)
+        ));
+        index.rebuild();
+        assertEquals(List.of(1L, 2L), ids(index.findAvailable(List.of(1L, 2L), DAY, DAY)));
+
+        index.slotBooked(1L, true);
+        assertEquals(List.of(), ids(index.findAvailable(List.of(1L, 2L), DAY, DAY)));
+
+        index.slotSaved(slot(1L, 1L, "08:00", "09:00", false));
+        assertEquals(List.of(2L), ids(index.findAvailable(List.of(2L), DAY, DAY)));
+
+        index.slotBooked(1L, false);
+        index.slotDeleted(2L);
+        assertEquals(List.of(1L), ids(index.findAvailable(List.of(1L, 2L), DAY, DAY)));
+    }
+
+    @Test
+    void offGridTimes_roundOutwards() {
+        assertEquals(1, AvailabilityIndexImpl.cells(LocalTime.of(10, 0), LocalTime.of(10, 5)).cardinality());
+        assertEquals(2, AvailabilityIndexImpl.cells(LocalTime.of(10, 3), LocalTime.of(10, 7)).cardinality());
+        assertEquals(AvailabilityIndexImpl.CELLS_PER_DAY,
+                AvailabilityIndexImpl.cells(LocalTime.of(23, 0), LocalTime.of(23, 59)).length());
+    }
+
+    @Test
+    void verify_detectsDivergence_andRepairs() {
+        when(slotRepo.findDtosFrom(any())).thenReturn(List.of(slot(1L, 1L, "10:00", "11:00", true)));
+        index.rebuild();
+        assertTrue(index.verify());
+
+        when(bookingRepo.findActiveSlotIdsFrom(any(), any())).thenReturn(List.of(1L));
+        when(slotRepo.findDtosFrom(any())).thenReturn(List.of(slot(1L, 1L, "10:00", "11:00", false)));
+        assertFalse(index.verify());
+        assertEquals(List.of(), ids(index.findAvailable(List.of(1L), DAY, DAY)));
+    }
+
+    @Test
+    void mutations_publishPerStudioDeltasWithIncreasingVersions() {
+        when(slotRepo.findDtosFrom(any())).thenReturn(List.of(
+                slot(1L, 1L, "10:00", "11:00", true),
+                slot(2L, 2L, "11:30", "12:30", true),
+                slot(3L, 2L, "15:00", "16:00", true)
+        ));
+        index.rebuild();
+        verifyNoInteractions(eventPublisher);
+
+        index.slotBooked(1L, true);
+        index.slotDeleted(3L);
+        index.slotBooked(1L, false);
+
+        ArgumentCaptor<SlotAvailabilityChangedEvent> captor = ArgumentCaptor.forClass(SlotAvailabilityChangedEvent.class);
+        verify(eventPublisher, times(5)).publishEvent(captor.capture());
+        List<SlotAvailabilityChangedEvent> events = captor.getAllValues();
+
+        assertEquals(1L, events.get(0).getStudioId());
+        assertEquals(List.of(new SlotAvailabilityDelta(1L, false, 1)), events.get(0).getDeltas());
+        assertEquals(2L, events.get(1).getStudioId());
+        assertEquals(List.of(new SlotAvailabilityDelta(2L, false, 1)), events.get(1).getDeltas());
+        assertEquals(List.of(new SlotAvailabilityDelta(3L, false, 2)), events.get(2).getDeltas());
+        assertEquals(List.of(new SlotAvailabilityDelta(1L, true, 2)), events.get(3).getDeltas());
+        assertEquals(List.of(new SlotAvailabilityDelta(2L, true, 3)), events.get(4).getDeltas());
+    }
+
+    @Test
+    void backToBackSlotsOfTheSameStudio_areOffered() {
+        when(slotRepo.findDtosFrom(any())).thenReturn(List.of(
+                slot(1L, 1L, "10:00", "11:00", false),
+                slot(2L, 1L, "09:00", "10:00", true),
+                slot(3L, 1L, "11:00", "12:00", true)
+        ));
+        when(bookingRepo.findActiveSlotIdsFrom(any(), eq(BookingStatus.CANCELLED))).thenReturn(List.of(1L));
+        index.rebuild();
+
+        assertEquals(List.of(2L, 3L), ids(index.findAvailable(List.of(1L), DAY, DAY)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<String> handler(ClusterChanges changes, String topic) {
+        ArgumentCaptor<Consumer<String>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(changes).subscribe(eq(topic), handler.capture());
+        return handler.getValue();
+    }
+
+    private static String published(ClusterChanges changes, String topic) {
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(changes, atLeastOnce()).publish(eq(topic), payload.capture());
+        return payload.getValue();
+    }
+
+    @Test
+    void changesOnAnotherNode_areAppliedAndStreamed() {
+        when(slotRepo.findDtosFrom(any())).thenReturn(List.of(slot(1L, 1L, "10:00", "11:00", true)));
+        index.rebuild();
+        ClusterChanges otherChanges = mock(ClusterChanges.class);
+        AvailabilityIndexImpl other = new AvailabilityIndexImpl(slotRepo, bookingRepo,
+                mock(PlatformTransactionManager.class), mock(ApplicationEventPublisher.class), otherChanges, 7);
+
+        other.slotSaved(slot(2L, 1L, "12:00", "13:00", true));
+        handler(clusterChanges, "availability.saved").accept(published(otherChanges, "availability.saved"));
+        other.slotBooked(1L, true);
+        handler(clusterChanges, "availability.booked").accept(published(otherChanges, "availability.booked"));
+
+        assertEquals(List.of(2L), ids(index.findAvailable(List.of(1L), DAY, DAY)));
+        verify(eventPublisher, times(2)).publishEvent(any(SlotAvailabilityChangedEvent.class));
+
+        other.slotDeleted(2L);
+        handler(clusterChanges, "availability.deleted").accept(published(otherChanges, "availability.deleted"));
+        assertEquals(List.of(), ids(index.findAvailable(List.of(1L), DAY, DAY)));
+    }
+
+    @Test
+    void missedChanges_rebuildFromTheDatabase() {
+        ArgumentCaptor<Runnable> resync = ArgumentCaptor.forClass(Runnable.class);
+        verify(clusterChanges).onResync(resync.capture());
+        when(slotRepo.findDtosFrom(any())).thenReturn(List.of(slot(1L, 1L, "10:00", "11:00", true)));
+
+        resync.getValue().run();
+
+        assertEquals(List.of(1L), ids(index.findAvailable(List.of(1L), DAY, DAY)));
+    }
+}
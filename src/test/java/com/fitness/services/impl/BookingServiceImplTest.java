@@ -1,30 +1,47 @@
 package com.fitness.services.impl;
 
+import com.fitness.dto.BatchBookingFailure;
+import com.fitness.dto.BatchBookingResult;
 import com.fitness.dto.BookingDTO;
 import com.fitness.dto.CreateBookingRequest;
 import com.fitness.dto.UpdateBookingRequest;
+import com.fitness.enums.BatchBookingMode;
 import com.fitness.enums.BookingStatus;
+import com.fitness.events.BookingCancelledEvent;
+import com.fitness.events.BookingCreatedEvent;
+import com.fitness.events.SlotChangedEvent;
 import com.fitness.exceptions.*;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
 import com.fitness.mappers.BookingMapper;
 import com.fitness.models.Booking;
 import com.fitness.models.TimeSlot;
 import com.fitness.models.User;
 import com.fitness.models.Studio;
+import com.fitness.models.WaitlistEntry;
 import com.fitness.repositories.BookingRepository;
 import com.fitness.repositories.TimeSlotRepository;
 import com.fitness.repositories.UserRepository;
+import com.fitness.repositories.WaitlistEntryRepository;
 import com.fitness.services.interfaces.CurrentUserService;
-import com.fitness.services.interfaces.EmailService;
+import com.fitness.services.interfaces.ResourceVersionService;
+import com.fitness.services.interfaces.AvailabilityIndex;
 import com.fitness.services.interfaces.SecurityService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
 import com.fitness.enums.Role;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -37,7 +54,10 @@ public class BookingServiceImplTest {
     private CurrentUserService currentUserService;
     private SecurityService securityService;
     private BookingServiceImpl service;
-    private EmailService emailService;
+    private ResourceVersionService resourceVersionService;
+    private AvailabilityIndex availabilityIndex;
+    private WaitlistEntryRepository waitlistRepo;
+    private ApplicationEventPublisher eventPublisher;
 
     @BeforeEach
     void setUp() {
@@ -47,7 +67,10 @@ public class BookingServiceImplTest {
         mapper = mock(BookingMapper.class);
         currentUserService = mock(CurrentUserService.class);
         securityService = mock(SecurityService.class);
-        emailService = mock(EmailService.class);
+        resourceVersionService = mock(ResourceVersionService.class);
+        availabilityIndex = mock(AvailabilityIndex.class);
+        waitlistRepo = mock(WaitlistEntryRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
         doNothing().when(securityService).requireAdminOrDev();
         when(currentUserService.getCurrentUserRole()).thenReturn(Role.ADMIN);
         service = new BookingServiceImpl(
@@ -57,7 +80,10 @@ public class BookingServiceImplTest {
                 mapper,
                 currentUserService,
                 securityService,
-                emailService
+                resourceVersionService,
+                availabilityIndex,
+                waitlistRepo,
+                eventPublisher
         );
     }
 
@@ -86,6 +112,7 @@ public class BookingServiceImplTest {
 
         Booking saved = Booking.builder()
                 .id(70L)
+                .user(me)
                 .timeSlot(slot)
                 .build();
         when(bookingRepo.save(any(Booking.class))).thenReturn(saved);
@@ -101,6 +128,34 @@ public class BookingServiceImplTest {
         assertSame(out, result);
     }
 
+    @Test
+    void createBookingForCurrentUser_updatesIndexBeforeBumpingVersions() {
+        User me = User.builder().id(51L).build();
+        when(currentUserService.getCurrentUser()).thenReturn(me);
+
+        TimeSlot slot = new TimeSlot();
+        slot.setId(61L);
+        slot.setDate(LocalDate.now());
+        slot.setStartTime(LocalTime.of(10, 0));
+        slot.setEndTime(LocalTime.of(11, 0));
+        slot.setStudio(Studio.builder().id(4L).build());
+        when(slotRepo.findById(61L)).thenReturn(Optional.of(slot));
+        when(bookingRepo.findByTimeSlot_DateAndStatusNot(slot.getDate(), BookingStatus.CANCELLED))
+                .thenReturn(Collections.emptyList());
+        when(bookingRepo.save(any(Booking.class))).thenAnswer(inv -> {
+            Booking b = inv.getArgument(0);
+            b.setId(71L);
+            return b;
+        });
+
+        service.createBookingForCurrentUser(61L);
+
+        var order = inOrder(availabilityIndex, resourceVersionService);
+        order.verify(availabilityIndex).slotBooked(61L, true);
+        order.verify(resourceVersionService).bookingsChanged(51L);
+        order.verify(resourceVersionService).slotsChanged(4L);
+    }
+
     // createBooking
     @Test
     void createBooking_userNotFound() {
@@ -215,6 +270,44 @@ public class BookingServiceImplTest {
                 () -> service.createBooking(req));
     }
 
+    @Test
+    void createBooking_backToBackInSameStudio_isAllowed() {
+        CreateBookingRequest req = new CreateBookingRequest();
+        req.setUserId(1L);
+        req.setTimeSlotId(3L);
+
+        User user = new User();
+        user.setId(1L);
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user));
+
+        Studio st = new Studio();
+        st.setId(88L);
+        TimeSlot slot = new TimeSlot();
+        slot.setId(3L);
+        slot.setDate(LocalDate.now());
+        slot.setStartTime(LocalTime.of(10, 0));
+        slot.setEndTime(LocalTime.of(11, 0));
+        slot.setStudio(st);
+        when(slotRepo.findById(3L)).thenReturn(Optional.of(slot));
+
+        Booking b = new Booking();
+        TimeSlot ex = new TimeSlot();
+        ex.setStudio(st);
+        ex.setDate(slot.getDate());
+        ex.setStartTime(LocalTime.of(11, 0));
+        ex.setEndTime(LocalTime.of(12, 0));
+        b.setTimeSlot(ex);
+        when(bookingRepo.findByTimeSlot_DateAndStatusNot(slot.getDate(), BookingStatus.CANCELLED))
+                .thenReturn(List.of(b));
+
+        Booking saved = Booking.builder().id(5L).user(user).timeSlot(slot).build();
+        when(bookingRepo.save(any(Booking.class))).thenReturn(saved);
+        BookingDTO out = new BookingDTO();
+        when(mapper.bookingToBookingDTO(saved)).thenReturn(out);
+
+        assertSame(out, service.createBooking(req));
+    }
+
     @Test
     void createBooking_successful() {
         CreateBookingRequest req = new CreateBookingRequest();
@@ -241,6 +334,7 @@ public class BookingServiceImplTest {
 
         Booking saved = Booking.builder()
                 .id(5L)
+                .user(user)
                 .timeSlot(slot)
                 .build();
         when(bookingRepo.save(any(Booking.class))).thenReturn(saved);
@@ -257,43 +351,47 @@ public class BookingServiceImplTest {
     // getBooking
     @Test
     void getBooking_missing() {
-        when(bookingRepo.findById(10L)).thenReturn(Optional.empty());
+        when(bookingRepo.findDtoById(10L)).thenReturn(Optional.empty());
         assertThrows(BookingNotFoundException.class,
                 () -> service.getBooking(10L));
     }
 
     @Test
     void getBooking_exists() {
-        Booking b = new Booking();
-        b.setId(11L);
-        when(bookingRepo.findById(11L)).thenReturn(Optional.of(b));
-        when(currentUserService.getCurrentUserRole()).thenReturn(Role.ADMIN);
-
         BookingDTO dto = new BookingDTO();
         dto.setId(11L);
-        when(mapper.bookingToBookingDTO(b)).thenReturn(dto);
+        when(bookingRepo.findDtoById(11L)).thenReturn(Optional.of(dto));
+        when(currentUserService.getCurrentUserRole()).thenReturn(Role.ADMIN);
 
         assertSame(dto, service.getBooking(11L));
+        verifyNoInteractions(mapper);
     }
 
-    // getAllBookings
     @Test
-    void getAllBookings_maps() {
-        Booking b1 = new Booking();
-        b1.setId(1L);
-        Booking b2 = new Booking();
-        b2.setId(2L);
-        when(bookingRepo.findAll()).thenReturn(List.of(b1, b2));
+    void getBooking_userPro_notStudioAdmin_denied() {
+        BookingDTO dto = new BookingDTO();
+        dto.setId(12L);
+        when(bookingRepo.findDtoById(12L)).thenReturn(Optional.of(dto));
+        when(currentUserService.getCurrentUserRole()).thenReturn(Role.USER_PRO);
+        when(currentUserService.getCurrentUserId()).thenReturn(7L);
+        when(bookingRepo.existsByIdAndTimeSlot_Studio_Admin_Id(12L, 7L)).thenReturn(false);
 
+        assertThrows(AccessDeniedException.class, () -> service.getBooking(12L));
+    }
+
+    // streamAllBookings
+    @Test
+    void streamAllBookings_feedsSink() {
         BookingDTO d1 = new BookingDTO();
         d1.setId(1L);
         BookingDTO d2 = new BookingDTO();
         d2.setId(2L);
-        when(mapper.bookingToBookingDTO(b1)).thenReturn(d1);
-        when(mapper.bookingToBookingDTO(b2)).thenReturn(d2);
+        when(bookingRepo.streamAllAsDto()).thenReturn(Stream.of(d1, d2));
 
-        var list = service.getAllBookings();
+        var list = new ArrayList<BookingDTO>();
+        service.streamAllBookings(list::add);
         assertEquals(List.of(d1, d2), list);
+        verify(securityService).requireAdminOrDev();
     }
 
     // cancelBooking
@@ -309,8 +407,10 @@ public class BookingServiceImplTest {
         Booking b = new Booking();
         b.setId(21L);
         b.setStatus(BookingStatus.PENDING);
+        b.setUser(User.builder().id(8L).build());
         TimeSlot ts = new TimeSlot();
         ts.setId(30L);
+        ts.setStudio(Studio.builder().id(3L).build());
         b.setTimeSlot(ts);
 
         when(bookingRepo.findById(21L)).thenReturn(Optional.of(b));
@@ -319,6 +419,36 @@ public class BookingServiceImplTest {
 
         service.cancelBooking(21L);
         assertEquals(BookingStatus.CANCELLED, b.getStatus());
+        assertTrue(ts.isAvailable(), "available column is released in the cancelling transaction");
+        verify(resourceVersionService).bookingsChanged(8L);
+        verify(resourceVersionService).slotsChanged(3L);
+        verify(availabilityIndex).slotBooked(30L, false);
+        verify(eventPublisher).publishEvent(refEq(new BookingCancelledEvent(21L, 8L, 30L)));
+        verify(eventPublisher).publishEvent(refEq(new SlotChangedEvent(30L, 3L, false)));
+    }
+
+    @Test
+    void cancelBooking_updatesIndexBeforeBumpingVersions() {
+        Booking b = new Booking();
+        b.setId(23L);
+        b.setStatus(BookingStatus.CONFIRMED);
+        b.setUser(User.builder().id(8L).build());
+        TimeSlot ts = new TimeSlot();
+        ts.setId(32L);
+        ts.setStudio(Studio.builder().id(3L).build());
+        b.setTimeSlot(ts);
+
+        when(bookingRepo.findById(23L)).thenReturn(Optional.of(b));
+        when(bookingRepo.save(b)).thenReturn(b);
+        when(mapper.bookingToBookingDTO(b)).thenReturn(new BookingDTO());
+
+        service.cancelBooking(23L);
+
+        // after-commit callbacks run in registration order: a read between the two must not see the new tag
+        var order = inOrder(availabilityIndex, resourceVersionService);
+        order.verify(availabilityIndex).slotBooked(32L, false);
+        order.verify(resourceVersionService).bookingsChanged(8L);
+        order.verify(resourceVersionService).slotsChanged(3L);
     }
 
     @Test
@@ -328,6 +458,7 @@ public class BookingServiceImplTest {
         b.setStatus(BookingStatus.CANCELLED);
         TimeSlot ts = new TimeSlot();
         ts.setId(31L);
+        ts.setStudio(Studio.builder().id(3L).build());
         b.setTimeSlot(ts);
 
         when(bookingRepo.findById(22L)).thenReturn(Optional.of(b));
@@ -335,6 +466,7 @@ public class BookingServiceImplTest {
 
         service.cancelBooking(22L);
         assertEquals(BookingStatus.CANCELLED, b.getStatus());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     // updateBooking
@@ -349,8 +481,10 @@ public class BookingServiceImplTest {
         Booking b = new Booking();
         b.setId(51L);
         b.setStatus(BookingStatus.PENDING);
+        b.setUser(User.builder().id(8L).build());
         TimeSlot ts = new TimeSlot();
         ts.setId(40L);
+        ts.setStudio(Studio.builder().id(4L).build());
         b.setTimeSlot(ts);
 
         when(bookingRepo.findById(51L)).thenReturn(Optional.of(b));
@@ -362,38 +496,215 @@ public class BookingServiceImplTest {
 
         var result = service.updateBooking(51L, req);
         assertEquals(BookingStatus.CANCELLED, b.getStatus());
+        verify(eventPublisher).publishEvent(refEq(new BookingCancelledEvent(51L, 8L, 40L)));
+        verify(eventPublisher).publishEvent(refEq(new SlotChangedEvent(40L, 4L, false)));
     }
 
-    // searchBookings
+    // createBookingsForCurrentUser
     @Test
-    void searchBookings_filters() {
+    void createBookings_allOrNothing_rejectsWholeBatchOnConflictWithinRequest() {
+        User me = new User();
+        me.setId(50L);
+        when(currentUserService.getCurrentUser()).thenReturn(me);
+        Studio studio = Studio.builder().id(5L).build();
+        TimeSlot first = batchSlot(1L, studio, LocalTime.of(10, 0));
+        TimeSlot overlapping = batchSlot(2L, studio, LocalTime.of(10, 30));
+        when(slotRepo.findAllById(any())).thenReturn(List.of(first, overlapping));
+
+        BatchBookingResult result = service.createBookingsForCurrentUser(
+                List.of(1L, 2L), BatchBookingMode.ALL_OR_NOTHING);
+
+        assertTrue(result.getBooked().isEmpty());
+        assertEquals(List.of(new BatchBookingFailure(2L, ErrorMessage.TRAINER_NOT_AVAILABLE)), result.getFailed());
+        verify(bookingRepo).findBookedSlotsOnDates(Set.of(first.getDate()), BookingStatus.CANCELLED);
+        verify(bookingRepo, never()).saveAll(any());
+    }
+
+    @Test
+    void createBookings_bestEffort_booksValidSlotsInOneWrite() {
+        User me = new User();
+        me.setId(50L);
+        when(currentUserService.getCurrentUser()).thenReturn(me);
+        Studio studio = Studio.builder().id(5L).build();
+        TimeSlot free = batchSlot(1L, studio, LocalTime.of(10, 0));
+        TimeSlot taken = batchSlot(2L, studio, LocalTime.of(14, 0));
+        when(slotRepo.findAllById(any())).thenReturn(List.of(free, taken));
+        when(bookingRepo.findBookedSlotsOnDates(any(), eq(BookingStatus.CANCELLED))).thenReturn(List.of(taken));
+        Booking saved = Booking.builder().id(70L).user(me).timeSlot(free).build();
+        when(bookingRepo.saveAll(any())).thenReturn(List.of(saved));
+        BookingDTO dto = new BookingDTO();
+        dto.setId(70L);
+        when(mapper.bookingToBookingDTO(saved)).thenReturn(dto);
+
+        BatchBookingResult result = service.createBookingsForCurrentUser(
+                List.of(1L, 2L, 3L), BatchBookingMode.BEST_EFFORT);
+
+        assertEquals(List.of(dto), result.getBooked());
+        assertEquals(List.of(
+                new BatchBookingFailure(2L, ErrorMessage.TIME_SLOT_NOT_AVAILABLE),
+                new BatchBookingFailure(3L, ErrorMessage.TIME_SLOT_NOT_FOUND)), result.getFailed());
+        assertFalse(free.isAvailable());
+        verify(waitlistRepo).deleteByUserIdAndTimeSlotIdIn(50L, List.of(1L));
+        verify(resourceVersionService).bookingsChanged(50L);
+        verify(resourceVersionService).slotsChanged(5L);
+        verify(availabilityIndex).slotBooked(1L, true);
+        verify(eventPublisher).publishEvent(refEq(new BookingCreatedEvent(70L, 50L, 1L)));
+        verify(eventPublisher).publishEvent(refEq(new SlotChangedEvent(1L, 5L, true)));
+        verify(bookingRepo, never()).findTrialDatesByUserId(any());
+    }
+
+    @Test
+    void createBookings_onlyOneTrialPerYearWithinBatch() {
+        User me = new User();
+        me.setId(50L);
+        when(currentUserService.getCurrentUser()).thenReturn(me);
+        Studio studio = Studio.builder().id(5L).build();
+        TimeSlot trial1 = batchSlot(1L, studio, LocalTime.of(10, 0));
+        TimeSlot trial2 = batchSlot(2L, studio, LocalTime.of(10, 0));
+        trial1.setTrial(true);
+        trial2.setTrial(true);
+        trial2.setDate(trial1.getDate().plusWeeks(1));
+        when(slotRepo.findAllById(any())).thenReturn(List.of(trial1, trial2));
+        when(bookingRepo.findTrialDatesByUserId(50L)).thenReturn(new ArrayList<>());
+
+        BatchBookingResult result = service.createBookingsForCurrentUser(
+                List.of(1L, 2L), BatchBookingMode.ALL_OR_NOTHING);
+
+        assertEquals(List.of(new BatchBookingFailure(2L, ErrorMessage.TRIAL_SESSION_LIMIT_EXCEEDED)),
+                result.getFailed());
+        verify(bookingRepo, never()).saveAll(any());
+    }
+
+    @Test
+    void createBookings_concurrentBookingHitsUniqueIndex_reportedAsConflict() {
+        User me = new User();
+        me.setId(50L);
+        when(currentUserService.getCurrentUser()).thenReturn(me);
+        Studio studio = Studio.builder().id(5L).build();
+        TimeSlot slot = batchSlot(1L, studio, LocalTime.of(10, 0));
+        when(slotRepo.findAllById(any())).thenReturn(List.of(slot));
+        when(bookingRepo.saveAll(any())).thenThrow(new DataIntegrityViolationException("duplicate key",
+                new ConstraintViolationException("duplicate key", null, "ux_booking_active_slot")));
+
+        TimeSlotAlreadyBookedException ex = assertThrows(TimeSlotAlreadyBookedException.class,
+                () -> service.createBookingsForCurrentUser(List.of(1L), BatchBookingMode.ALL_OR_NOTHING));
+
+        assertEquals(ErrorMessage.TIME_SLOT_NOT_AVAILABLE, ex.getMessage());
+        verifyNoInteractions(availabilityIndex, resourceVersionService, eventPublisher);
+    }
+
+    @Test
+    void createBookings_otherIntegrityViolation_propagates() {
+        User me = new User();
+        me.setId(50L);
+        when(currentUserService.getCurrentUser()).thenReturn(me);
+        TimeSlot slot = batchSlot(1L, Studio.builder().id(5L).build(), LocalTime.of(10, 0));
+        when(slotRepo.findAllById(any())).thenReturn(List.of(slot));
+        when(bookingRepo.saveAll(any())).thenThrow(new DataIntegrityViolationException("fk",
+                new ConstraintViolationException("fk", null, "fk_booking_user")));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> service.createBookingsForCurrentUser(List.of(1L), BatchBookingMode.ALL_OR_NOTHING));
+    }
+
+    private TimeSlot batchSlot(Long id, Studio studio, LocalTime start) {
         TimeSlot slot = new TimeSlot();
-        slot.setId(1L);
-        slot.setDate(LocalDate.of(2025, 1, 1));
-        slot.setStudio(new Studio());
-        slot.getStudio().setId(100L);
+        slot.setId(id);
+        slot.setDate(LocalDate.now().plusDays(3));
+        slot.setStartTime(start);
+        slot.setEndTime(start.plusHours(1));
+        slot.setAvailable(true);
+        slot.setStudio(studio);
+        return slot;
+    }
 
-        Booking a = Booking.builder()
-                .id(1L)
-                .timeSlot(slot)
-                .user(new User())
-                .status(BookingStatus.CONFIRMED)
-                .build();
-        Booking b = Booking.builder()
-                .id(2L)
-                .timeSlot(slot)
-                .user(new User())
-                .status(BookingStatus.PENDING)
-                .build();
+    // promoteFromWaitlist
+    @Test
+    void promoteFromWaitlist_slotTaken_noop() {
+        waitlistSlot(80L, false);
+        when(bookingRepo.existsByTimeSlotIdAndStatusNot(80L, BookingStatus.CANCELLED)).thenReturn(true);
 
-        when(bookingRepo.findAll()).thenReturn(List.of(a, b));
-        when(mapper.bookingToBookingDTO(a)).thenReturn(new BookingDTO());
+        assertTrue(service.promoteFromWaitlist(80L).isEmpty());
+        verify(waitlistRepo, never()).findByTimeSlotIdOrderByIdAsc(any());
+        verify(bookingRepo, never()).save(any());
+    }
+
+    @Test
+    void promoteFromWaitlist_skipsTrialIneligible_booksNext() {
+        TimeSlot slot = waitlistSlot(81L, true);
+        User first = new User();
+        first.setId(1L);
+        User second = new User();
+        second.setId(2L);
+        WaitlistEntry e1 = WaitlistEntry.builder().id(10L).timeSlot(slot).user(first).build();
+        WaitlistEntry e2 = WaitlistEntry.builder().id(11L).timeSlot(slot).user(second).build();
+        when(waitlistRepo.findByTimeSlotIdOrderByIdAsc(81L)).thenReturn(List.of(e1, e2));
+        when(bookingRepo.existsByUserIdAndTimeSlot_TrialTrueAndTimeSlot_DateAfter(eq(1L), any()))
+                .thenReturn(true);
+        when(bookingRepo.findByTimeSlot_DateAndStatusNot(slot.getDate(), BookingStatus.CANCELLED))
+                .thenReturn(Collections.emptyList());
+        Booking saved = Booking.builder().id(90L).user(second).timeSlot(slot).build();
+        when(bookingRepo.save(any(Booking.class))).thenReturn(saved);
+        BookingDTO dto = new BookingDTO();
+        dto.setId(90L);
+        when(mapper.bookingToBookingDTO(saved)).thenReturn(dto);
+
+        assertEquals(Optional.of(dto), service.promoteFromWaitlist(81L));
+        verify(waitlistRepo).delete(e1);
+        verify(waitlistRepo).deleteByTimeSlotIdAndUserId(81L, 2L);
+        verify(eventPublisher).publishEvent(refEq(new BookingCreatedEvent(90L, 2L, 81L)));
+    }
+
+    @Test
+    void promoteFromWaitlist_trainerBusy_stops() {
+        TimeSlot slot = waitlistSlot(82L, false);
+        User waiting = new User();
+        waiting.setId(3L);
+        when(waitlistRepo.findByTimeSlotIdOrderByIdAsc(82L))
+                .thenReturn(List.of(WaitlistEntry.builder().id(12L).timeSlot(slot).user(waiting).build()));
+        TimeSlot other = new TimeSlot();
+        other.setStudio(slot.getStudio());
+        other.setStartTime(LocalTime.of(10, 30));
+        other.setEndTime(LocalTime.of(11, 30));
+        Booking clash = Booking.builder().id(91L).timeSlot(other).build();
+        when(bookingRepo.findByTimeSlot_DateAndStatusNot(slot.getDate(), BookingStatus.CANCELLED))
+                .thenReturn(List.of(clash));
+
+        assertTrue(service.promoteFromWaitlist(82L).isEmpty());
+        verify(bookingRepo, never()).save(any());
+        verify(waitlistRepo, never()).delete(any());
+    }
+
+    private TimeSlot waitlistSlot(Long id, boolean trial) {
+        TimeSlot slot = new TimeSlot();
+        slot.setId(id);
+        slot.setDate(LocalDate.now().plusDays(1));
+        slot.setStartTime(LocalTime.of(10, 0));
+        slot.setEndTime(LocalTime.of(11, 0));
+        slot.setTrial(trial);
+        slot.setStudio(Studio.builder().id(5L).build());
+        when(slotRepo.findById(id)).thenReturn(Optional.of(slot));
+        return slot;
+    }
+
+    // searchBookings
+    @Test
+    void searchBookings_filters() {
+        when(currentUserService.getCurrentUserRole()).thenReturn(Role.USER);
+        when(currentUserService.getCurrentUserId()).thenReturn(42L);
+
+        BookingDTO dto = new BookingDTO();
+        dto.setId(1L);
+        when(bookingRepo.searchDtos(
+                42L, null, null, 100L, BookingStatus.CONFIRMED,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 1)
+        )).thenReturn(List.of(dto));
 
         var list = service.searchBookings(
                 null, 100L, BookingStatus.CONFIRMED,
                 LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 1)
         );
-        assertEquals(1, list.size());
+        assertEquals(List.of(dto), list);
     }
 
     // getMyHistory
@@ -401,13 +712,9 @@ public class BookingServiceImplTest {
     void getMyHistory_maps() {
         when(currentUserService.getCurrentUserId()).thenReturn(200L);
 
-        Booking b = new Booking();
-        b.setId(200L);
-        when(bookingRepo.findByUserId(200L)).thenReturn(List.of(b));
-
         BookingDTO dto = new BookingDTO();
         dto.setId(200L);
-        when(mapper.bookingToBookingDTO(b)).thenReturn(dto);
+        when(bookingRepo.findDtosByUserId(200L)).thenReturn(List.of(dto));
 
         var list = service.getMyHistory();
         assertEquals(List.of(dto), list);
@@ -419,25 +726,13 @@ public class BookingServiceImplTest {
         when(currentUserService.getCurrentUserId()).thenReturn(300L);
         when(currentUserService.getCurrentUserRole()).thenReturn(Role.USER);
 
-        TimeSlot slot = new TimeSlot();
-        slot.setDate(LocalDate.now().plusDays(1));
-        slot.setStartTime(LocalTime.of(10, 0));
-        slot.setEndTime(LocalTime.of(11, 0));
-        slot.setStudio(new Studio());
-
-        Booking b = Booking.builder()
-                .id(300L)
-                .status(BookingStatus.CONFIRMED)
-                .user(new User())
-                .timeSlot(slot)
-                .build();
-        b.getUser().setId(300L);
-
-        when(bookingRepo.findAll()).thenReturn(List.of(b));
-
         BookingDTO dto = new BookingDTO();
         dto.setId(300L);
-        when(mapper.bookingToBookingDTO(b)).thenReturn(dto);
+        when(bookingRepo.findUpcomingDtos(
+                List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED),
+                LocalDate.now().minusDays(1),
+                300L, null
+        )).thenReturn(List.of(dto));
 
         var list = service.getMyUpcoming();
         assertEquals(List.of(dto), list);
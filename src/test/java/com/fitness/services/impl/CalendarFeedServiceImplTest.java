@@ -0,0 +1,193 @@
+package com.fitness.services.impl;
+
+import com.fitness.config.security.TokenHashes;
+import com.fitness.dto.CalendarEntry;
+import com.fitness.dto.CalendarFeedLinkDTO;
+import com.fitness.enums.BookingStatus;
+import com.fitness.enums.Role;
+import com.fitness.exceptions.InvalidTokenException;
+import com.fitness.exceptions.StudioNotFoundException;
+import com.fitness.models.Studio;
+import com.fitness.models.User;
+import com.fitness.repositories.BookingRepository;
+import com.fitness.repositories.StudioRepository;
+import com.fitness.repositories.TimeSlotRepository;
+import com.fitness.repositories.UserRepository;
+import com.fitness.services.interfaces.CurrentUserService;
+import com.fitness.services.interfaces.ResourceVersionService;
+import com.fitness.services.interfaces.SecurityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CalendarFeedServiceImplTest {
+    private BookingRepository bookingRepo;
+    private TimeSlotRepository timeSlotRepo;
+    private StudioRepository studioRepo;
+    private UserRepository userRepo;
+    private CurrentUserService currentUserService;
+    private SecurityService securityService;
+    private ResourceVersionService resourceVersionService;
+    private CalendarFeedServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepo = mock(BookingRepository.class);
+        timeSlotRepo = mock(TimeSlotRepository.class);
+        studioRepo = mock(StudioRepository.class);
+        userRepo = mock(UserRepository.class);
+        currentUserService = mock(CurrentUserService.class);
+        securityService = mock(SecurityService.class);
+        resourceVersionService = mock(ResourceVersionService.class);
+        when(currentUserService.getCurrentUserId()).thenReturn(5L);
+
+        service = new CalendarFeedServiceImpl(
+                bookingRepo, timeSlotRepo, studioRepo, userRepo, currentUserService, securityService,
+                resourceVersionService, mock(PlatformTransactionManager.class),
+                30, "UTC", DataSize.ofMegabytes(1), Duration.ofHours(1), "https://fitness.example.com");
+    }
+
+    @Test
+    void myBookingsFeed_rendersEventsInUtc() {
+        when(bookingRepo.streamCalendarByUserId(eq(5L), any(), eq(BookingStatus.CANCELLED)))
+                .thenReturn(Stream.of(new CalendarEntry(21L, LocalDate.of(2025, 7, 1),
+                        LocalTime.of(10, 0), LocalTime.of(11, 0), "Gym", "Main St", BookingStatus.CONFIRMED)));
+
+        String feed = new String(service.myBookingsFeed(), StandardCharsets.UTF_8);
+
+        assertTrue(feed.startsWith("BEGIN:VCALENDAR\r\n"));
+        assertTrue(feed.endsWith("END:VCALENDAR\r\n"));
+        assertTrue(feed.contains("UID:booking-21@fitness.example.com\r\n"));
+        assertTrue(feed.contains("DTSTART:20250701T100000Z\r\n"));
+        assertTrue(feed.contains("DTEND:20250701T110000Z\r\n"));
+        assertTrue(feed.contains("LOCATION:Gym\\, Main St\r\n"));
+        assertTrue(feed.contains("STATUS:CONFIRMED\r\n"));
+    }
+
+    @Test
+    void myBookingsFeed_sameVersion_servedFromCache() {
+        when(bookingRepo.streamCalendarByUserId(eq(5L), any(), any()))
+                .thenAnswer(inv -> Stream.<CalendarEntry>empty());
+
+        byte[] first = service.myBookingsFeed();
+        byte[] second = service.myBookingsFeed();
+
+        assertSame(first, second);
+        verify(bookingRepo, times(1)).streamCalendarByUserId(eq(5L), any(), any());
+    }
+
+    @Test
+    void myBookingsFeed_bookingsChanged_rendersAgain() {
+        when(bookingRepo.streamCalendarByUserId(eq(5L), any(), any()))
+                .thenAnswer(inv -> Stream.<CalendarEntry>empty());
+
+        service.myBookingsFeed();
+        when(resourceVersionService.bookingsVersion(5L)).thenReturn(1L);
+        service.myBookingsFeed();
+
+        verify(bookingRepo, times(2)).streamCalendarByUserId(eq(5L), any(), any());
+    }
+
+    @Test
+    void studioScheduleFeed_foldsLongLines() {
+        Studio studio = Studio.builder().id(3L).name("Gym").build();
+        when(studioRepo.findById(3L)).thenReturn(Optional.of(studio));
+        String address = "\u00D0".repeat(60);
+        when(timeSlotRepo.streamCalendarByStudioId(eq(3L), any(), eq(BookingStatus.CANCELLED)))
+                .thenReturn(Stream.of(new CalendarEntry(30L, LocalDate.of(2025, 7, 1),
+                        LocalTime.of(10, 0), LocalTime.of(11, 0), "Gym", address, null)));
+
+        String feed = new String(service.studioScheduleFeed(3L), StandardCharsets.UTF_8);
+
+        for (String line : feed.split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75, line);
+        }
+        assertTrue(feed.replace("\r\n ", "").contains("LOCATION:Gym\\, " + address + "\r\n"));
+        assertTrue(feed.contains("SUMMARY:Available\r\n"));
+        verify(securityService).requireStudioOwnerOrAdminOrDev(3L);
+    }
+
+    @Test
+    void studioScheduleETag_unknownStudio_throwsNotFound() {
+        when(studioRepo.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(StudioNotFoundException.class, () -> service.studioScheduleETag(99L));
+    }
+
+    private User feedUser(Role role, String token) {
+        User user = User.builder().id(5L).role(role).enabled(true)
+                .calendarTokenHash(TokenHashes.sha256(token)).build();
+        when(userRepo.findByCalendarTokenHash(TokenHashes.sha256(token))).thenReturn(Optional.of(user));
+        return user;
+    }
+
+    @Test
+    void rotateFeedToken_storesOnlyTheHashAndReturnsTheUrl() {
+        User user = User.builder().id(5L).role(Role.USER).build();
+        when(userRepo.findById(5L)).thenReturn(Optional.of(user));
+
+        CalendarFeedLinkDTO link = service.rotateFeedToken();
+
+        assertEquals(TokenHashes.sha256(link.getToken()), user.getCalendarTokenHash());
+        assertEquals("https://fitness.example.com/api/bookings/calendar/" + link.getToken() + ".ics",
+                link.getBookingsUrl());
+        assertNotEquals(link.getToken(), service.rotateFeedToken().getToken());
+    }
+
+    @Test
+    void revokeFeedToken_clearsTheHash() {
+        User user = User.builder().id(5L).role(Role.USER).calendarTokenHash("old").build();
+        when(userRepo.findById(5L)).thenReturn(Optional.of(user));
+
+        service.revokeFeedToken();
+
+        assertNull(user.getCalendarTokenHash());
+    }
+
+    @Test
+    void bookingsFeed_byToken_rendersTheTokenOwnersBookings() {
+        feedUser(Role.USER, "secret");
+        when(bookingRepo.streamCalendarByUserId(eq(5L), any(), eq(BookingStatus.CANCELLED)))
+                .thenAnswer(inv -> Stream.<CalendarEntry>empty());
+
+        service.bookingsFeed("secret");
+
+        verify(bookingRepo).streamCalendarByUserId(eq(5L), any(), eq(BookingStatus.CANCELLED));
+        verifyNoInteractions(currentUserService);
+    }
+
+    @Test
+    void bookingsETag_unknownOrDisabledToken_isRejected() {
+        feedUser(Role.USER, "disabled").setEnabled(false);
+
+        assertThrows(InvalidTokenException.class, () -> service.bookingsETag("unknown"));
+        assertThrows(InvalidTokenException.class, () -> service.bookingsETag("disabled"));
+    }
+
+    @Test
+    void studioScheduleETag_byToken_onlyForTheOwningProOrAdmin() {
+        User owner = feedUser(Role.USER_PRO, "owner");
+        feedUser(Role.USER_PRO, "other").setId(6L);
+        feedUser(Role.USER, "plain");
+        when(studioRepo.findById(3L)).thenReturn(Optional.of(Studio.builder().id(3L).admin(owner).build()));
+
+        assertNotNull(service.studioScheduleETag(3L, "owner"));
+        assertThrows(AccessDeniedException.class, () -> service.studioScheduleETag(3L, "other"));
+        assertThrows(AccessDeniedException.class, () -> service.studioScheduleETag(3L, "plain"));
+        verifyNoInteractions(securityService);
+    }
+}
@@ -5,6 +5,7 @@ import com.fitness.exceptions.InvalidTokenException;
 import com.fitness.models.User;
 import com.fitness.repositories.UserRepository;
 import com.fitness.services.interfaces.EmailService;
+import com.fitness.services.interfaces.EntityCacheService;
 import com.fitness.services.interfaces.ConfirmationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,7 @@ public class ConfirmationServiceImplTest {
     private UserDetailsService userDetailsService;
     private UserRepository userRepository;
     private EmailService emailService;
+    private EntityCacheService entityCacheService;
     private ConfirmationService service;
 
     @BeforeEach
@@ -28,8 +30,9 @@ public class ConfirmationServiceImplTest {
         userDetailsService  = mock(UserDetailsService.class);
         userRepository      = mock(UserRepository.class);
         emailService        = mock(EmailService.class);
+        entityCacheService  = mock(EntityCacheService.class);
         service = new ConfirmationServiceImpl(
-                jwtService, userDetailsService, userRepository, emailService
+                jwtService, userDetailsService, userRepository, emailService, entityCacheService
         );
     }
 
@@ -96,6 +99,7 @@ public class ConfirmationServiceImplTest {
 
         assertTrue(user.isEnabled());
         verify(userRepository).save(user);
+        verify(entityCacheService).userChanged(user.getId());
     }
 
     // resendConfirmationEmail
@@ -0,0 +1,100 @@
+package com.fitness.services.impl;
+
+import com.fitness.events.ClusterChanges;
+import com.fitness.models.Studio;
+import com.fitness.models.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class EntityCacheServiceImplTest {
+    private final ClusterChanges clusterChanges = mock(ClusterChanges.class);
+    private final Cache cache = mock(Cache.class);
+    private final Map<String, Consumer<String>> handlers = new HashMap<>();
+    private Runnable resync;
+    private EntityCacheServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        doAnswer(inv -> handlers.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(clusterChanges).subscribe(anyString(), any());
+        ArgumentCaptor<Runnable> resyncs = ArgumentCaptor.forClass(Runnable.class);
+        service = new EntityCacheServiceImpl(entityManagerFactory, clusterChanges);
+        verify(clusterChanges).onResync(resyncs.capture());
+        resync = resyncs.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void userChanged_isPublishedAndEvictedLocallyOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.userChanged(4L);
+
+        verify(clusterChanges).publish("cache.user", "4");
+        verifyNoInteractions(cache);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache).evictEntityData(User.class, 4L);
+    }
+
+    @Test
+    void usersDeleted_clearsTheWholeRegion() {
+        service.usersDeleted();
+
+        verify(clusterChanges).publish("cache.user", "");
+        verify(cache).evictEntityData(User.class);
+    }
+
+    @Test
+    void studioChanged_alsoClearsCachedQueries() {
+        service.studioChanged(13L);
+
+        verify(clusterChanges).publish("cache.studio", "13");
+        verify(cache).evictEntityData(Studio.class, 13L);
+        verify(cache).evictDefaultQueryRegion();
+    }
+
+    @Test
+    void changesFromOtherNodes_areEvicted() {
+        handlers.get("cache.user").accept("4");
+        handlers.get("cache.user").accept("");
+        handlers.get("cache.studio").accept("13");
+
+        verify(cache).evictEntityData(User.class, 4L);
+        verify(cache).evictEntityData(User.class);
+        verify(cache).evictEntityData(Studio.class, 13L);
+        verify(cache).evictDefaultQueryRegion();
+        verify(clusterChanges, never()).publish(anyString(), anyString());
+    }
+
+    @Test
+    void resync_clearsEveryRegion() {
+        resync.run();
+
+        verify(cache).evictAllRegions();
+    }
+}
@@ -0,0 +1,235 @@
+package com.fitness.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fitness.config.security.TokenHashes;
+import com.fitness.dto.BookingDTO;
+import com.fitness.exceptions.IdempotencyConflictException;
+import com.fitness.exceptions.TimeSlotNotAvailableException;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.fitness.models.IdempotencyRecord;
+import com.fitness.repositories.IdempotencyRecordRepository;
+import com.fitness.services.interfaces.CurrentUserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyServiceImplTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private IdempotencyRecordRepository recordRepository;
+    private CurrentUserService currentUserService;
+    private IdempotencyServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        recordRepository = mock(IdempotencyRecordRepository.class);
+        when(recordRepository.findByKeyHashAndExpiresAtAfter(any(), any())).thenReturn(Optional.empty());
+        when(recordRepository.claim(any(), any(), any(), any())).thenReturn(1);
+        when(recordRepository.complete(any(), any(), any(), any())).thenReturn(1);
+        currentUserService = mock(CurrentUserService.class);
+        when(currentUserService.getCurrentUserId()).thenReturn(1L);
+        service = service(Duration.ofSeconds(5));
+    }
+
+    private IdempotencyServiceImpl service(Duration waitTimeout) {
+        return new IdempotencyServiceImpl(recordRepository, currentUserService, objectMapper,
+                Duration.ofHours(1), Duration.ofMinutes(2), waitTimeout, Duration.ofMillis(10), 100);
+    }
+
+    // the same row another node would have written for the request
+    private IdempotencyRecord record(Object request, BookingDTO response) throws Exception {
+        return IdempotencyRecord.builder()
+                .keyHash("h")
+                .requestHash(TokenHashes.sha256(objectMapper.writeValueAsString(request)))
+                .responseBody(response == null ? null : objectMapper.writeValueAsString(response))
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build();
+    }
+
+    private static BookingDTO booking(long id) {
+        BookingDTO dto = new BookingDTO();
+        dto.setId(id);
+        return dto;
+    }
+
+    @Test
+    void duplicateKey_replaysFirstResponse() {
+        AtomicInteger calls = new AtomicInteger();
+        BookingDTO first = service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class,
+                () -> booking(calls.incrementAndGet()));
+        BookingDTO second = service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class,
+                () -> booking(calls.incrementAndGet()));
+
+        assertEquals(1, calls.get());
+        assertEquals(first.getId(), second.getId());
+        verify(recordRepository).claim(any(), any(), any(), any());
+        verify(recordRepository).complete(any(), any(), any(), any());
+    }
+
+    @Test
+    void key_isClaimedBeforeTheActionRuns() {
+        var order = inOrder(recordRepository);
+        service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> {
+            order.verify(recordRepository).claim(any(), any(), any(), any());
+            return booking(1);
+        });
+        order.verify(recordRepository).complete(any(), any(), any(), any());
+    }
+
+    @Test
+    void sameKeyDifferentRequest_conflicts() {
+        service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> booking(1));
+        IdempotencyConflictException ex = assertThrows(IdempotencyConflictException.class,
+                () -> service.execute("bookings.me", "k", Map.of("slot", 11), BookingDTO.class, () -> booking(2)));
+        assertEquals(ErrorMessage.IDEMPOTENCY_KEY_REUSED, ex.getMessage());
+    }
+
+    @Test
+    void failures_areNotRemembered() {
+        assertThrows(TimeSlotNotAvailableException.class,
+                () -> service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> {
+                    throw new TimeSlotNotAvailableException(ErrorMessage.TIME_SLOT_NOT_AVAILABLE);
+                }));
+        verify(recordRepository).release(any(), any());
+        BookingDTO retried = service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> booking(3));
+        assertEquals(3L, retried.getId());
+    }
+
+    @Test
+    void failedClaim_doesNotRunTheAction() {
+        when(recordRepository.claim(any(), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(DataAccessResourceFailureException.class, () -> service.execute("bookings.me", "k",
+                Map.of("slot", 10), BookingDTO.class, () -> booking(calls.incrementAndGet())));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void completedOnAnotherNode_isReplayedWithoutRunning() throws Exception {
+        when(recordRepository.claim(any(), any(), any(), any())).thenReturn(0);
+        when(recordRepository.findByKeyHashAndExpiresAtAfter(any(), any()))
+                .thenReturn(Optional.of(record(Map.of("slot", 10), booking(7))));
+
+        BookingDTO replayed = service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> {
+            throw new AssertionError("must not run");
+        });
+
+        assertEquals(7L, replayed.getId());
+    }
+
+    @Test
+    void claimedOnAnotherNode_waitsForItsResponse() throws Exception {
+        when(recordRepository.claim(any(), any(), any(), any())).thenReturn(0);
+        when(recordRepository.findByKeyHashAndExpiresAtAfter(any(), any()))
+                .thenReturn(Optional.of(record(Map.of("slot", 10), null)),
+                        Optional.of(record(Map.of("slot", 10), null)),
+                        Optional.of(record(Map.of("slot", 10), booking(7))));
+
+        BookingDTO replayed = service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> {
+            throw new AssertionError("must not run");
+        });
+
+        assertEquals(7L, replayed.getId());
+        verify(recordRepository, times(3)).findByKeyHashAndExpiresAtAfter(any(), any());
+    }
+
+    @Test
+    void claimedOnAnotherNodeWithDifferentRequest_conflicts() throws Exception {
+        when(recordRepository.claim(any(), any(), any(), any())).thenReturn(0);
+        when(recordRepository.findByKeyHashAndExpiresAtAfter(any(), any()))
+                .thenReturn(Optional.of(record(Map.of("slot", 11), null)));
+
+        IdempotencyConflictException ex = assertThrows(IdempotencyConflictException.class,
+                () -> service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> booking(1)));
+        assertEquals(ErrorMessage.IDEMPOTENCY_KEY_REUSED, ex.getMessage());
+    }
+
+    @Test
+    void claimHeldPastTheWaitTimeout_isInProgress() throws Exception {
+        service = service(Duration.ofMillis(50));
+        when(recordRepository.claim(any(), any(), any(), any())).thenReturn(0);
+        when(recordRepository.findByKeyHashAndExpiresAtAfter(any(), any()))
+                .thenReturn(Optional.of(record(Map.of("slot", 10), null)));
+
+        IdempotencyConflictException ex = assertThrows(IdempotencyConflictException.class,
+                () -> service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> booking(1)));
+        assertEquals(ErrorMessage.IDEMPOTENCY_KEY_IN_PROGRESS, ex.getMessage());
+    }
+
+    @Test
+    void claimReleasedByAFailedHolder_isClaimedAgain() {
+        when(recordRepository.claim(any(), any(), any(), any())).thenReturn(0, 1);
+
+        BookingDTO result = service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> booking(5));
+
+        assertEquals(5L, result.getId());
+        verify(recordRepository, times(2)).claim(any(), any(), any(), any());
+    }
+
+    @Test
+    void responseThatCannotBeStored_isStillReturned() {
+        when(recordRepository.complete(any(), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        BookingDTO result = service.execute("bookings.me", "k", Map.of("slot", 10), BookingDTO.class, () -> booking(5));
+
+        assertEquals(5L, result.getId());
+        verify(recordRepository, never()).release(any(), any());
+    }
+
+    @Test
+    void noKey_alwaysExecutes() {
+        AtomicInteger calls = new AtomicInteger();
+        service.execute("bookings.me", null, Map.of(), BookingDTO.class, () -> booking(calls.incrementAndGet()));
+        service.execute("bookings.me", null, Map.of(), BookingDTO.class, () -> booking(calls.incrementAndGet()));
+        assertEquals(2, calls.get());
+        verifyNoInteractions(recordRepository);
+    }
+
+    @Test
+    void concurrentDuplicate_waitsForFirstInsteadOfExecuting() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<BookingDTO> first = pool.submit(() -> service.execute("bookings.me", "k", Map.of("slot", 10),
+                    BookingDTO.class, () -> {
+                        calls.incrementAndGet();
+                        started.countDown();
+                        await(release);
+                        return booking(7);
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<BookingDTO> second = pool.submit(() -> service.execute("bookings.me", "k", Map.of("slot", 10),
+                    BookingDTO.class, () -> booking(calls.incrementAndGet())));
+            release.countDown();
+
+            assertEquals(7L, first.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(7L, second.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.fitness.services.impl;
+
+import com.fitness.config.RateLimitProperties;
+import com.fitness.exceptions.RateLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitServiceImplTest {
+    private final AtomicLong clock = new AtomicLong();
+    private RateLimitProperties properties;
+    private RateLimitServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        RateLimitProperties.Policy login = new RateLimitProperties.Policy();
+        login.setCapacity(3);
+        login.setRefillPeriod(Duration.ofMinutes(1));
+        properties.getPolicies().put("login-email", login);
+        service = new RateLimitServiceImpl(new InMemoryTokenBucketStore(properties, clock::get), properties);
+    }
+
+    @Test
+    void burstUpToCapacity_thenRejectsWithRetryAfter() {
+        service.consume("login-email", "a@b.c");
+        service.consume("login-email", "a@b.c");
+        service.consume("login-email", "a@b.c");
+
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+                () -> service.consume("login-email", "a@b.c"));
+        assertEquals(20, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    void tokensRefillOverTime() {
+        for (int i = 0; i < 3; i++) {
+            service.consume("login-email", "a@b.c");
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        service.consume("login-email", "a@b.c");
+        assertThrows(RateLimitExceededException.class, () -> service.consume("login-email", "a@b.c"));
+    }
+
+    @Test
+    void keysAreIndependentAndCaseInsensitive() {
+        for (int i = 0; i < 3; i++) {
+            service.consume("login-email", "A@B.C");
+        }
+        assertThrows(RateLimitExceededException.class, () -> service.consume("login-email", " a@b.c "));
+        assertDoesNotThrow(() -> service.consume("login-email", "other@b.c"));
+    }
+
+    @Test
+    void disabledOrBlankKey_isNotLimited() {
+        assertDoesNotThrow(() -> service.consume("login-email", null));
+        properties.setEnabled(false);
+        for (int i = 0; i < 10; i++) {
+            service.consume("login-email", "a@b.c");
+        }
+    }
+
+    @Test
+    void unknownPolicy_failsLoudly() {
+        assertThrows(IllegalStateException.class, () -> service.consume("nope", "a@b.c"));
+    }
+}
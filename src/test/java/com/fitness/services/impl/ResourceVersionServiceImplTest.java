@@ -0,0 +1,130 @@
+package com.fitness.services.impl;
+
+import com.fitness.events.ClusterChanges;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ResourceVersionServiceImplTest {
+    private final ClusterChanges clusterChanges = mock(ClusterChanges.class);
+    private final ResourceVersionServiceImpl service = new ResourceVersionServiceImpl(clusterChanges);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void bump_withoutTransaction_isImmediate() {
+        service.studiosChanged();
+        service.bookingsChanged(7L);
+        service.slotsChanged(5L);
+
+        assertEquals(1L, service.studiosVersion());
+        assertEquals(1L, service.bookingsVersion());
+        assertEquals(1L, service.bookingsVersion(7L));
+        assertEquals(0L, service.bookingsVersion(8L));
+        assertEquals(1L, service.slotsVersion(5L));
+        assertEquals(1L, service.slotsVersion());
+        assertEquals(0L, service.slotsVersion(6L));
+    }
+
+    @Test
+    void bump_insideTransaction_waitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.slotsChanged(5L);
+        assertEquals(0L, service.slotsVersion(5L));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1L, service.slotsVersion(5L));
+    }
+
+    @Test
+    void bump_insideRolledBackTransaction_isDropped() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.bookingsChanged(7L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(0L, service.bookingsVersion());
+        assertEquals(0L, service.bookingsVersion(7L));
+    }
+
+    @Test
+    void evictedUser_neverReadsAVersionOlderThanTheirLastChange() {
+        ResourceVersionServiceImpl bounded = new ResourceVersionServiceImpl(clusterChanges, 2);
+        for (long userId = 1; userId <= 10; userId++) {
+            bounded.bookingsChanged(userId);
+        }
+
+        for (long userId = 1; userId <= 10; userId++) {
+            assertTrue(bounded.bookingsVersion(userId) >= userId, "user " + userId);
+        }
+        long before = bounded.bookingsVersion(1L);
+        bounded.bookingsChanged(1L);
+        assertTrue(bounded.bookingsVersion(1L) > before);
+    }
+
+    @Test
+    void resetEpoch_drawsNewEpoch() {
+        long before = service.epoch();
+
+        service.resetEpoch();
+
+        assertNotEquals(before, service.epoch());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String> remote(String topic) {
+        ArgumentCaptor<Consumer<String>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterChanges).subscribe(eq(topic), handler.capture());
+        return handler.getValue();
+    }
+
+    @Test
+    void localChange_isPublishedToTheOtherNodes() {
+        service.studiosChanged();
+        service.slotsChanged(5L);
+        service.bookingsChanged(7L);
+
+        verify(clusterChanges).publish("versions.studios", "");
+        verify(clusterChanges).publish("versions.slots", "5");
+        verify(clusterChanges).publish("versions.bookings", "7");
+    }
+
+    @Test
+    void changeOnAnotherNode_bumpsTheSameVersions() {
+        remote("versions.studios").accept("");
+        remote("versions.slots").accept("5");
+        remote("versions.bookings").accept("7");
+
+        assertEquals(1L, service.studiosVersion());
+        assertEquals(1L, service.slotsVersion(5L));
+        assertEquals(1L, service.bookingsVersion(7L));
+        assertEquals(0L, service.bookingsVersion(8L));
+        verify(clusterChanges, never()).publish(any(), any());
+    }
+
+    @Test
+    void missedChanges_drawNewEpoch() {
+        ArgumentCaptor<Runnable> resync = ArgumentCaptor.forClass(Runnable.class);
+        verify(clusterChanges).onResync(resync.capture());
+        long before = service.epoch();
+
+        resync.getValue().run();
+
+        assertNotEquals(before, service.epoch());
+    }
+}
@@ -1,28 +1,33 @@
 package com.fitness.services.impl;
 
+import com.fitness.dto.StudioBookingExportRow;
 import com.fitness.dto.StudioCreateUpdateDTO;
 import com.fitness.dto.StudioDTO;
 import com.fitness.dto.UserDTO;
+import com.fitness.exceptions.InvalidDateRangeException;
 import com.fitness.exceptions.StudioAlreadyExistsException;
 import com.fitness.exceptions.StudioNotFoundException;
 import com.fitness.exceptions.UserNotFoundException;
 import com.fitness.mappers.StudioMapper;
-import com.fitness.mappers.UserMapper;
 import com.fitness.models.Studio;
 import com.fitness.models.User;
 import com.fitness.repositories.BookingRepository;
 import com.fitness.repositories.StudioRepository;
 import com.fitness.repositories.UserRepository;
+import com.fitness.services.interfaces.EntityCacheService;
+import com.fitness.services.interfaces.ResourceVersionService;
 import com.fitness.services.interfaces.SecurityService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,8 +37,9 @@ public class StudioServiceImplTest {
     private StudioMapper studioMapper;
     private BookingRepository bookingRepo;
     private UserRepository userRepo;
-    private UserMapper userMapper;
     private SecurityService securityService;
+    private ResourceVersionService resourceVersionService;
+    private EntityCacheService entityCacheService;
     private StudioServiceImpl service;
 
     @BeforeEach
@@ -42,12 +48,14 @@ public class StudioServiceImplTest {
         studioMapper    = mock(StudioMapper.class);
         bookingRepo     = mock(BookingRepository.class);
         userRepo        = mock(UserRepository.class);
-        userMapper      = mock(UserMapper.class);
         securityService = mock(SecurityService.class);
+        resourceVersionService = mock(ResourceVersionService.class);
+        entityCacheService = mock(EntityCacheService.class);
         doNothing().when(securityService).requireAdminOrDev();
 
         service = new StudioServiceImpl(
-                studioRepo, studioMapper, bookingRepo, userRepo, userMapper, securityService
+                studioRepo, studioMapper, bookingRepo, userRepo, securityService, resourceVersionService,
+                entityCacheService, mock(PlatformTransactionManager.class)
         );
     }
 
@@ -74,35 +82,31 @@ public class StudioServiceImplTest {
         var result = service.createStudio(dto);
         verify(securityService).requireAdminOrDev();
         verify(studioRepo).save(any());
+        verify(resourceVersionService).studiosChanged();
         assertSame(outDto, result);
     }
 
     // getStudio
     @Test
     void getStudio_missing_throwsNotFound() {
-        when(studioRepo.findById(5L)).thenReturn(Optional.empty());
+        when(studioRepo.findDtoById(5L)).thenReturn(Optional.empty());
         assertThrows(StudioNotFoundException.class, () -> service.getStudio(5L));
     }
 
     @Test
     void getStudio_exists_returnsDto() {
-        var studio = new Studio(); studio.setId(2L);
-        when(studioRepo.findById(2L)).thenReturn(Optional.of(studio));
         var dto = new StudioDTO(); dto.setId(2L);
-        when(studioMapper.studioToStudioDTO(studio)).thenReturn(dto);
+        when(studioRepo.findDtoById(2L)).thenReturn(Optional.of(dto));
         assertSame(dto, service.getStudio(2L));
+        verifyNoInteractions(studioMapper);
     }
 
     // getAllStudios
     @Test
     void getAllStudios_mapsSorted() {
-        var s1 = new Studio(); s1.setId(1L);
-        var s2 = new Studio(); s2.setId(2L);
-        when(studioRepo.findAll(Sort.by("id"))).thenReturn(List.of(s1, s2));
         var d1 = new StudioDTO(); d1.setId(1L);
         var d2 = new StudioDTO(); d2.setId(2L);
-        when(studioMapper.studioToStudioDTO(s1)).thenReturn(d1);
-        when(studioMapper.studioToStudioDTO(s2)).thenReturn(d2);
+        when(studioRepo.findAllDtos()).thenReturn(List.of(d1, d2));
         var list = service.getAllStudios();
         assertEquals(List.of(d1, d2), list);
     }
@@ -156,8 +160,8 @@ public class StudioServiceImplTest {
     // countUniqueClients
     @Test
     void countUniqueClients_callsRepo() {
-        when(bookingRepo.findDistinctUsersByStudioAndPeriod(8L, LocalDate.of(2025,1,1), LocalDate.of(2025,1,31)))
-                .thenReturn(List.of(new User(), new User()));
+        when(bookingRepo.countDistinctUsersByStudioAndPeriod(8L, LocalDate.of(2025,1,1), LocalDate.of(2025,1,31)))
+                .thenReturn(2L);
         var count = service.countUniqueClients(8L, LocalDate.of(2025,1,1), LocalDate.of(2025,1,31));
         verify(securityService).requireStudioOwnerOrAdminOrDev(8L);
         assertEquals(2L, count);
@@ -179,10 +183,8 @@ public class StudioServiceImplTest {
     // getUniqueClientsByStudio
     @Test
     void getUniqueClientsByStudio_mapsUsers() {
-        var u = new User(); u.setId(3L);
-        when(userRepo.findDistinctUsersByStudioId(10L)).thenReturn(List.of(u));
         var dto = new UserDTO(); dto.setId(3L);
-        when(userMapper.userToUserDTO(u)).thenReturn(dto);
+        when(userRepo.findDistinctUserDtosByStudioId(10L)).thenReturn(List.of(dto));
         var list = service.getUniqueClientsByStudio(10L);
         verify(securityService).requireStudioOwnerOrAdminOrDev(10L);
         assertEquals(List.of(dto), list);
@@ -216,5 +218,41 @@ public class StudioServiceImplTest {
 
         assertSame(out, service.assignAdminToStudio(13L, 4L));
         verify(securityService).requireStudioOwnerOrAdminOrDev(13L);
+        // the new admin's rights come from the studio row, cached on every node
+        verify(entityCacheService).studioChanged(13L);
+    }
+
+    // exportBookings
+    @Test
+    void exportBookings_endBeforeStart_throwsBeforeStreaming() {
+        assertThrows(InvalidDateRangeException.class, () -> service.exportBookings(
+                3L, LocalDate.of(2025, 7, 31), LocalDate.of(2025, 7, 1)));
+        verifyNoInteractions(bookingRepo);
+    }
+
+    @Test
+    void exportBookings_missingStudio_throwsNotFound() {
+        when(studioRepo.existsById(3L)).thenReturn(false);
+        assertThrows(StudioNotFoundException.class, () -> service.exportBookings(
+                3L, LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 31)));
+        verifyNoInteractions(bookingRepo);
+    }
+
+    @Test
+    void exportBookings_streamsRowsOnlyWhenSourceIsCalled() {
+        var from = LocalDate.of(2025, 7, 1);
+        var to = LocalDate.of(2025, 7, 31);
+        var row = new StudioBookingExportRow();
+        row.setBookingId(21L);
+        when(studioRepo.existsById(3L)).thenReturn(true);
+        when(bookingRepo.streamExportByStudioId(3L, from, to)).thenReturn(Stream.of(row));
+
+        var source = service.exportBookings(3L, from, to);
+        verify(securityService).requireStudioOwnerOrAdminOrDev(3L);
+        verifyNoInteractions(bookingRepo);
+
+        var received = new ArrayList<StudioBookingExportRow>();
+        source.accept(received::add);
+        assertEquals(List.of(row), received);
     }
 }
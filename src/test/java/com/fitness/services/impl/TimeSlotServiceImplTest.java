@@ -1,4 +1,5 @@
 package com.fitness.services.impl;
+import com.fitness.dto.BookedInterval;
 import com.fitness.dto.TimeSlotCreateDTO;
 import com.fitness.dto.TimeSlotDTO;
 import com.fitness.dto.TimeSlotUpdateDTO;
@@ -12,15 +13,20 @@ import com.fitness.repositories.BookingRepository;
 import com.fitness.repositories.TimeSlotRepository;
 import com.fitness.repositories.StudioRepository;
 import com.fitness.mappers.TimeSlotMapper;
+import com.fitness.services.interfaces.AvailabilityIndex;
+import com.fitness.services.interfaces.ResourceVersionService;
 import com.fitness.services.interfaces.SecurityService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import com.fitness.enums.BookingStatus;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +37,8 @@ public class TimeSlotServiceImplTest {
     private BookingRepository bookingRepo;
     private TimeSlotMapper mapper;
     private SecurityService securityService;
+    private ResourceVersionService resourceVersionService;
+    private AvailabilityIndex availabilityIndex;
     private TimeSlotServiceImpl service;
 
     @BeforeEach
@@ -40,9 +48,11 @@ public class TimeSlotServiceImplTest {
         bookingRepo    = mock(BookingRepository.class);
         mapper = mock(TimeSlotMapper.class);
         securityService = mock(SecurityService.class);
+        resourceVersionService = mock(ResourceVersionService.class);
+        availabilityIndex = mock(AvailabilityIndex.class);
         doNothing().when(securityService).requireAdminOrDev();
 
-        service = new TimeSlotServiceImpl(slotRepo, studioRepo, mapper, securityService, bookingRepo);
+        service = new TimeSlotServiceImpl(slotRepo, studioRepo, mapper, securityService, bookingRepo, resourceVersionService, availabilityIndex);
     }
 
     //createTimeSlot
@@ -106,6 +116,8 @@ public class TimeSlotServiceImplTest {
         verify(studioRepo).findById(3L);
         verify(slotRepo).save(any());
         verify(mapper).timeSlotToTimeSlotDTO(entity);
+        verify(resourceVersionService).slotsChanged(3L);
+        verify(availabilityIndex).slotSaved(expected);
         assertSame(expected, result);
     }
 
@@ -113,32 +125,28 @@ public class TimeSlotServiceImplTest {
 
     @Test
     void get_existing_returnsDto() {
-        var ts = new TimeSlot(); ts.setId(5L);
-        when(slotRepo.findById(5L)).thenReturn(Optional.of(ts));
         var dto = new TimeSlotDTO(); dto.setId(5L);
-        when(mapper.timeSlotToTimeSlotDTO(ts)).thenReturn(dto);
+        when(slotRepo.findDtoById(5L)).thenReturn(Optional.of(dto));
         assertSame(dto, service.getTimeSlot(5L));
     }
 
     @Test
     void get_missing_throwsNotFound() {
-        when(slotRepo.findById(99L)).thenReturn(Optional.empty());
+        when(slotRepo.findDtoById(99L)).thenReturn(Optional.empty());
         assertThrows(TimeSlotNotFoundException.class, () -> service.getTimeSlot(99L));
     }
 
-    //getAllTimeSlots
+    //streamAllTimeSlots
 
     @Test
-    void getAll_mapsAll() {
-        var e1 = new TimeSlot(); e1.setId(1L);
-        var e2 = new TimeSlot(); e2.setId(2L);
-        when(slotRepo.findAll()).thenReturn(List.of(e1, e2));
+    void streamAll_feedsSink() {
         var d1 = new TimeSlotDTO(); d1.setId(1L);
         var d2 = new TimeSlotDTO(); d2.setId(2L);
-        when(mapper.timeSlotToTimeSlotDTO(e1)).thenReturn(d1);
-        when(mapper.timeSlotToTimeSlotDTO(e2)).thenReturn(d2);
-        var list = service.getAllTimeSlots();
+        when(slotRepo.streamAllAsDto()).thenReturn(Stream.of(d1, d2));
+        var list = new ArrayList<TimeSlotDTO>();
+        service.streamAllTimeSlots(list::add);
         assertEquals(List.of(d1, d2), list);
+        verifyNoInteractions(mapper);
     }
 
     //updateTimeSlot
@@ -194,6 +202,7 @@ public class TimeSlotServiceImplTest {
     @Test
     void delete_existing_deletes() {
         var slot = new TimeSlot(); slot.setId(11L);
+        slot.setStudio(Studio.builder().id(2L).build());
         when(slotRepo.findById(11L)).thenReturn(Optional.of(slot));
 
         when(bookingRepo.existsByTimeSlotIdAndStatusNot(11L, BookingStatus.CANCELLED))
@@ -211,10 +220,8 @@ public class TimeSlotServiceImplTest {
 
     @Test
     void getByStudio_mapsResults() {
-        var s1 = new TimeSlot(); s1.setId(21L);
-        when(slotRepo.findByStudioId(5L)).thenReturn(List.of(s1));
         var dto = new TimeSlotDTO(); dto.setId(21L);
-        when(mapper.timeSlotToTimeSlotDTO(s1)).thenReturn(dto);
+        when(slotRepo.findDtosByStudioId(5L)).thenReturn(List.of(dto));
 
         assertEquals(List.of(dto), service.getTimeSlotsByStudio(5L));
         verify(securityService).requireStudioOwnerOrAdminOrDev(5L);
@@ -222,12 +229,10 @@ public class TimeSlotServiceImplTest {
 
     @Test
     void getByDateRange_mapsResults() {
-        var s2 = new TimeSlot(); s2.setId(22L);
-        when(slotRepo.findByStudioIdAndDateBetween(
-                6L, LocalDate.of(2025,1,1), LocalDate.of(2025,1,31)))
-                .thenReturn(List.of(s2));
         var dto2 = new TimeSlotDTO(); dto2.setId(22L);
-        when(mapper.timeSlotToTimeSlotDTO(s2)).thenReturn(dto2);
+        when(slotRepo.findDtosByStudioIdAndDateBetween(
+                6L, LocalDate.of(2025,1,1), LocalDate.of(2025,1,31)))
+                .thenReturn(List.of(dto2));
 
         assertEquals(
                 List.of(dto2),
@@ -239,22 +244,16 @@ public class TimeSlotServiceImplTest {
 
     @Test
     void getAvailable_mapsResults() {
-        var s3 = new TimeSlot();
-        s3.setId(23L);
-        s3.setDate(LocalDate.of(2025,2,5));
-        s3.setStartTime(LocalTime.of(10,0));
-        s3.setEndTime(LocalTime.of(11,0));
+        var dto3 = new TimeSlotDTO(23L, LocalDate.of(2025,2,5), LocalTime.of(10,0), LocalTime.of(11,0), true, 7L, false);
+        var dto4 = new TimeSlotDTO(24L, LocalDate.of(2025,2,5), LocalTime.of(14,0), LocalTime.of(15,0), true, 7L, false);
 
-        when(slotRepo.findByStudioIdAndDateBetweenAndAvailableTrue(
+        when(slotRepo.findAvailableDtosByStudioIdAndDateBetween(
                 7L, LocalDate.of(2025,2,1), LocalDate.of(2025,2,28)))
-                .thenReturn(List.of(s3));
+                .thenReturn(List.of(dto3, dto4));
 
-        when(bookingRepo.findByTimeSlot_DateAndStatusNot(
-                any(), eq(BookingStatus.CANCELLED)))
-                .thenReturn(List.of());
-
-        var dto3 = new TimeSlotDTO(); dto3.setId(23L);
-        when(mapper.timeSlotToTimeSlotDTO(s3)).thenReturn(dto3);
+        when(bookingRepo.findBookedIntervals(
+                LocalDate.of(2025,2,1), LocalDate.of(2025,2,28), BookingStatus.CANCELLED))
+                .thenReturn(List.of(new BookedInterval(8L, LocalDate.of(2025,2,5), LocalTime.of(15,30), LocalTime.of(16,30))));
 
         assertEquals(
                 List.of(dto3),
@@ -262,5 +261,35 @@ public class TimeSlotServiceImplTest {
                         7L, LocalDate.of(2025,2,1), LocalDate.of(2025,2,28)));
 
         verify(securityService).requireStudioOwnerOrAdminOrDev(7L);
+        verify(bookingRepo, never()).findByTimeSlot_DateAndStatusNot(any(), any());
+    }
+
+    @Test
+    void getAvailable_servedFromIndex_skipsDatabase() {
+        var dto = new TimeSlotDTO(25L, LocalDate.of(2025,2,5), LocalTime.of(10,0), LocalTime.of(11,0), true, 7L, false);
+        when(availabilityIndex.findAvailable(
+                List.of(7L, 8L), LocalDate.of(2025,2,1), LocalDate.of(2025,2,28)))
+                .thenReturn(Optional.of(List.of(dto)));
+
+        assertEquals(
+                List.of(dto),
+                service.getAvailableSlots(
+                        List.of(7L, 8L), LocalDate.of(2025,2,1), LocalDate.of(2025,2,28)));
+
+        verify(securityService).requireStudioOwnerOrAdminOrDev(7L);
+        verify(securityService).requireStudioOwnerOrAdminOrDev(8L);
+        verifyNoInteractions(bookingRepo);
+        verify(slotRepo, never()).findAvailableDtosByStudioIdAndDateBetween(any(), any(), any());
+    }
+
+    @Test
+    void availableSlotsETag_notOwner_throwsBeforeReadingVersions() {
+        doThrow(new AccessDeniedException("denied"))
+                .when(securityService).requireStudioOwnerOrAdminOrDev(7L);
+
+        assertThrows(AccessDeniedException.class,
+                () -> service.availableSlotsETag(7L));
+
+        verifyNoInteractions(resourceVersionService);
     }
 }
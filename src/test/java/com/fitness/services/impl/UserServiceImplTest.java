@@ -4,6 +4,7 @@ import com.fitness.dto.ChangePasswordRequest;
 import com.fitness.dto.RegisterUserRequest;
 import com.fitness.dto.UpdateUserRequest;
 import com.fitness.dto.UserDTO;
+import com.fitness.dto.UserSearchPage;
 import com.fitness.enums.BookingStatus;
 import com.fitness.enums.Role;
 import com.fitness.exceptions.UserNotFoundException;
@@ -12,14 +13,17 @@ import com.fitness.models.User;
 import com.fitness.repositories.UserRepository;
 import com.fitness.repositories.BookingRepository;
 import com.fitness.services.interfaces.EmailService;
+import com.fitness.services.interfaces.EntityCacheService;
 import com.fitness.services.interfaces.SecurityService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,6 +36,7 @@ public class UserServiceImplTest {
     private EmailService emailService;
     private UserServiceImpl service;
     private BookingRepository bookingRepository;
+    private EntityCacheService entityCacheService;
 
 
     @BeforeEach
@@ -43,6 +48,7 @@ public class UserServiceImplTest {
         jwtService = mock(JwtService.class);
         emailService = mock(EmailService.class);
         bookingRepository = mock(BookingRepository.class);
+        entityCacheService = mock(EntityCacheService.class);
         service = new UserServiceImpl(
                 userRepo,
                 userMapper,
@@ -50,7 +56,8 @@ public class UserServiceImplTest {
                 passwordEncoder,
                 jwtService,
                 emailService,
-                bookingRepository
+                bookingRepository,
+                entityCacheService
         );
     }
 
@@ -102,16 +109,16 @@ public class UserServiceImplTest {
         assertThrows(UserNotFoundException.class, () -> service.getUser(3L));
     }
 
-    // getAllUsers
+    // streamAllUsers
     @Test
-    void getAllUsers_maps() {
-        User u1 = new User(); u1.setId(1L);
-        User u2 = new User(); u2.setId(2L);
-        when(userRepo.findAll()).thenReturn(List.of(u1, u2));
-        when(userMapper.userToUserDTO(u1)).thenReturn(new UserDTO());
-        when(userMapper.userToUserDTO(u2)).thenReturn(new UserDTO());
+    void streamAllUsers_feedsSink() {
+        UserDTO u1 = new UserDTO(); u1.setId(1L);
+        UserDTO u2 = new UserDTO(); u2.setId(2L);
+        when(userRepo.streamAllAsDto()).thenReturn(Stream.of(u1, u2));
 
-        service.getAllUsers();
+        var list = new ArrayList<UserDTO>();
+        service.streamAllUsers(list::add);
+        assertEquals(List.of(u1, u2), list);
         verify(securityService).requireAdminOrDev();
     }
 
@@ -138,6 +145,27 @@ public class UserServiceImplTest {
         assertNotNull(result);
     }
 
+    @Test
+    void updateUser_evictsTheUserOnEveryNode() {
+        var dto = new UpdateUserRequest();
+        dto.setName("Old");
+        dto.setEmail("new@example.com");
+        dto.setPhoneNumber("+111111111");
+        User user = new User();
+        user.setId(4L);
+        user.setName("Old");
+        user.setEmail("old@example.com");
+        user.setPhoneNumber("+111111111");
+        when(userRepo.findById(4L)).thenReturn(Optional.of(user));
+        when(userRepo.save(user)).thenReturn(user);
+
+        service.updateUser(4L, dto);
+
+        var order = inOrder(userRepo, entityCacheService);
+        order.verify(userRepo).save(user);
+        order.verify(entityCacheService).userChanged(4L);
+    }
+
     @Test
     void updateUser_missing_throws() {
         when(userRepo.findById(5L)).thenReturn(Optional.empty());
@@ -185,6 +213,7 @@ public class UserServiceImplTest {
 
         verify(passwordEncoder).encode("newPass");
         verify(userRepo).save(u);
+        verify(entityCacheService).userChanged(u.getId());
         assertEquals("encodedNew", u.getPassword());
     }
 
@@ -206,4 +235,54 @@ public class UserServiceImplTest {
         when(userRepo.findById(10L)).thenReturn(Optional.empty());
         assertThrows(UserNotFoundException.class, () -> service.deleteUser(10L));
     }
+
+    // searchUsers
+    @Test
+    void searchUsers_normalizesQueryAndEscapesWildcards() {
+        when(userRepo.search(any(), any(), any(), any(), any(), anyLong(), anyInt())).thenReturn(List.of());
+
+        service.searchUsers("  Jo_n%  ", Role.USER, true, null, 20);
+
+        verify(securityService).requireAdminOrDev();
+        verify(userRepo).search("jo_n%", "jo\\_n\\%%", null, "USER", true, 0L, 21);
+    }
+
+    @Test
+    void searchUsers_phoneDigits_matchPhonePrefix() {
+        when(userRepo.search(any(), any(), any(), any(), any(), anyLong(), anyInt())).thenReturn(List.of());
+
+        service.searchUsers("+49 151", null, null, 7L, 1000);
+
+        verify(userRepo).search("+49 151", "+49 151%", "49151%", null, null, 7L,
+                UserServiceImpl.MAX_SEARCH_LIMIT + 1);
+    }
+
+    @Test
+    void searchUsers_extraRow_setsNextAfter() {
+        User first = User.builder().id(3L).build();
+        User second = User.builder().id(8L).build();
+        User third = User.builder().id(9L).build();
+        when(userRepo.search(isNull(), isNull(), isNull(), isNull(), isNull(), eq(0L), eq(3)))
+                .thenReturn(List.of(first, second, third));
+        UserDTO dto1 = new UserDTO();
+        UserDTO dto2 = new UserDTO();
+        when(userMapper.userToUserDTO(first)).thenReturn(dto1);
+        when(userMapper.userToUserDTO(second)).thenReturn(dto2);
+
+        UserSearchPage page = service.searchUsers(" ", null, null, null, 2);
+
+        assertEquals(List.of(dto1, dto2), page.getUsers());
+        assertEquals(8L, page.getNextAfter());
+    }
+
+    @Test
+    void searchUsers_lastPage_hasNoNextAfter() {
+        when(userRepo.search(any(), any(), any(), any(), any(), anyLong(), anyInt()))
+                .thenReturn(List.of(User.builder().id(3L).build()));
+
+        UserSearchPage page = service.searchUsers("ann", null, null, null, 2);
+
+        assertEquals(1, page.getUsers().size());
+        assertNull(page.getNextAfter());
+    }
 }
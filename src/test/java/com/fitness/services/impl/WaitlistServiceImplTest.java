@@ -0,0 +1,161 @@
+package com.fitness.services.impl;
+
+import com.fitness.dto.BookingDTO;
+import com.fitness.dto.WaitlistEntryDTO;
+import com.fitness.enums.BookingStatus;
+import com.fitness.events.DomainEventExecutors;
+import com.fitness.events.SlotChangedEvent;
+import com.fitness.events.WaitlistJoinedEvent;
+import com.fitness.exceptions.TimeSlotNotFoundException;
+import com.fitness.exceptions.TrialSessionLimitExceededException;
+import com.fitness.exceptions.WaitlistNotAllowedException;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.fitness.models.TimeSlot;
+import com.fitness.models.User;
+import com.fitness.models.WaitlistEntry;
+import com.fitness.repositories.BookingRepository;
+import com.fitness.repositories.TimeSlotRepository;
+import com.fitness.repositories.WaitlistEntryRepository;
+import com.fitness.services.interfaces.BookingService;
+import com.fitness.services.interfaces.CurrentUserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WaitlistServiceImplTest {
+    private WaitlistEntryRepository waitlistRepo;
+    private TimeSlotRepository slotRepo;
+    private BookingRepository bookingRepo;
+    private BookingService bookingService;
+    private CurrentUserService currentUserService;
+    private ApplicationEventPublisher eventPublisher;
+    private DomainEventExecutors executors;
+    private WaitlistServiceImpl service;
+    private User me;
+
+    @BeforeEach
+    void setUp() {
+        waitlistRepo = mock(WaitlistEntryRepository.class);
+        slotRepo = mock(TimeSlotRepository.class);
+        bookingRepo = mock(BookingRepository.class);
+        bookingService = mock(BookingService.class);
+        currentUserService = mock(CurrentUserService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        me = new User();
+        me.setId(7L);
+        when(currentUserService.getCurrentUser()).thenReturn(me);
+        when(currentUserService.getCurrentUserId()).thenReturn(7L);
+        executors = new DomainEventExecutors(new SimpleMeterRegistry(), 1, 10, 1, 10);
+        service = new WaitlistServiceImpl(waitlistRepo, slotRepo, bookingRepo, bookingService,
+                currentUserService, eventPublisher, executors);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executors.shutdown();
+    }
+
+    @Test
+    void join_savesEntryAndRequestsPromotion() {
+        TimeSlot slot = slot(10L, LocalDate.now().plusDays(2), false);
+        WaitlistEntryDTO dto = new WaitlistEntryDTO();
+        dto.setPosition(2);
+        when(waitlistRepo.findDto(10L, 7L)).thenReturn(Optional.of(dto));
+
+        assertSame(dto, service.join(10L));
+        verify(waitlistRepo).save(argThat((WaitlistEntry e) -> e.getUser() == me && e.getTimeSlot() == slot));
+        verify(eventPublisher).publishEvent(refEq(new WaitlistJoinedEvent(10L, 7L)));
+    }
+
+    @Test
+    void join_alreadyWaiting_returnsExistingEntry() {
+        slot(10L, LocalDate.now().plusDays(2), false);
+        when(waitlistRepo.existsByTimeSlotIdAndUserId(10L, 7L)).thenReturn(true);
+        when(waitlistRepo.findDto(10L, 7L)).thenReturn(Optional.of(new WaitlistEntryDTO()));
+
+        service.join(10L);
+        verify(waitlistRepo, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void join_slotMissing() {
+        when(slotRepo.findById(10L)).thenReturn(Optional.empty());
+        assertThrows(TimeSlotNotFoundException.class, () -> service.join(10L));
+    }
+
+    @Test
+    void join_pastSlot_rejected() {
+        slot(10L, LocalDate.now().minusDays(1), false);
+        assertThrows(WaitlistNotAllowedException.class, () -> service.join(10L));
+        verify(waitlistRepo, never()).save(any());
+    }
+
+    @Test
+    void join_ownBooking_rejected() {
+        slot(10L, LocalDate.now().plusDays(2), false);
+        when(bookingRepo.existsByUserIdAndTimeSlotIdAndStatusNot(7L, 10L, BookingStatus.CANCELLED))
+                .thenReturn(true);
+        assertThrows(WaitlistNotAllowedException.class, () -> service.join(10L));
+    }
+
+    @Test
+    void join_freeSlot_rejectedWithoutBooking() {
+        slot(10L, LocalDate.now().plusDays(2), false);
+        when(bookingRepo.existsByTimeSlotIdAndStatusNot(10L, BookingStatus.CANCELLED)).thenReturn(false);
+
+        WaitlistNotAllowedException ex = assertThrows(WaitlistNotAllowedException.class, () -> service.join(10L));
+        assertEquals(ErrorMessage.WAITLIST_SLOT_AVAILABLE, ex.getMessage());
+        verify(waitlistRepo, never()).save(any());
+        verifyNoInteractions(bookingService, eventPublisher);
+    }
+
+    @Test
+    void join_trialUsed_rejected() {
+        slot(10L, LocalDate.now().plusDays(2), true);
+        when(bookingRepo.existsByUserIdAndTimeSlot_TrialTrueAndTimeSlot_DateAfter(eq(7L), any()))
+                .thenReturn(true);
+        assertThrows(TrialSessionLimitExceededException.class, () -> service.join(10L));
+    }
+
+    @Test
+    void leave_deletesOwnEntry() {
+        service.leave(10L);
+        verify(waitlistRepo).deleteByTimeSlotIdAndUserId(10L, 7L);
+    }
+
+    @Test
+    void onSlotChanged_released_promotesAsynchronously() {
+        when(bookingService.promoteFromWaitlist(10L)).thenReturn(Optional.of(new BookingDTO()));
+
+        service.onSlotChanged(new SlotChangedEvent(10L, 3L, false));
+        verify(bookingService, timeout(1000)).promoteFromWaitlist(10L);
+    }
+
+    @Test
+    void onSlotChanged_booked_ignored() {
+        service.onSlotChanged(new SlotChangedEvent(10L, 3L, true));
+        service.onWaitlistJoined(new WaitlistJoinedEvent(11L, 7L));
+
+        verify(bookingService, timeout(1000)).promoteFromWaitlist(11L);
+        verify(bookingService, never()).promoteFromWaitlist(10L);
+    }
+
+    private TimeSlot slot(Long id, LocalDate date, boolean trial) {
+        TimeSlot slot = new TimeSlot();
+        slot.setId(id);
+        slot.setDate(date);
+        slot.setTrial(trial);
+        when(slotRepo.findById(id)).thenReturn(Optional.of(slot));
+        when(bookingRepo.existsByTimeSlotIdAndStatusNot(id, BookingStatus.CANCELLED)).thenReturn(true);
+        return slot;
+    }
+}
@@ -0,0 +1,149 @@
+package com.fitness.web;
+
+import com.fitness.config.datasource.BulkheadRoutingDataSource;
+import com.fitness.exceptions.BulkheadRejectedException;
+import com.fitness.exceptions.errorMessage.ErrorMessage;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BulkheadTest {
+    private final HikariDataSource pool = mock(HikariDataSource.class);
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource routing = new BulkheadRoutingDataSource(primary);
+    private final Connection connection = mock(Connection.class);
+    private final PreparedStatement statement = mock(PreparedStatement.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MeterRegistry meterRegistry;
+    private Bulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        meterRegistry = new SimpleMeterRegistry();
+        when(pool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(statement);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    private Bulkhead bulkhead(int size, int queueCapacity, Duration timeout) {
+        bulkhead = new Bulkhead("test", size, queueCapacity, timeout, pool, meterRegistry);
+        return bulkhead;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("bulkhead", "test").counter().count();
+    }
+
+    // runs a statement on the bulkhead's connection, then blocks until released or interrupted
+    private Boolean blockingQuery(CountDownLatch started, CountDownLatch interrupted) {
+        try (Connection c = routing.getConnection()) {
+            c.prepareStatement("select 1");
+            started.countDown();
+            release.await();
+            return true;
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            return false;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void work_runsOnBulkheadThreadsWithTheBulkheadPool() throws SQLException {
+        bulkhead(1, 1, Duration.ofSeconds(5));
+
+        String thread = bulkhead.call(() -> {
+            try (Connection c = routing.getConnection()) {
+                return Thread.currentThread().getName();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertTrue(thread.startsWith("bulkhead-test-"), thread);
+        verify(pool).getConnection();
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void full_rejectsAtOnce() throws InterruptedException {
+        bulkhead(1, 1, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        bulkhead.submit(() -> blockingQuery(started, new CountDownLatch(1)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        bulkhead.submit(() -> true);
+
+        BulkheadRejectedException e = assertThrows(BulkheadRejectedException.class,
+                () -> bulkhead.submit(() -> true));
+
+        assertEquals(ErrorMessage.BULKHEAD_FULL, e.getMessage());
+        assertEquals(1, counter("bulkhead.rejected"));
+    }
+
+    @Test
+    void timeout_failsTheFutureAndStopsTheWork() throws Exception {
+        bulkhead(1, 1, Duration.ofMillis(200));
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> future = bulkhead.submit(() -> blockingQuery(new CountDownLatch(1), interrupted));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BulkheadRejectedException.class, e.getCause());
+        assertEquals(ErrorMessage.BULKHEAD_TIMEOUT, e.getCause().getMessage());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        verify(statement).cancel();
+        // counted by the timer thread once the future's callbacks have run
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter("bulkhead.timeouts") == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, counter("bulkhead.timeouts"));
+    }
+
+    @Test
+    void cancel_stopsTheWorkAndItsStatements() throws Exception {
+        bulkhead(1, 1, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Boolean> future = bulkhead.submit(() -> blockingQuery(started, interrupted));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        future.cancel(true);
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        verify(statement).cancel();
+        assertEquals(0, counter("bulkhead.timeouts"));
+    }
+
+    @Test
+    void call_rethrowsTheWorksException() {
+        bulkhead(1, 1, Duration.ofSeconds(5));
+        IllegalArgumentException failure = new IllegalArgumentException("bad range");
+
+        assertSame(failure, assertThrows(IllegalArgumentException.class, () -> bulkhead.call(() -> {
+            throw failure;
+        })));
+    }
+}